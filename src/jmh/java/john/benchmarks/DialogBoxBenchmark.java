@@ -0,0 +1,116 @@
+package john.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import john.ui.DialogBox;
+
+/**
+ * Class to benchmark creating one chat bubble, built in code versus loaded from FXML as bubbles used to be.
+ * Bubbles per second is the reciprocal of the reported time. Neither variant is shown, so CSS and layout
+ * are left out and the numbers compare only the construction cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialogBoxBenchmark {
+    private static final String MESSAGE = "Got it. I've added this task:\n  [T][ ] read book\n"
+            + "Now you have 3 tasks in the list.";
+
+    /**
+     * Function to start the JavaFX toolkit, which loading the avatar images needs.
+     */
+    @Setup
+    public void setUp() {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException e) {
+            // Already started by an earlier benchmark in this JVM
+        }
+    }
+
+    /**
+     * Function to measure building a reply bubble in code.
+     *
+     * @return the bubble
+     */
+    @Benchmark
+    public HBox programmatic() {
+        return DialogBox.ofJohn(MESSAGE);
+    }
+
+    /**
+     * Function to measure building a reply bubble with a fresh FXMLLoader, as DialogBox did before.
+     *
+     * @return the bubble
+     */
+    @Benchmark
+    public HBox fxml() {
+        return LegacyDialogBox.ofJohn(MESSAGE);
+    }
+
+    /**
+     * Class to reproduce the FXML-loaded DialogBox for comparison.
+     */
+    public static class LegacyDialogBox extends HBox {
+        private static final Image JOHN = new Image(
+                Objects.requireNonNull(LegacyDialogBox.class.getResourceAsStream("/images/john_dancing.gif"))
+        );
+        @FXML
+        private Label dialog;
+        @FXML
+        private ImageView displayPicture;
+
+        private LegacyDialogBox(String message, Image avatar) {
+            try {
+                FXMLLoader fxmlLoader = new FXMLLoader(
+                        LegacyDialogBox.class.getResource("/view/LegacyDialogBox.fxml"));
+                fxmlLoader.setController(this);
+                fxmlLoader.setRoot(this);
+                fxmlLoader.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            dialog.setText(message);
+            displayPicture.setImage(avatar);
+        }
+
+        static LegacyDialogBox ofJohn(String message) {
+            LegacyDialogBox db = new LegacyDialogBox(message, JOHN);
+            db.dialog.getStyleClass().add("reply-label");
+            ObservableList<Node> tmp = FXCollections.observableArrayList(db.getChildren());
+            Collections.reverse(tmp);
+            db.getChildren().setAll(tmp);
+            db.setAlignment(Pos.TOP_LEFT);
+            return db;
+        }
+    }
+}
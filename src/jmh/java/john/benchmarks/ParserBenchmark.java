@@ -0,0 +1,53 @@
+package john.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import john.command.Parser;
+import john.exceptions.JohnException;
+
+/**
+ * Class to benchmark parsing one representative command of each kind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"EXIT", "LIST", "HELP", "ADD", "MARK", "UNMARK", "DELETE", "FIND", "SORT", "UNKNOWN"})
+    private String kind;
+
+    private String input;
+
+    /**
+     * Function to pick the input line for the current command kind.
+     */
+    @Setup
+    public void setUp() {
+        input = TaskData.command(kind);
+    }
+
+    /**
+     * Function to measure a single parse.
+     *
+     * @return the parsed command
+     * @throws JohnException if the input is invalid, which would be a bug in {@link TaskData}
+     */
+    @Benchmark
+    public Parser.Parsed parse() throws JohnException {
+        return Parser.parse(input);
+    }
+}
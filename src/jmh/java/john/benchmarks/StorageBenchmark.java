@@ -0,0 +1,173 @@
+package john.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import john.data.Storage;
+import john.tasks.Task;
+
+/**
+ * Class to benchmark loading and saving full snapshots in each format.
+ * Loads include the journal check but no journal records; mapped loads only build the line table,
+ * so touching every task is measured separately.
+ * Saves are also measured for every durability setting; run only them with
+ * {@code ./gradlew jmh -PjmhInclude=StorageBenchmark.save}, on the disk the data will live on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"TEXT", "BINARY"})
+    private Storage.Format format;
+
+    private Path dir;
+    private Storage storage;
+    private Storage mapped;
+    private Storage parallel;
+    private List<Task> tasks;
+
+    /**
+     * Function to write a snapshot of generated tasks to a fresh directory.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("john-jmh");
+        Path file = dir.resolve("johnChatBot.txt");
+        tasks = TaskData.tasks(size, TaskData.SEED);
+        storage = new Storage(file).withFormat(format);
+        mapped = new Storage(file).withFormat(format).withMappedLoad(true);
+        parallel = new Storage(file).withFormat(format).withParallelLoad(true);
+        storage.save(tasks);
+    }
+
+    /**
+     * Function to remove the benchmark directory.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    /**
+     * Function to measure an eager load of every task.
+     *
+     * @return the loaded tasks
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public List<Task> load() throws IOException {
+        return storage.load();
+    }
+
+    /**
+     * Function to measure an eager load that decodes large text snapshots in parallel chunks.
+     * Binary snapshots are always decoded on one thread, so for them this matches {@link #load()}.
+     *
+     * @return the loaded tasks
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public List<Task> loadParallel() throws IOException {
+        return parallel.load();
+    }
+
+    /**
+     * Function to measure a memory-mapped load followed by decoding every task.
+     * Binary snapshots are not mapped, so for them this matches {@link #load()}.
+     *
+     * @return the number of done tasks, so that every task is decoded
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public int loadMappedAndTouchAll() throws IOException {
+        int done = 0;
+        for (Task t : mapped.load()) {
+            done += t.getIsDone() ? 1 : 0;
+        }
+        return done;
+    }
+
+    /**
+     * Enum of the ways a snapshot can be saved, from least to most durable.
+     */
+    public enum Durability {
+        /** Truncate and overwrite the snapshot, as saves did before they were atomic. */
+        IN_PLACE,
+        /** Write a temporary file and rename it over the snapshot, without fsync. */
+        NONE,
+        /** As {@link #NONE}, forcing the temporary file to the device before the rename. */
+        FILE_FSYNC,
+        /** As {@link #FILE_FSYNC}, also forcing the directory after the rename, as in SYNC mode. */
+        FILE_AND_DIR_FSYNC
+    }
+
+    /**
+     * Class to hold a storage configured for one durability setting, saving to its own file
+     * so that the snapshot the loads read is left alone.
+     */
+    @State(Scope.Benchmark)
+    public static class SaveState {
+        @Param({"IN_PLACE", "NONE", "FILE_FSYNC", "FILE_AND_DIR_FSYNC"})
+        private Durability durability;
+
+        private Storage storage;
+
+        /**
+         * Function to create the storage in the benchmark directory.
+         *
+         * @param benchmark the benchmark, whose directory and format are used
+         */
+        @Setup(Level.Trial)
+        public void setUp(StorageBenchmark benchmark) {
+            storage = new Storage(benchmark.dir.resolve("save.txt"))
+                    .withFormat(benchmark.format)
+                    .withInPlaceSave(durability == Durability.IN_PLACE)
+                    .withFsync(durability == Durability.FILE_FSYNC || durability == Durability.FILE_AND_DIR_FSYNC)
+                    .withDirectoryFsync(durability == Durability.FILE_AND_DIR_FSYNC);
+        }
+    }
+
+    /**
+     * Function to measure a snapshot save with the given durability.
+     *
+     * @param state the storage for one durability setting
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Benchmark
+    public void save(SaveState state) throws IOException {
+        state.storage.save(tasks);
+    }
+}
@@ -0,0 +1,94 @@
+package john.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to generate reproducible task lists and command inputs for the benchmarks.
+ * The same size and seed always produce the same data, so results are comparable across runs.
+ */
+public final class TaskData {
+    public static final long SEED = 42;
+    private static final String[] WORDS = {
+        "read", "book", "return", "library", "project", "meeting", "submit", "report", "buy", "milk",
+        "call", "mum", "review", "pull", "request", "lecture", "tutorial", "gym", "dinner", "exam"
+    };
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private TaskData() {
+    }
+
+    /**
+     * Function to generate a mix of to-dos, deadlines and events in roughly equal parts,
+     * with about a third of them marked done and ids 1 to size in order.
+     *
+     * @param size number of tasks
+     * @param seed random seed
+     * @return a new modifiable list of tasks
+     */
+    public static List<Task> tasks(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String desc = description(random);
+            // Whole minutes within two years, like the storage formats keep
+            LocalDateTime start = EPOCH.plusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            Task t = switch (random.nextInt(3)) {
+            case 0 -> new ToDo(desc);
+            case 1 -> new Deadline(desc, start);
+            default -> new Event(desc, start, start.plusMinutes(30 + random.nextInt(240)));
+            };
+            if (random.nextInt(3) == 0) {
+                t.mark();
+            }
+            // Saved files then carry ids, so loads measure reading rather than a one-off migration
+            t.setId(i + 1);
+            tasks.add(t);
+        }
+        return tasks;
+    }
+
+    /**
+     * Function to return a representative input line for a command kind.
+     *
+     * @param kind the name of a {@code Parser.Kind}
+     * @return a command line that parses to that kind
+     */
+    public static String command(String kind) {
+        return switch (kind) {
+        case "EXIT" -> "bye";
+        case "LIST" -> "list";
+        case "HELP" -> "help";
+        case "ADD" -> "event project meeting /from 28/8/2025 0900 /to 28/8/2025 1030";
+        case "MARK" -> "mark 42";
+        case "UNMARK" -> "unmark 42";
+        case "DELETE" -> "delete 42";
+        case "FIND" -> "find book";
+        case "SORT" -> "sort deadline";
+        case "UNKNOWN" -> "blah blah";
+        default -> throw new IllegalArgumentException("Unknown command kind: " + kind);
+        };
+    }
+
+    /**
+     * Function to build a two to four word description from the word list.
+     *
+     * @param random the random source
+     * @return the description
+     */
+    private static String description(SplittableRandom random) {
+        int words = 2 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
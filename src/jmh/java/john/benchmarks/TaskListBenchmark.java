@@ -0,0 +1,118 @@
+package john.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import john.data.TaskList;
+import john.tasks.Task;
+
+/**
+ * Class to benchmark the TaskList queries behind the find, sort, due and events commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListBenchmark {
+    private static final LocalDateTime WEEK_START = LocalDateTime.of(2025, 9, 1, 0, 0);
+    private static final LocalDateTime WEEK_END = WEEK_START.plusDays(7);
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private TaskList tasks;
+
+    /**
+     * Class to hold the search keyword, so that only {@link #find(Query)} is run once per keyword.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+        // A common word, a rare phrase, a miss, and a needle too short for the trigram index
+        @Param({"book", "pull request", "zebra", "gy"})
+        private String needle;
+    }
+
+    /**
+     * Function to build an indexed task list of generated tasks.
+     */
+    @Setup
+    public void setUp() {
+        tasks = new TaskList(TaskData.tasks(size, TaskData.SEED));
+    }
+
+    /**
+     * Function to measure a keyword search.
+     *
+     * @param query the keyword to search for
+     * @return the matching tasks
+     */
+    @Benchmark
+    public List<Task> find(Query query) {
+        return tasks.find(query.needle);
+    }
+
+    /**
+     * Function to measure the deadline-first view.
+     *
+     * @return the sorted view
+     */
+    @Benchmark
+    public List<Task> sortedViewDeadlineFirst() {
+        return tasks.sortedViewDeadlineFirst();
+    }
+
+    /**
+     * Function to measure the event-first view.
+     *
+     * @return the sorted view
+     */
+    @Benchmark
+    public List<Task> sortedViewEventFirst() {
+        return tasks.sortedViewEventFirst();
+    }
+
+    /**
+     * Function to measure finding the deadlines due in one week of the two years the tasks span.
+     *
+     * @return the deadlines in the week
+     */
+    @Benchmark
+    public List<Task> dueBetween() {
+        return tasks.dueBetween(WEEK_START, WEEK_END);
+    }
+
+    /**
+     * Function to measure finding the events that overlap one week of the two years the tasks span.
+     *
+     * @return the events in the week
+     */
+    @Benchmark
+    public List<Task> eventsOverlapping() {
+        return tasks.eventsOverlapping(WEEK_START, WEEK_END);
+    }
+
+    /**
+     * Function to measure rendering the whole list, which reuses each task's cached display string.
+     *
+     * @return the rendered list
+     */
+    @Benchmark
+    public String toDisplayString() {
+        return tasks.toDisplayString();
+    }
+}
@@ -0,0 +1,79 @@
+package john.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import john.data.TaskList;
+import john.tasks.Task;
+
+/**
+ * Class to compare the sequential and parallel paths of the TaskList queries across list sizes,
+ * to find where splitting the work across the common fork-join pool starts to pay off.
+ * Each query is run with the parallel threshold at 0, so it always splits, and at its maximum, so it never does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListParallelBenchmark {
+    @Param({"1000", "10000", "65536", "100000", "1000000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean isParallel;
+
+    private TaskList tasks;
+
+    /**
+     * Function to build an indexed task list of generated tasks with the chosen path forced on.
+     */
+    @Setup
+    public void setUp() {
+        tasks = new TaskList(TaskData.tasks(size, TaskData.SEED))
+                .withParallelThreshold(isParallel ? 0 : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Function to measure a search too short for the trigram index, which scans every task.
+     *
+     * @return the matching tasks
+     */
+    @Benchmark
+    public List<Task> findScan() {
+        return tasks.find("gy");
+    }
+
+    /**
+     * Function to measure a search for a common word, whose many index hits are sorted back into list order.
+     *
+     * @return the matching tasks
+     */
+    @Benchmark
+    public List<Task> findIndexed() {
+        return tasks.find("book");
+    }
+
+    /**
+     * Function to measure the deadline-first view.
+     *
+     * @return the sorted view
+     */
+    @Benchmark
+    public List<Task> sortedViewDeadlineFirst() {
+        return tasks.sortedViewDeadlineFirst();
+    }
+}
@@ -3,11 +3,17 @@ package john;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import john.command.Parser;
+import john.data.JournalEntry;
+import john.data.Page;
+import john.data.PersistenceScheduler;
 import john.data.Storage;
 import john.data.TaskList;
+import john.data.UndoHistory;
 import john.exceptions.JohnException;
+import john.metrics.Metrics;
 import john.tasks.Task;
 
 /**
@@ -16,20 +22,72 @@ import john.tasks.Task;
 public class John {
     private final Storage storage;
     private final TaskList tasks;
+    private final PersistenceScheduler persistence;
+    private final UndoHistory history;
+    private final Metrics metrics = Metrics.shared();
+    private boolean isShutDown;
+    // Whether the command being handled is timed, and the part of its handler spent rendering the reply
+    private boolean isTimed;
+    private long renderNanos;
 
     /**
      * John class
      * @param filePath the path for the .txt file saving the tasks
      */
     public John(String filePath) {
-        this.storage = new Storage(Path.of(filePath));
+        this(filePath, null);
+    }
+
+    /**
+     * Creates a facade whose changes are written on a pool shared with other facades, such as server sessions.
+     *
+     * @param filePath the path for the .txt file saving the tasks
+     * @param writers  the shared pool to write on, or {@code null} for a writer thread of its own
+     */
+    public John(String filePath, ScheduledExecutorService writers) {
+        this.storage = new Storage(Path.of(filePath))
+                .withJournal(Storage.DEFAULT_COMPACT_THRESHOLD)
+                .withParallelLoad(true)
+                .withMetrics(metrics);
         TaskList loaded;
+        UndoHistory loadedHistory;
         try {
             loaded = new TaskList(storage.load());
+            loadedHistory = UndoHistory.decode(storage.loadHistory(), UndoHistory.DEFAULT_CAPACITY);
         } catch (IOException e) {
             loaded = new TaskList(java.util.List.of());
+            loadedHistory = new UndoHistory(UndoHistory.DEFAULT_CAPACITY);
         }
         this.tasks = loaded;
+        this.history = loadedHistory;
+        this.persistence = writers == null
+                ? new PersistenceScheduler(storage, PersistenceScheduler.Durability.ON_IDLE)
+                : new PersistenceScheduler(storage, PersistenceScheduler.Durability.ON_IDLE, writers);
+    }
+
+    /**
+     * Writes every pending change to disk and stops the background writer.
+     * If an earlier write failed, the whole list is saved once more, so that the changes it held are not lost.
+     * Calling it more than once is harmless.
+     *
+     * @throws IOException If the final write fails.
+     */
+    public void shutdown() throws IOException {
+        if (isShutDown) {
+            return;
+        }
+        isShutDown = true;
+        try {
+            persistence.flush();
+        } catch (IOException e) {
+            // Reported by the snapshot below if it fails too
+        }
+        if (persistence.needsCompaction()) {
+            history.takeDeltas(); // the whole history below includes them
+            persistence.submitSnapshot(tasks.asList());
+            persistence.submitHistory(history.encode());
+        }
+        persistence.close();
     }
 
     private static void ensureIndexInRange(int idx, int size) throws JohnException {
@@ -38,10 +96,30 @@ public class John {
         }
     }
 
+    /**
+     * Function to find the position of the task a command refers to, by number or by "#id".
+     *
+     * @param p the parsed command
+     * @return the zero-based index of the task
+     * @throws JohnException if the number is out of range or no task has the id
+     */
+    private int resolveIndex(Parser.Parsed p) throws JohnException {
+        if (p.id == 0) {
+            ensureIndexInRange(p.index, tasks.size());
+            return p.index;
+        }
+        int idx = tasks.indexOfId(p.id);
+        if (idx < 0) {
+            throw new JohnException("Invalid id! No task has the id #" + p.id + ".");
+        }
+        return idx;
+    }
+
     /**
      * Produces a response string for the given user input.
      * Performs basic input checks, parses the command, and delegates
      * to command-specific handlers. Exceptions are converted to user-facing messages.
+     * Each command is counted by kind, and its parse, handler and render times are recorded, while metrics are on.
      *
      * @param input Raw user input; may be {@code null} or blank.
      * @return A response message to be shown to the user.
@@ -52,11 +130,17 @@ public class John {
             return "John \uD83D\uDDFF demands you type something.";
         }
 
+        isTimed = metrics.isEnabled();
+        renderNanos = 0;
+        long start = isTimed ? System.nanoTime() : 0;
+        Parser.Parsed.Kind kind = null;
         try {
             Parser.Parsed p = Parser.parse(s);
-            return switch (p.kind) {
+            kind = p.kind;
+            long parsed = isTimed ? System.nanoTime() : 0;
+            String response = switch (p.kind) {
             case EXIT -> handleExit();
-            case LIST -> handleList();
+            case LIST -> handleList(p);
             case ADD -> handleAdd(p);
             case MARK -> handleMark(p);
             case UNMARK -> handleUnmark(p);
@@ -64,16 +148,54 @@ public class John {
             case FIND -> handleFind(p);
             case HELP -> helpText();
             case SORT -> handleSort(p);
+            case DUE -> handleDue(p);
+            case OVERLAPPING -> handleOverlapping(p);
+            case STATS -> metrics.getSummary();
+            case UNDO -> handleUndo();
+            case REDO -> handleRedo();
             default -> "Unknown command, type in \"help\" for available commands. \uD83D\uDDFF";
             };
+            if (isTimed) {
+                metrics.recordLatency(Metrics.Phase.PARSE, parsed - start);
+                metrics.recordLatency(Metrics.Phase.HANDLER, System.nanoTime() - parsed - renderNanos);
+                if (renderNanos > 0) { // Only list, find and sort render a list of tasks
+                    metrics.recordLatency(Metrics.Phase.RENDER, renderNanos);
+                }
+            }
+            metrics.recordCommand(kind, true);
+            return response;
         } catch (JohnException je) {
+            metrics.recordCommand(kind, false);
             return je.getMessage();
         } catch (IOException ioe) {
+            metrics.recordCommand(kind, false);
             return "John \uD83D\uDDFF couldn't save your tasks: " + ioe.getMessage();
         } catch (Exception e) {
+            metrics.recordCommand(kind, false);
             return "Even John \uD83D\uDDFF did not expect this error: " + e.getMessage();
         }
     }
+
+    /**
+     * Reads the clock before rendering a reply, if the command is timed.
+     *
+     * @return The current {@link System#nanoTime()}, or 0 if the command is not timed.
+     */
+    private long startRender() {
+        return isTimed ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts the time since {@link #startRender()} as rendering rather than handling.
+     *
+     * @param start The value returned by {@link #startRender()}.
+     */
+    private void endRender(long start) {
+        if (isTimed) {
+            renderNanos += System.nanoTime() - start;
+        }
+    }
+
     /**
      * Function to handle sort command
      * @param p Parsed object
@@ -91,7 +213,9 @@ public class John {
         } else {
             return "Unknown sort key. Use \"sort deadline\" or \"sort event\".";
         }
+        long render = startRender();
         String taskList = tasks.toDisplayStringWithoutNumbers(view);
+        endRender(render);
         return header + "\n" + taskList;
     }
 
@@ -106,12 +230,32 @@ public class John {
     }
 
     /**
-     * Renders the current task list for the LIST command.
+     * Renders one page of the task list for the LIST command.
+     * Only the lines of that page are rendered, so the reply stays small however long the list is.
      *
-     * @return A string representation of all tasks.
+     * @param p Parsed command containing the page number and page size.
+     * @return The numbered tasks on the page, followed by how to see the next page if there is one.
+     * @throws JohnException If the list has no such page.
      */
-    private String handleList() {
-        return tasks.toDisplayString();
+    private String handleList(Parser.Parsed p) throws JohnException {
+        if (tasks.size() == 0) {
+            return "No tasks in your list.";
+        }
+        Page page = new Page(p.page, p.pageSize, tasks.size());
+        if (!page.isInRange()) {
+            throw new JohnException("Invalid page! The list only has " + page.getCount() + " page(s).");
+        }
+        long render = startRender();
+        StringBuilder sb = new StringBuilder();
+        tasks.displayLines(page.getFrom(), page.getTo()).forEachRemaining(line -> sb.append(line).append('\n'));
+        String footer = page.footer();
+        if (footer.isEmpty()) {
+            sb.setLength(sb.length() - 1);
+        } else {
+            sb.append(footer);
+        }
+        endRender(render);
+        return sb.toString();
     }
 
     /**
@@ -123,7 +267,8 @@ public class John {
      */
     private String handleAdd(Parser.Parsed p) throws IOException {
         tasks.add(p.task);
-        saveTasks();
+        history.recordAdd(tasks.size() - 1, p.task);
+        saveTasks(JournalEntry.add(p.task));
         return "Acknowledged. John \uD83D\uDDFF has added this task:\n  " + p.task
                 + "\nNow you have " + tasks.size()
                 + " tasks in the list.";
@@ -132,69 +277,187 @@ public class John {
     /**
      * Marks a task as done and persists the change.
      *
-     * @param p Parsed command containing the zero-based index to mark.
+     * @param p Parsed command containing the number or id of the task to mark.
      * @return A confirmation message containing the marked task.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If persisting the updated task list fails.
      */
     private String handleMark(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task t = tasks.mark(p.index);
-        saveTasks();
+        int idx = resolveIndex(p);
+        boolean wasDone = tasks.get(idx).getIsDone();
+        Task t = tasks.mark(idx);
+        history.recordMark(idx, t, wasDone);
+        saveTasks(JournalEntry.mark(idx));
         return "Outstanding. John \uD83D\uDDFF has marked this task as 'done':\n  " + t;
     }
 
     /**
      * Marks a task as not done and persists the change.
      *
-     * @param p Parsed command containing the zero-based index to unmark.
+     * @param p Parsed command containing the number or id of the task to unmark.
      * @return A confirmation message containing the unmarked task.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If persisting the updated task list fails.
      */
     private String handleUnmark(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task t = tasks.unmark(p.index);
-        saveTasks();
+        int idx = resolveIndex(p);
+        boolean wasDone = tasks.get(idx).getIsDone();
+        Task t = tasks.unmark(idx);
+        history.recordUnmark(idx, t, wasDone);
+        saveTasks(JournalEntry.unmark(idx));
         return "Understood, John \uD83D\uDDFF has marked this task as 'not done yet':\n  " + t;
     }
 
     /**
      * Deletes a task and persists the updated list.
      *
-     * @param p Parsed command containing the zero-based index to delete.
+     * @param p Parsed command containing the number or id of the task to delete.
      * @return A confirmation message including the removed task and new count.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If persisting the updated task list fails.
      */
     private String handleDelete(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task t = tasks.remove(p.index);
-        saveTasks();
+        int idx = resolveIndex(p);
+        Task t = tasks.remove(idx);
+        history.recordDelete(idx, t);
+        saveTasks(JournalEntry.delete(idx));
         return "Affirmative. John \uD83D\uDDFF has removed this task:\n  " + t
                 + "\nNow you have " + tasks.size() + " tasks in the list.";
     }
 
+    /**
+     * Reverses the latest add, delete, mark or unmark that has not been undone yet, and persists the reversal.
+     *
+     * @return A confirmation message containing the task, or a message that there is nothing to undo.
+     * @throws IOException If persisting the change fails.
+     */
+    private String handleUndo() throws IOException {
+        UndoHistory.Step step = history.undo(tasks);
+        if (step == null) {
+            return "There is nothing for John \uD83D\uDDFF to undo.";
+        }
+        saveTasks(step.getEntry());
+        return "Reverted. John \uD83D\uDDFF has undone " + step.getKind().getAction() + " this task:\n  "
+                + step.getTask() + "\nNow you have " + tasks.size() + " tasks in the list.";
+    }
+
+    /**
+     * Makes the latest undone change again, and persists it.
+     *
+     * @return A confirmation message containing the task, or a message that there is nothing to redo.
+     * @throws IOException If persisting the change fails.
+     */
+    private String handleRedo() throws IOException {
+        UndoHistory.Step step = history.redo(tasks);
+        if (step == null) {
+            return "There is nothing for John \uD83D\uDDFF to redo.";
+        }
+        saveTasks(step.getEntry());
+        return "Reapplied. John \uD83D\uDDFF has redone " + step.getKind().getAction() + " this task:\n  "
+                + step.getTask() + "\nNow you have " + tasks.size() + " tasks in the list.";
+    }
+
     /**
      * Finds tasks matching the supplied query string.
      *
-     * @param p Parsed command containing the search query.
-     * @return Either a rendered list of matches or a “no matches” message.
+     * @param p Parsed command containing the search query and the page to show.
+     * @return Either a rendered page of matches or a “no matches” message.
+     * @throws JohnException If the matches have no such page.
      */
-    private String handleFind(Parser.Parsed p) {
-        TaskList filtered = new TaskList(tasks.find(p.query));
-        return filtered.size() == 0
-                ? "John \uD83D\uDDFF can't find matching tasks for \"" + p.query + "\" and John is never wrong."
-                : filtered.toDisplayString();
+    private String handleFind(Parser.Parsed p) throws JohnException {
+        List<Task> matches = tasks.find(p.query);
+        if (matches.isEmpty()) {
+            return "John \uD83D\uDDFF can't find matching tasks for \"" + p.query + "\" and John is never wrong.";
+        }
+        return renderMatches(matches, p, "find " + p.query);
     }
 
     /**
-     * Persists the current task list to storage.
+     * Finds the deadlines due before a date-time, or within a range, from the deadline index.
      *
-     * @throws IOException If writing to storage fails.
+     * @param p Parsed command containing the range, whose start is null for "due before", and the page to show.
+     * @return Either a page of the matching deadlines, earliest first, or a "none due" message.
+     * @throws JohnException If the deadlines have no such page.
      */
-    private void saveTasks() throws IOException {
-        storage.save(tasks.asList());
+    private String handleDue(Parser.Parsed p) throws JohnException {
+        List<Task> due = p.start == null
+                ? tasks.dueBefore(p.end)
+                : tasks.dueBetween(p.start, p.end);
+        if (due.isEmpty()) {
+            return p.start == null
+                    ? "Nothing is due before " + p.end.format(Parser.DMY_HM) + ". John \uD83D\uDDFF approves."
+                    : "Nothing is due between " + p.start.format(Parser.DMY_HM) + " and "
+                            + p.end.format(Parser.DMY_HM) + ". John \uD83D\uDDFF approves.";
+        }
+        String command = p.start == null
+                ? "due before " + p.end.format(Parser.DMY_HM)
+                : "due between " + p.start.format(Parser.DMY_HM) + " " + p.end.format(Parser.DMY_HM);
+        return renderMatches(due, p, command);
+    }
+
+    /**
+     * Finds the events that overlap a range, from the interval index.
+     *
+     * @param p Parsed command containing the range and the page to show.
+     * @return Either a page of the overlapping events, by start time, or a "no events" message.
+     * @throws JohnException If the events have no such page.
+     */
+    private String handleOverlapping(Parser.Parsed p) throws JohnException {
+        List<Task> overlapping = tasks.eventsOverlapping(p.start, p.end);
+        if (overlapping.isEmpty()) {
+            return "No events between " + p.start.format(Parser.DMY_HM) + " and "
+                    + p.end.format(Parser.DMY_HM) + ". John \uD83D\uDDFF is free.";
+        }
+        return renderMatches(overlapping, p, "events overlapping " + p.start.format(Parser.DMY_HM) + " "
+                + p.end.format(Parser.DMY_HM));
+    }
+
+    /**
+     * Renders one page of a query's results as numbered lines, the way LIST renders a page of the list.
+     *
+     * @param matches The results, in the order to show them; not empty.
+     * @param p       Parsed command containing the page number and page size.
+     * @param command The query without its page options, repeated in the footer to ask for the next page.
+     * @return The numbered results on the page, followed by how to see the next page if there is one.
+     * @throws JohnException If the results have no such page.
+     */
+    private String renderMatches(List<Task> matches, Parser.Parsed p, String command) throws JohnException {
+        Page page = new Page(p.page, p.pageSize, matches.size());
+        if (!page.isInRange()) {
+            throw new JohnException("Invalid page! The results only have " + page.getCount() + " page(s).");
+        }
+        long render = startRender();
+        StringBuilder sb = new StringBuilder();
+        TaskList.displayLines(matches, page.getFrom(), page.getTo())
+                .forEachRemaining(line -> sb.append(line).append('\n'));
+        String footer = page.footer(command);
+        if (footer.isEmpty()) {
+            sb.setLength(sb.length() - 1);
+        } else {
+            sb.append(footer);
+        }
+        endRender(render);
+        return sb.toString();
+    }
+
+    /**
+     * Queues a mutation for the background writer, which appends it to the storage journal,
+     * followed by the steps the undo history took for it, which are appended to the saved history.
+     * Once the journal grows too long, or after a failed write, a full snapshot and the whole history are
+     * queued instead.
+     *
+     * @param entry The mutation that was just applied to the task list.
+     * @throws IOException If an earlier background write failed.
+     */
+    private void saveTasks(JournalEntry entry) throws IOException {
+        List<String> deltas = history.takeDeltas();
+        if (persistence.needsCompaction()) {
+            persistence.submitSnapshot(tasks.asList());
+            persistence.submitHistory(history.encode());
+        } else {
+            persistence.submit(entry);
+            persistence.submitHistoryDeltas(deltas);
+        }
     }
 
     /**
@@ -208,23 +471,31 @@ public class John {
                 "",
                 "General",
                 "  help                          - Show this help",
+                "  stats                         - Show command counts and timings",
                 "  bye                           - Exit the chatbot",
                 "",
                 "Tasks",
-                "  list                          - List all tasks",
+                "  list [page] [--page-size <n>] - List tasks, 100 per page by default",
                 "  todo <description>            - Add a ToDo task",
                 "  deadline <desc> /by <when>    - Add a Deadline task",
                 "  event <desc> /from <start> /to <end> - Add an Event task",
                 "",
                 "Task status & editing",
-                "  mark <n>                      - Mark task #n as done",
-                "  unmark <n>                    - Mark task #n as not done",
-                "  delete <n>                    - Delete task #n",
+                "  mark <n>                      - Mark task number n as done",
+                "  unmark <n>                    - Mark task number n as not done",
+                "  delete <n>                    - Delete task number n",
+                "  mark/unmark/delete #<id>      - Same, for the task with that id (ids never change)",
+                "  undo                          - Undo the latest add, delete, mark or unmark",
+                "  redo                          - Redo the latest undone change",
                 "",
                 "Search",
-                "  find <keyword>                - Find tasks containing the keyword",
+                "  find <keyword>                - Find tasks containing the keyword, 100 per page by default",
                 "  sort deadline                 - Sort by earliest deadline (no numbering)",
-                "  sort event                    - Sort by earliest event (no numbering)"
+                "  sort event                    - Sort by earliest event (no numbering)",
+                "  due before <when>             - Deadlines due before a date-time",
+                "  due between <when> <when>     - Deadlines due in a range, both ends included",
+                "  events overlapping <when> <when> - Events that overlap a range",
+                "  <query> --page <n> [--page-size <n>] - Another page of find, due or events results"
         );
     }
 
@@ -1,12 +1,18 @@
 package john;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
 import john.command.Parser;
+import john.data.JournalEntry;
+import john.data.Page;
+import john.data.PersistenceScheduler;
 import john.data.Storage;
 import john.data.TaskList;
+import john.data.UndoHistory;
 import john.exceptions.JohnException;
 import john.tasks.Task;
 import john.ui.Ui;
@@ -18,6 +24,10 @@ public class JohnChatBot {
     private final Storage storage;
     private final TaskList tasks;
     private final Ui ui;
+    private final PersistenceScheduler persistence;
+    private final UndoHistory history;
+    private TaskList.Checkpoint batchStart; // the list before the open batch, or null outside a batch
+    private int batchChanges;
 
     /**
      * Function to initialize the chatbot with storage and load existing tasks if available.
@@ -26,26 +36,50 @@ public class JohnChatBot {
      * @param filePath the path to the storage file as a string
      */
     public JohnChatBot(String filePath) {
-        this.ui = new Ui();
-        this.storage = new Storage(Path.of(filePath));
+        this(filePath, new Ui());
+    }
+
+    /**
+     * Function to initialize the chatbot with a given UI, e.g. one that reads commands from a file.
+     *
+     * @param filePath the path to the storage file as a string
+     * @param ui       the UI to read commands from and show results on
+     */
+    public JohnChatBot(String filePath, Ui ui) {
+        this.ui = ui;
+        this.storage = new Storage(Path.of(filePath)).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
         TaskList loaded;
+        UndoHistory loadedHistory;
         try {
             loaded = new TaskList(storage.load());
+            loadedHistory = UndoHistory.decode(storage.loadHistory(), UndoHistory.DEFAULT_CAPACITY);
         } catch (IOException e) {
             ui.showLine();
             ui.showError("Warning: Could not load saved tasks. Starting with an empty list.");
             ui.showLine();
             loaded = new TaskList();
+            loadedHistory = new UndoHistory(UndoHistory.DEFAULT_CAPACITY);
         }
         this.tasks = loaded;
+        this.history = loadedHistory;
+        this.persistence = new PersistenceScheduler(storage, PersistenceScheduler.Durability.ASYNC);
     }
 
     /**
      * Function to start the chatbot application.
+     * With "--batch <file>", the commands in the file are run as one batch and saved once at the end.
      *
      * @param args the string input
      */
     public static void main(String[] args) {
+        if (args.length == 2 && "--batch".equals(args[0])) {
+            try (InputStream in = Files.newInputStream(Path.of(args[1]))) {
+                new JohnChatBot("data/johnChatBot.txt", new Ui(in)).runBatch();
+            } catch (IOException e) {
+                System.err.println("Could not read batch file: " + e.getMessage());
+            }
+            return;
+        }
         new JohnChatBot("data/johnChatBot.txt").run();
     }
 
@@ -61,14 +95,54 @@ public class JohnChatBot {
             throw new JohnException("Invalid index! Please enter a number between 1 and " + size);
         }
     }
+
+    /**
+     * Function to find the position of the task a command refers to, by number or by "#id".
+     *
+     * @param p the parsed command
+     * @return the zero-based index of the task
+     * @throws JohnException if the number is out of range or no task has the id
+     */
+    private int resolveIndex(Parser.Parsed p) throws JohnException {
+        if (p.id == 0) {
+            ensureIndexInRange(p.index, tasks.size());
+            return p.index;
+        }
+        int idx = tasks.indexOfId(p.id);
+        if (idx < 0) {
+            throw new JohnException("Invalid id! No task has the id #" + p.id + ".");
+        }
+        return idx;
+    }
     /**
      * Function to run the main application.
      * Reads user commands in a loop, parses them, and delegates handling
      * to command-specific helpers while managing UI output and persistence.
      */
     public void run() {
+        run(false);
+    }
+
+    /**
+     * Function to run every command from the UI as a single batch.
+     * Each command still reports its result, but the tasks are saved only once, after the last command.
+     */
+    public void runBatch() {
+        run(true);
+    }
+
+    /**
+     * Function to run the command loop, optionally inside a batch.
+     * A batch that is still open when the input ends or "bye" is typed is committed.
+     *
+     * @param isBatch true to start a batch before the first command
+     */
+    private void run(boolean isBatch) {
         ui.showWelcome();
         boolean isExit = false;
+        if (isBatch) {
+            runGuarded(this::handleBegin);
+        }
 
         while (!isExit && ui.hasNextLine()) {
             String fullCommand = ui.readCommand();
@@ -83,6 +157,34 @@ public class JohnChatBot {
                 ui.showLine();
             }
         }
+        if (batchStart != null) {
+            runGuarded(this::handleCommit);
+        }
+        try {
+            closePersistence();
+        } catch (IOException ioe) {
+            ui.showError("Warning: Failed to save tasks to disk.");
+        }
+    }
+
+    /**
+     * Writes every pending change to disk and stops the background writer.
+     * If an earlier write failed, the whole list is saved once more, so that the changes it held are not lost.
+     *
+     * @throws IOException If the final write fails.
+     */
+    private void closePersistence() throws IOException {
+        try {
+            persistence.flush();
+        } catch (IOException e) {
+            // Reported by the snapshot below if it fails too
+        }
+        if (persistence.needsCompaction()) {
+            history.takeDeltas(); // the whole history below includes them
+            persistence.submitSnapshot(tasks.asList());
+            persistence.submitHistory(history.encode());
+        }
+        persistence.close();
     }
 
     /**
@@ -97,7 +199,7 @@ public class JohnChatBot {
         return switch (p.kind) {
         case EXIT -> handleExit();
         case LIST -> {
-            handleList();
+            handleList(p);
             yield false;
         }
         case ADD -> {
@@ -120,6 +222,26 @@ public class JohnChatBot {
             handleDelete(p);
             yield false;
         }
+        case BEGIN -> {
+            handleBegin();
+            yield false;
+        }
+        case COMMIT -> {
+            handleCommit();
+            yield false;
+        }
+        case ROLLBACK -> {
+            handleRollback();
+            yield false;
+        }
+        case UNDO -> {
+            handleUndo();
+            yield false;
+        }
+        case REDO -> {
+            handleRedo();
+            yield false;
+        }
         default -> false;
         };
     }
@@ -135,10 +257,17 @@ public class JohnChatBot {
     }
 
     /**
-     * Handles the LIST command by rendering the current tasks.
+     * Handles the LIST command by rendering one page of the current tasks.
+     *
+     * @param p Parsed command containing the page number and page size.
+     * @throws JohnException If the list has no such page.
      */
-    private void handleList() {
-        ui.showList(tasks);
+    private void handleList(Parser.Parsed p) throws JohnException {
+        Page page = new Page(p.page, p.pageSize, tasks.size());
+        if (!page.isInRange()) {
+            throw new JohnException("Invalid page! The list only has " + page.getCount() + " page(s).");
+        }
+        ui.showList(tasks, page);
     }
 
     /**
@@ -149,69 +278,225 @@ public class JohnChatBot {
      */
     private void handleAdd(Parser.Parsed p) throws IOException {
         tasks.add(p.task);
+        history.recordAdd(tasks.size() - 1, p.task);
         ui.showAdded(p.task, tasks.size());
-        saveTasks();
+        saveTasks(JournalEntry.add(p.task));
     }
 
     /**
      * Handles the MARK command by marking a task done and persisting the change.
      *
-     * @param p Parsed command containing the zero-based index to mark.
+     * @param p Parsed command containing the number or id of the task to mark.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If saving the updated tasks fails.
      */
     private void handleMark(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task t = tasks.mark(p.index);
+        int idx = resolveIndex(p);
+        boolean wasDone = tasks.get(idx).getIsDone();
+        Task t = tasks.mark(idx);
+        history.recordMark(idx, t, wasDone);
         ui.showMarked(t);
-        saveTasks();
+        saveTasks(JournalEntry.mark(idx));
     }
 
     /**
      * Handles the UNMARK command by marking a task not done and persisting the change.
      *
-     * @param p Parsed command containing the zero-based index to unmark.
+     * @param p Parsed command containing the number or id of the task to unmark.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If saving the updated tasks fails.
      */
     private void handleUnmark(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task t = tasks.unmark(p.index);
+        int idx = resolveIndex(p);
+        boolean wasDone = tasks.get(idx).getIsDone();
+        Task t = tasks.unmark(idx);
+        history.recordUnmark(idx, t, wasDone);
         ui.showUnmarked(t);
-        saveTasks();
+        saveTasks(JournalEntry.unmark(idx));
     }
 
     /**
      * Handles the FIND command by showing tasks that match the query.
      *
-     * @param p Parsed command containing the search query.
+     * @param p Parsed command containing the search query and the page to show.
+     * @throws JohnException If the matches have no such page.
      */
-    private void handleFind(Parser.Parsed p) {
+    private void handleFind(Parser.Parsed p) throws JohnException {
         List<Task> matches = tasks.find(p.query);
-        ui.showFound(matches);
+        Page page = new Page(p.page, p.pageSize, matches.size());
+        if (!page.isInRange()) {
+            throw new JohnException("Invalid page! The results only have " + page.getCount() + " page(s).");
+        }
+        ui.showFound(matches, page, "find " + p.query);
     }
 
     /**
      * Handles the DELETE command by removing a task and persisting the change.
      *
-     * @param p Parsed command containing the zero-based index to delete.
+     * @param p Parsed command containing the number or id of the task to delete.
      * @throws JohnException If the index is out of range.
      * @throws IOException   If saving the updated tasks fails.
      */
     private void handleDelete(Parser.Parsed p) throws IOException, JohnException {
-        ensureIndexInRange(p.index, tasks.size());
-        Task removed = tasks.remove(p.index);
+        int idx = resolveIndex(p);
+        Task removed = tasks.remove(idx);
+        history.recordDelete(idx, removed);
         ui.showDeleted(removed, tasks.size());
-        saveTasks();
+        saveTasks(JournalEntry.delete(idx));
     }
 
     /**
-     * Persists the current task list to storage.
+     * Handles the UNDO command by reversing the latest change that has not been undone yet.
      *
-     * @throws IOException If writing to storage fails.
+     * @throws JohnException If a batch is open, or there is nothing to undo.
+     * @throws IOException   If saving the reversal fails.
      */
-    private void saveTasks() throws IOException {
-        storage.save(tasks.asList());
+    private void handleUndo() throws IOException, JohnException {
+        ensureNoBatch("undo");
+        UndoHistory.Step step = history.undo(tasks);
+        if (step == null) {
+            throw new JohnException("There is nothing to undo.");
+        }
+        ui.showUndone(step.getKind().getAction(), step.getTask(), tasks.size());
+        saveTasks(step.getEntry());
+    }
+
+    /**
+     * Handles the REDO command by making the latest undone change again.
+     *
+     * @throws JohnException If a batch is open, or there is nothing to redo.
+     * @throws IOException   If saving the change fails.
+     */
+    private void handleRedo() throws IOException, JohnException {
+        ensureNoBatch("redo");
+        UndoHistory.Step step = history.redo(tasks);
+        if (step == null) {
+            throw new JohnException("There is nothing to redo.");
+        }
+        ui.showRedone(step.getKind().getAction(), step.getTask(), tasks.size());
+        saveTasks(step.getEntry());
+    }
+
+    /**
+     * Function to reject undo and redo inside a batch, whose changes are only kept in memory until COMMIT.
+     *
+     * @param command the rejected command
+     * @throws JohnException If a batch is open.
+     */
+    private void ensureNoBatch(String command) throws JohnException {
+        if (batchStart != null) {
+            throw new JohnException("Cannot " + command + " inside a batch. "
+                    + "Type \"rollback\" to undo the whole batch.");
+        }
+    }
+
+    /**
+     * Handles the BEGIN command by opening a batch: later changes are kept in memory until COMMIT.
+     * Writes still queued from before the batch are flushed first, so that a failure is not blamed on the batch.
+     *
+     * @throws JohnException If a batch is already open.
+     * @throws IOException   If an earlier write failed.
+     */
+    private void handleBegin() throws IOException, JohnException {
+        if (batchStart != null) {
+            throw new JohnException("A batch is already open. Type \"commit\" or \"rollback\" first.");
+        }
+        persistence.flush();
+        batchStart = tasks.checkpoint();
+        batchChanges = 0;
+        ui.showBatchStarted();
+    }
+
+    /**
+     * Handles the COMMIT command by saving the whole list once and closing the batch.
+     * If saving fails, the list is rolled back to how it was before the batch.
+     *
+     * @throws JohnException If no batch is open.
+     * @throws IOException   If saving fails.
+     */
+    private void handleCommit() throws IOException, JohnException {
+        if (batchStart == null) {
+            throw new JohnException("There is no batch to commit. Type \"begin\" to start one.");
+        }
+        try {
+            history.takeDeltas(); // the whole history below includes them
+            persistence.submitSnapshot(tasks.asList());
+            persistence.submitHistory(history.encode());
+            persistence.flush();
+        } catch (IOException e) {
+            tasks.restore(batchStart);
+            history.discardLatest(batchChanges);
+            batchStart = null;
+            ui.showBatchRolledBack();
+            throw e;
+        }
+        batchStart = null;
+        ui.showBatchCommitted(batchChanges);
+    }
+
+    /**
+     * Handles the ROLLBACK command by undoing every change of the open batch.
+     *
+     * @throws JohnException If no batch is open.
+     */
+    private void handleRollback() throws JohnException {
+        if (batchStart == null) {
+            throw new JohnException("There is no batch to roll back. Type \"begin\" to start one.");
+        }
+        tasks.restore(batchStart);
+        history.discardLatest(batchChanges);
+        batchStart = null;
+        ui.showBatchRolledBack();
+    }
+
+    /**
+     * Runs a batch command outside the command loop, reporting failures the way the loop does.
+     *
+     * @param command The batch command to run.
+     */
+    private void runGuarded(BatchCommand command) {
+        try {
+            command.run();
+        } catch (JohnException e) {
+            ui.showError(e.getMessage());
+        } catch (IOException ioe) {
+            ui.showError("Warning: Failed to save tasks to disk.");
+        } finally {
+            ui.showLine();
+        }
+    }
+
+    /**
+     * Interface for a batch command that may fail like any other command.
+     */
+    @FunctionalInterface
+    private interface BatchCommand {
+        void run() throws IOException, JohnException;
+    }
+
+    /**
+     * Queues a mutation for the background writer, which appends it to the storage journal,
+     * followed by the steps the undo history took for it, which are appended to the saved history.
+     * Once the journal grows too long, or after a failed write, a full snapshot and the whole history are
+     * queued instead.
+     * Inside a batch nothing is written; COMMIT saves the whole list and the history once.
+     *
+     * @param entry The mutation that was just applied to the task list.
+     * @throws IOException If an earlier background write failed.
+     */
+    private void saveTasks(JournalEntry entry) throws IOException {
+        if (batchStart != null) {
+            batchChanges++;
+            return;
+        }
+        List<String> deltas = history.takeDeltas();
+        if (persistence.needsCompaction()) {
+            persistence.submitSnapshot(tasks.asList());
+            persistence.submitHistory(history.encode());
+        } else {
+            persistence.submit(entry);
+            persistence.submitHistoryDeltas(deltas);
+        }
     }
 
 }
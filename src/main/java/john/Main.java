@@ -1,6 +1,7 @@
 package john;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
@@ -8,12 +9,14 @@ import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import john.ui.MainWindow;
+import john.ui.Transcript;
 
 /**
  * Entry point for JavaFX UI.
  */
 public class Main extends Application {
     private final John john = new John("data/johnChatBot.txt");
+    private MainWindow window;
 
     @Override
     public void start(Stage stage) {
@@ -23,10 +26,22 @@ public class Main extends Application {
             Scene scene = new Scene(ap);
             stage.setScene(scene);
             stage.setTitle("JohnChatBot");
-            fxmlLoader.<MainWindow>getController().setJohn(john);
+            window = fxmlLoader.getController();
+            window.setTranscript(new Transcript(Path.of("data/transcript.txt"), Transcript.DEFAULT_CAP));
+            window.setJohn(john);
             stage.show();
         } catch (IOException e) {
             throw new RuntimeException("Failed to load FXML file", e);
         }
     }
+
+    @Override
+    public void stop() throws IOException {
+        // Covers closing the window directly: queued commands finish first; after "bye" this is harmless
+        if (window != null) {
+            window.stop();
+        } else {
+            john.shutdown();
+        }
+    }
 }
@@ -0,0 +1,404 @@
+package john.command;
+
+import john.command.Parser.Parsed;
+import john.exceptions.JohnException;
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.ToDo;
+
+/**
+ * Class to parse commands in a single pass over the characters, without regex matching or splitting.
+ * It finds the command keyword, the /by, /from and /to markers and task numbers by their offsets, and
+ * only copies out the descriptions and date-times that end up in the result.
+ * It reproduces the regex-based parser exactly, including its greedy choice of the last marker,
+ * but only for commands whose whitespace is plain spaces; {@link #canTokenize(String)} checks that.
+ */
+final class CommandTokenizer {
+    private static final String BY = "/by";
+    private static final String FROM = "/from";
+    private static final String TO = "/to";
+
+    private CommandTokenizer() {
+    }
+
+    /**
+     * Function to check whether a command only uses plain spaces as whitespace and has no line breaks,
+     * which is the case where this tokenizer and the regex-based parser provably agree.
+     *
+     * @param input the raw user command
+     * @return true if {@link #parse(String)} may be used
+     */
+    static boolean canTokenize(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            boolean isOtherSpace = Character.isWhitespace(c) || Character.isSpaceChar(c) || c == '\u0085';
+            if (c < ' ' || (c >= '\u0080' && isOtherSpace)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to parse a command that passed {@link #canTokenize(String)}.
+     *
+     * @param s the raw user command
+     * @return a structured Parsed instance indicating the action to perform
+     * @throws JohnException if the command is invalid, with the same message as the regex-based parser
+     */
+    static Parsed parse(String s) throws JohnException {
+        int lo = skipSpaces(s, 0, s.length());
+        int hi = trimSpaces(s, lo, s.length());
+        int cmdEnd = lo;
+        while (cmdEnd < hi && s.charAt(cmdEnd) != ' ') {
+            cmdEnd++;
+        }
+        // Start of the arguments, or hi if there are none
+        int args = skipSpaces(s, cmdEnd, hi);
+
+        if (is(s, lo, cmdEnd, "bye")) {
+            return Parsed.exit();
+        } else if (is(s, lo, cmdEnd, "list")) {
+            return Parser.parseList(s.substring(args, hi));
+        } else if (is(s, lo, cmdEnd, "help")) {
+            return Parsed.help();
+        } else if (is(s, lo, cmdEnd, "stats")) {
+            return Parsed.stats();
+        } else if (is(s, lo, cmdEnd, "due")) {
+            return Parser.parseDue(s.substring(args, hi));
+        } else if (is(s, lo, cmdEnd, "events")) {
+            return Parser.parseEvents(s.substring(args, hi));
+        } else if (is(s, lo, cmdEnd, "begin")) {
+            return Parsed.begin();
+        } else if (is(s, lo, cmdEnd, "commit")) {
+            return Parsed.commit();
+        } else if (is(s, lo, cmdEnd, "rollback")) {
+            return Parsed.rollback();
+        } else if (is(s, lo, cmdEnd, "undo")) {
+            return Parsed.undo();
+        } else if (is(s, lo, cmdEnd, "redo")) {
+            return Parsed.redo();
+        } else if (is(s, lo, cmdEnd, "sort") || is(s, lo, cmdEnd, "/sort")) {
+            return parseSort(s, args, hi);
+        } else if (is(s, lo, cmdEnd, "find")) {
+            if (args == hi) {
+                throw new JohnException(Parser.FIND_USAGE);
+            }
+            return Parser.parseFindArgs(s.substring(args, hi));
+        } else if (is(s, lo, cmdEnd, "mark")) {
+            return isId(s, args, hi)
+                    ? Parser.byId("mark", parseId(s, args, hi))
+                    : Parsed.mark(parseIndex(s, args, hi));
+        } else if (is(s, lo, cmdEnd, "unmark")) {
+            return isId(s, args, hi)
+                    ? Parser.byId("unmark", parseId(s, args, hi))
+                    : Parsed.unmark(parseIndex(s, args, hi));
+        } else if (is(s, lo, cmdEnd, "delete")) {
+            return isId(s, args, hi)
+                    ? Parser.byId("delete", parseId(s, args, hi))
+                    : Parsed.delete(parseIndex(s, args, hi));
+        } else if (is(s, lo, cmdEnd, "todo")) {
+            if (args == hi) {
+                throw new JohnException(Parser.TODO_USAGE);
+            }
+            return Parsed.add(new ToDo(s.substring(args, hi)));
+        } else if (is(s, lo, cmdEnd, "deadline")) {
+            return parseDeadline(s, cmdEnd, args, hi);
+        } else if (is(s, lo, cmdEnd, "event")) {
+            return parseEvent(s, cmdEnd, args, hi);
+        }
+        return Parsed.unknown();
+    }
+
+    /**
+     * Function to parse the key of a sort command.
+     *
+     * @param s    the command
+     * @param args offset of the first argument character
+     * @param hi   offset just past the command
+     * @return Parsed object
+     * @throws JohnException if the key is not "deadline" or "event"
+     */
+    private static Parsed parseSort(String s, int args, int hi) throws JohnException {
+        if (isIgnoreCase(s, args, hi, "deadline")) {
+            return Parsed.sort("deadline");
+        } else if (isIgnoreCase(s, args, hi, "event")) {
+            return Parsed.sort("event");
+        }
+        throw new JohnException(Parser.SORT_USAGE);
+    }
+
+    /**
+     * Function to check whether the argument of a mark, unmark or delete command is a task id.
+     *
+     * @param s    the command
+     * @param args offset of the first argument character
+     * @param hi   offset just past the command
+     * @return true if the argument starts with '#'
+     */
+    private static boolean isId(String s, int args, int hi) {
+        return args < hi && s.charAt(args) == '#';
+    }
+
+    /**
+     * Function to parse the single task id of a mark, unmark or delete command.
+     *
+     * @param s    the command
+     * @param args offset of the '#' starting the argument
+     * @param hi   offset just past the command
+     * @return the id
+     * @throws JohnException if there is not exactly one argument, or it is not a positive whole number
+     */
+    private static long parseId(String s, int args, int hi) throws JohnException {
+        int space = s.indexOf(' ', args);
+        if (space >= 0 && space < hi) {
+            throw new JohnException(Parser.MODIFY_ARITY);
+        }
+        return Parser.parseId(s.substring(args, hi));
+    }
+
+    /**
+     * Function to parse the single task number of a mark, unmark or delete command.
+     *
+     * @param s    the command
+     * @param args offset of the first argument character
+     * @param hi   offset just past the command
+     * @return the zero-based index
+     * @throws JohnException if there is not exactly one argument, or it is not a positive whole number
+     */
+    private static int parseIndex(String s, int args, int hi) throws JohnException {
+        int space = s.indexOf(' ', args);
+        if (args == hi || (space >= 0 && space < hi)) {
+            throw new JohnException(Parser.MODIFY_ARITY);
+        }
+        int i = args;
+        boolean isNegative = s.charAt(i) == '-';
+        if (isNegative || s.charAt(i) == '+') {
+            i++;
+        }
+        if (i == hi) {
+            throw new JohnException(Parser.INDEX_NOT_NUMBER);
+        }
+        long value = 0;
+        for (; i < hi; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                // Integer.parseInt also accepts non-ASCII digits; leave those to it
+                return toIndex(parseIntOrThrow(s.substring(args, hi)));
+            }
+            value = value * 10 + (c - '0');
+            if (value > -(long) Integer.MIN_VALUE) {
+                throw new JohnException(Parser.INDEX_NOT_NUMBER);
+            }
+        }
+        value = isNegative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new JohnException(Parser.INDEX_NOT_NUMBER);
+        }
+        return toIndex((int) value);
+    }
+
+    /**
+     * Function to parse a task number that is not made of ASCII digits only.
+     *
+     * @param number the task number text
+     * @return the task number
+     * @throws JohnException if it is not a whole number
+     */
+    private static int parseIntOrThrow(String number) throws JohnException {
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new JohnException(Parser.INDEX_NOT_NUMBER);
+        }
+    }
+
+    /**
+     * Function to convert a one-based task number to a zero-based index.
+     *
+     * @param number the task number
+     * @return the zero-based index
+     * @throws JohnException if the index is negative
+     */
+    private static int toIndex(int number) throws JohnException {
+        int idx = number - 1;
+        if (idx < 0) {
+            throw new JohnException(Parser.INDEX_NOT_POSITIVE);
+        }
+        return idx;
+    }
+
+    /**
+     * Function to parse "deadline desc /by when".
+     * Like the greedy regex, the last /by that leaves a description in front of it is the marker.
+     *
+     * @param s      the command
+     * @param cmdEnd offset just past the keyword
+     * @param args   offset of the first argument character
+     * @param hi     offset just past the command
+     * @return Parsed object
+     * @throws JohnException if the format, description or date-time is invalid
+     */
+    private static Parsed parseDeadline(String s, int cmdEnd, int args, int hi) throws JohnException {
+        int by = lastMarker(s, BY, args, hi - 1, hi);
+        if (by < 0) {
+            if (isBlankGroupMarker(s, BY, cmdEnd, args, hi)) {
+                throw new JohnException(Parser.DEADLINE_MISSING);
+            }
+            throw new JohnException(Parser.DEADLINE_USAGE);
+        }
+        String desc = s.substring(args, trimSpaces(s, args, by));
+        String when = s.substring(skipSpaces(s, by + BY.length(), hi), hi);
+        return Parsed.add(new Deadline(desc, Parser.parseDateStrict(when)));
+    }
+
+    /**
+     * Function to parse "event desc /from start /to end".
+     * Like the greedy regex, the last /from that is followed by a valid /to wins, then the last such /to.
+     *
+     * @param s      the command
+     * @param cmdEnd offset just past the keyword
+     * @param args   offset of the first argument character
+     * @param hi     offset just past the command
+     * @return Parsed object
+     * @throws JohnException if the format, description or date-times are invalid
+     */
+    private static Parsed parseEvent(String s, int cmdEnd, int args, int hi) throws JohnException {
+        int to = -1;
+        int from = lastMarker(s, FROM, args, hi - 1, hi);
+        while (from >= 0 && (to = toMarkerAfter(s, from, hi)) < 0) {
+            from = lastMarker(s, FROM, args, from - 1, hi);
+        }
+        boolean isDescBlank = false;
+        if (to < 0 && isBlankGroupMarker(s, FROM, cmdEnd, args, hi)) {
+            from = args;
+            to = toMarkerAfter(s, from, hi);
+            isDescBlank = true;
+        }
+        if (to < 0) {
+            throw new JohnException(Parser.EVENT_USAGE);
+        }
+
+        int startLo = skipSpaces(s, from + FROM.length(), hi);
+        if (isDescBlank || startLo == to) {
+            throw new JohnException(Parser.EVENT_MISSING);
+        }
+        String desc = s.substring(args, trimSpaces(s, args, from));
+        String start = s.substring(startLo, trimSpaces(s, startLo, to));
+        String end = s.substring(skipSpaces(s, to + TO.length(), hi), hi);
+        return Parsed.add(new Event(desc, Parser.parseDateStrict(start), Parser.parseDateStrict(end)));
+    }
+
+    /**
+     * Function to find the /to marker that the greedy regex would pair with a /from marker.
+     *
+     * @param s    the command
+     * @param from offset of the /from marker
+     * @param hi   offset just past the command
+     * @return offset of the /to marker, or -1 if there is none
+     */
+    private static int toMarkerAfter(String s, int from, int hi) {
+        int fromEnd = from + FROM.length();
+        int startLo = skipSpaces(s, fromEnd, hi);
+        int to = lastMarker(s, TO, startLo, hi - 1, hi);
+        if (to < 0 && isBlankGroupMarker(s, TO, fromEnd, startLo, hi)) {
+            return startLo;
+        }
+        return to;
+    }
+
+    /**
+     * Function to find the last " marker " that has at least one character between {@code lo} and itself.
+     *
+     * @param s      the command
+     * @param marker the marker, e.g. "/by"
+     * @param lo     offset of the first character of the group in front of the marker
+     * @param kMax   offset of the last position to try
+     * @param hi     offset just past the command
+     * @return offset of the marker, or -1 if there is none
+     */
+    private static int lastMarker(String s, String marker, int lo, int kMax, int hi) {
+        for (int k = kMax; k > lo; k--) {
+            if (isMarkerAt(s, marker, k, hi) && s.charAt(k - 1) == ' ') {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Function to check for the regex corner case where a marker directly follows its keyword and
+     * at least three spaces: the regex then matches with a group of spaces, which trims to empty.
+     *
+     * @param s      the command
+     * @param marker the marker, e.g. "/by"
+     * @param runLo  offset where the spaces after the previous token start
+     * @param runHi  offset just past those spaces
+     * @param hi     offset just past the command
+     * @return true if the regex would match with a blank group in front of the marker
+     */
+    private static boolean isBlankGroupMarker(String s, String marker, int runLo, int runHi, int hi) {
+        return runHi - runLo >= 3 && isMarkerAt(s, marker, runHi, hi);
+    }
+
+    /**
+     * Function to check whether a marker, compared ignoring ASCII case, followed by a space starts at an offset.
+     * The command is trimmed, so a space after the marker is always followed by some text.
+     */
+    private static boolean isMarkerAt(String s, String marker, int k, int hi) {
+        int end = k + marker.length();
+        return end < hi && s.charAt(end) == ' ' && regionEqualsIgnoreAsciiCase(s, k, marker);
+    }
+
+    /**
+     * Function to check whether the whole region between two offsets is a word.
+     */
+    private static boolean is(String s, int lo, int hi, String word) {
+        return hi - lo == word.length() && s.startsWith(word, lo);
+    }
+
+    /**
+     * Function to check whether the whole region between two offsets is a word, ignoring ASCII case.
+     */
+    private static boolean isIgnoreCase(String s, int lo, int hi, String word) {
+        return hi - lo == word.length() && regionEqualsIgnoreAsciiCase(s, lo, word);
+    }
+
+    /**
+     * Function to compare a region to a lower-case word the way a CASE_INSENSITIVE pattern does,
+     * which folds ASCII letters only.
+     */
+    private static boolean regionEqualsIgnoreAsciiCase(String s, int lo, String word) {
+        if (lo < 0 || lo + word.length() > s.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = s.charAt(lo + i);
+            char w = word.charAt(i);
+            if (c != w && !(w >= 'a' && w <= 'z' && c == w - 'a' + 'A')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to skip spaces forwards from an offset.
+     */
+    private static int skipSpaces(String s, int lo, int hi) {
+        while (lo < hi && s.charAt(lo) == ' ') {
+            lo++;
+        }
+        return lo;
+    }
+
+    /**
+     * Function to skip spaces backwards from an end offset.
+     */
+    private static int trimSpaces(String s, int lo, int hi) {
+        while (hi > lo && s.charAt(hi - 1) == ' ') {
+            hi--;
+        }
+        return hi;
+    }
+}
@@ -3,10 +3,13 @@ package john.command;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import john.data.Page;
 import john.exceptions.JohnException;
 import john.tasks.Deadline;
 import john.tasks.Event;
@@ -28,6 +31,9 @@ public final class Parser {
     // Matches "find <keyword>"
     private static final Pattern FIND_PATTERN =
             Pattern.compile("^find\\s+(.+)$", Pattern.CASE_INSENSITIVE);
+    // Matches a query ending in "--page <n>" or "--page-size <n>"
+    private static final Pattern PAGE_OPTION_PATTERN =
+            Pattern.compile("^(.*\\S)\\s+(--page|--page-size)\\s+(\\S+)$");
     // Matches "sort <task_type>" or "/sort <task_type>"
     private static final Pattern SORT_PATTERN =
             Pattern.compile("^/?sort\\s+(deadline|event)$", Pattern.CASE_INSENSITIVE);
@@ -35,11 +41,41 @@ public final class Parser {
     private static final Pattern TODO_PATTERN =
             Pattern.compile("^todo\\s+(.+)$", Pattern.CASE_INSENSITIVE);
 
+    // Error messages, shared with CommandTokenizer so both paths report identical errors
+    static final String SORT_USAGE = "Invalid format. Usage: sort deadline | sort event | /sort deadline | /sort event";
+    static final String PAGE_OPTIONS = " [--page <n>] [--page-size <1-" + Page.MAX_SIZE + ">]";
+    static final String FIND_USAGE = "Invalid format for find. Usage: find <keyword>" + PAGE_OPTIONS;
+    static final String FIND_EMPTY = "The keyword for find cannot be empty.";
+    static final String MODIFY_ARITY = "Invalid input! Please provide a single task number.";
+    static final String INDEX_NOT_NUMBER = "Invalid index! Task number must be a whole number.";
+    static final String INDEX_NOT_POSITIVE = "Invalid index! Use a positive number.";
+    static final String LIST_USAGE =
+            "Invalid format for list. Usage: list [page] [--page-size <1-" + Page.MAX_SIZE + ">]";
+    static final String PAGE_INVALID = "Invalid page! Use a positive whole number, e.g. \"list 2\".";
+    static final String ID_INVALID = "Invalid id! Use # followed by the task's id, e.g. \"delete #12\".";
+    static final String TODO_USAGE = "Invalid format for todo. Usage: todo <task_name>";
+    static final String TODO_EMPTY = "The description of a todo cannot be empty.";
+    static final String DEADLINE_USAGE = "Invalid format for deadline. Usage: deadline <desc> /by <DD/MM/YYYY HHMM>";
+    static final String DEADLINE_MISSING = "A deadline requires <desc> and /by <date time>. "
+            + "Example: deadline return book /by 28/8/2025 1800";
+    static final String EVENT_USAGE =
+            "Invalid format for event. Usage: event <task_name> /from <start> /to <end> (DD/MM/YYYY HHMM)";
+    static final String EVENT_MISSING = "An event requires a description, /from time, and /to time. "
+            + "Example: event meeting /from 28/8/2025 1800 /to 28/8/2025 2000";
+    static final String DUE_USAGE = "Invalid format for due. Usage: due before <DD/MM/YYYY HHMM> | "
+            + "due between <DD/MM/YYYY HHMM> <DD/MM/YYYY HHMM>" + PAGE_OPTIONS;
+    static final String EVENTS_USAGE = "Invalid format for events. Usage: events overlapping "
+            + "<DD/MM/YYYY HHMM> <DD/MM/YYYY HHMM>" + PAGE_OPTIONS;
+    static final String RANGE_ORDER = "Invalid range! The first date-time must not be after the second.";
+    static final String DATE_INVALID = "Invalid date/time. Use only DD/MM/YYYY HHMM, e.g. 28/8/2025 1800.";
+
     private Parser() {
     }
 
     /**
      * Function to parse a raw user command string into a Parsed object representing the action.
+     * Commands separated by plain spaces are scanned in a single pass by {@link CommandTokenizer};
+     * anything else goes through the regex-based parser, which gives the same results.
      *
      * @param input the raw user command
      * @return a structured Parsed instance indicating the action to perform
@@ -47,14 +83,35 @@ public final class Parser {
      */
     public static Parsed parse(String input) throws JohnException {
         assert input != null : "Input cannot be null";
+        return CommandTokenizer.canTokenize(input)
+                ? CommandTokenizer.parse(input)
+                : parseWithRegex(input);
+    }
+
+    /**
+     * Function to parse a raw user command with the original split-and-match rules.
+     *
+     * @param input the raw user command
+     * @return a structured Parsed instance indicating the action to perform
+     * @throws JohnException if the command is invalid or cannot be parsed
+     */
+    static Parsed parseWithRegex(String input) throws JohnException {
         String s = input.trim();
         String[] split = s.split("\\s+", 2); // command + args
         String cmd = split[0];
 
         return switch (cmd) {
         case "bye" -> Parsed.exit();
-        case "list" -> Parsed.list();
+        case "list" -> parseList(split.length > 1 ? split[1] : "");
         case "help" -> Parsed.help();
+        case "stats" -> Parsed.stats();
+        case "due" -> parseDue(split.length > 1 ? split[1] : "");
+        case "events" -> parseEvents(split.length > 1 ? split[1] : "");
+        case "begin" -> Parsed.begin();
+        case "commit" -> Parsed.commit();
+        case "rollback" -> Parsed.rollback();
+        case "undo" -> Parsed.undo();
+        case "redo" -> Parsed.redo();
         case "sort", "/sort" -> parseSort(s);
         case "find" -> parseFind(s);
         case "mark", "unmark", "delete" -> parseModify(s, cmd);
@@ -75,7 +132,7 @@ public final class Parser {
     private static Parsed parseSort(String s) throws JohnException {
         Matcher m = SORT_PATTERN.matcher(s.strip());
         if (!m.matches()) {
-            throw new JohnException("Invalid format. Usage: sort deadline | sort event | /sort deadline | /sort event");
+            throw new JohnException(SORT_USAGE);
         }
         String key = m.group(1).toLowerCase(Locale.ROOT); // "deadline" or "event"
         return Parsed.sort(key);
@@ -91,13 +148,34 @@ public final class Parser {
     private static Parsed parseFind(String s) throws JohnException {
         Matcher m = FIND_PATTERN.matcher(s);
         if (!m.matches()) {
-            throw new JohnException("Invalid format for find. Usage: find <keyword>");
+            throw new JohnException(FIND_USAGE);
+        }
+        return parseFindArgs(m.group(1));
+    }
+
+    /**
+     * Function to parse the keyword of a "find" command and the page options that may follow it.
+     * Both parsers call this with the text after "find", so they agree by construction.
+     *
+     * @param args e.g. "book" or "book --page 2 --page-size 50"
+     * @return Parsed object for FIND
+     * @throws JohnException if the keyword is empty or a page option is invalid
+     */
+    static Parsed parseFindArgs(String args) throws JohnException {
+        String keyword = args.trim();
+        List<String> options = new ArrayList<>();
+        Matcher m = PAGE_OPTION_PATTERN.matcher(keyword);
+        // At most two options are peeled off; anything before them belongs to the keyword
+        while (options.size() < 4 && m.matches()) {
+            options.add(0, m.group(3));
+            options.add(0, m.group(2));
+            keyword = m.group(1);
+            m = PAGE_OPTION_PATTERN.matcher(keyword);
         }
-        String keyword = m.group(1).trim();
         if (keyword.isEmpty()) {
-            throw new JohnException("The keyword for find cannot be empty.");
+            throw new JohnException(FIND_EMPTY);
         }
-        return Parsed.find(keyword);
+        return parsePageOptions(Parsed.find(keyword), options.toArray(new String[0]), 0, FIND_USAGE);
     }
 
     /**
@@ -111,17 +189,20 @@ public final class Parser {
     private static Parsed parseModify(String s, String cmd) throws JohnException {
         String[] parts = s.split("\\s+");
         if (parts.length != 2) {
-            throw new JohnException("Invalid input! Please provide a single task number.");
+            throw new JohnException(MODIFY_ARITY);
+        }
+        if (parts[1].startsWith("#")) {
+            return byId(cmd, parseId(parts[1]));
         }
         int idx1;
         try {
             idx1 = Integer.parseInt(parts[1]);
         } catch (NumberFormatException e) {
-            throw new JohnException("Invalid index! Task number must be a whole number.");
+            throw new JohnException(INDEX_NOT_NUMBER);
         }
         int idx = idx1 - 1;
         if (idx < 0) {
-            throw new JohnException("Invalid index! Use a positive number.");
+            throw new JohnException(INDEX_NOT_POSITIVE);
         }
         return switch (cmd) {
         case "mark" -> Parsed.mark(idx);
@@ -130,6 +211,41 @@ public final class Parser {
         };
     }
 
+    /**
+     * Function to parse a task id argument such as "#12".
+     *
+     * @param arg the argument, starting with '#'
+     * @return the id
+     * @throws JohnException if the rest of the argument is not a positive whole number
+     */
+    static long parseId(String arg) throws JohnException {
+        long id;
+        try {
+            id = Long.parseLong(arg.substring(1));
+        } catch (NumberFormatException e) {
+            throw new JohnException(ID_INVALID);
+        }
+        if (id <= 0) {
+            throw new JohnException(ID_INVALID);
+        }
+        return id;
+    }
+
+    /**
+     * Function to create the parsed object for "mark", "unmark" or "delete" with a task id.
+     *
+     * @param cmd the command keyword
+     * @param id  the task id
+     * @return Parsed object
+     */
+    static Parsed byId(String cmd, long id) {
+        return switch (cmd) {
+        case "mark" -> Parsed.markById(id);
+        case "unmark" -> Parsed.unmarkById(id);
+        default -> Parsed.deleteById(id);
+        };
+    }
+
     /**
      * Function to handle "todo" keyword
      *
@@ -139,11 +255,11 @@ public final class Parser {
     private static Parsed parseTodo(String s) throws JohnException {
         Matcher m = TODO_PATTERN.matcher(s);
         if (!m.matches()) {
-            throw new JohnException("Invalid format for todo. Usage: todo <task_name>");
+            throw new JohnException(TODO_USAGE);
         }
         String desc = m.group(1).trim();
         if (desc.isEmpty()) {
-            throw new JohnException("The description of a todo cannot be empty.");
+            throw new JohnException(TODO_EMPTY);
         }
         return Parsed.add(new ToDo(desc));
     }
@@ -158,15 +274,12 @@ public final class Parser {
     private static Parsed parseDeadline(String s) throws JohnException {
         Matcher m = DEADLINE_PATTERN.matcher(s);
         if (!m.matches()) {
-            throw new JohnException(
-                    "Invalid format for deadline. Usage: deadline <desc> /by <DD/MM/YYYY HHMM>");
+            throw new JohnException(DEADLINE_USAGE);
         }
         String desc = m.group(1).trim();
         String byStr = m.group(2).trim();
         if (desc.isEmpty() || byStr.isEmpty()) {
-            throw new JohnException(
-                    "A deadline requires <desc> and /by <date time>. "
-                            + "Example: deadline return book /by 28/8/2025 1800");
+            throw new JohnException(DEADLINE_MISSING);
         }
         LocalDateTime by = parseDateStrict(byStr);
         return Parsed.add(new Deadline(desc, by));
@@ -182,22 +295,174 @@ public final class Parser {
     private static Parsed parseEvent(String s) throws JohnException {
         Matcher m = EVENT_PATTERN.matcher(s);
         if (!m.matches()) {
-            throw new JohnException(
-                    "Invalid format for event. Usage: event <task_name> /from <start> /to <end> (DD/MM/YYYY HHMM)");
+            throw new JohnException(EVENT_USAGE);
         }
         String desc = m.group(1).trim();
         String fromStr = m.group(2).trim();
         String toStr = m.group(3).trim();
         if (desc.isEmpty() || fromStr.isEmpty() || toStr.isEmpty()) {
-            throw new JohnException(
-                    "An event requires a description, /from time, and /to time. "
-                            + "Example: event meeting /from 28/8/2025 1800 /to 28/8/2025 2000");
+            throw new JohnException(EVENT_MISSING);
         }
         LocalDateTime from = parseDateStrict(fromStr);
         LocalDateTime to = parseDateStrict(toStr);
         return Parsed.add(new Event(desc, from, to));
     }
 
+    /**
+     * Function to parse the optional page number and page size of a list command.
+     * Both parsers call this with the text after "list", so they agree by construction.
+     *
+     * @param args the arguments, e.g. "3", "--page-size 50" or "3 --page-size 50"; may be empty
+     * @return Parsed object for LIST
+     * @throws JohnException if an argument is not a valid page number or page size
+     */
+    static Parsed parseList(String args) throws JohnException {
+        String s = args.strip();
+        if (s.isEmpty()) {
+            return Parsed.list();
+        }
+        int page = 1;
+        int pageSize = Page.DEFAULT_SIZE;
+        boolean hasPage = false;
+        boolean hasPageSize = false;
+        String[] words = s.split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            if ("--page-size".equals(words[i]) && !hasPageSize && i + 1 < words.length) {
+                pageSize = parsePageSize(words[++i], LIST_USAGE);
+                hasPageSize = true;
+            } else if (!hasPage && !words[i].startsWith("--")) {
+                page = parsePositive(words[i], PAGE_INVALID);
+                hasPage = true;
+            } else {
+                throw new JohnException(LIST_USAGE);
+            }
+        }
+        return Parsed.list(page, pageSize);
+    }
+
+    /**
+     * Function to parse the arguments of a "due" command.
+     * Both parsers call this with the text after "due", so they agree by construction.
+     *
+     * @param args e.g. "before 1/9/2025 0000" or "between 1/8/2025 0000 31/8/2025 2359"
+     * @return Parsed object for DUE
+     * @throws JohnException if the arguments are not one of those forms, or the range is reversed
+     */
+    static Parsed parseDue(String args) throws JohnException {
+        String[] words = args.strip().split("\\s+");
+        if (words.length >= 3 && "before".equals(words[0])) {
+            Parsed due = Parsed.dueBefore(parseDateStrict(words[1] + " " + words[2]));
+            return parsePageOptions(due, words, 3, DUE_USAGE);
+        } else if (words.length >= 5 && "between".equals(words[0])) {
+            LocalDateTime from = parseDateStrict(words[1] + " " + words[2]);
+            LocalDateTime to = parseDateStrict(words[3] + " " + words[4]);
+            return parsePageOptions(Parsed.dueBetween(checkRange(from, to), to), words, 5, DUE_USAGE);
+        }
+        throw new JohnException(DUE_USAGE);
+    }
+
+    /**
+     * Function to parse the arguments of an "events" command.
+     * Both parsers call this with the text after "events", so they agree by construction.
+     *
+     * @param args e.g. "overlapping 1/8/2025 0000 31/8/2025 2359"
+     * @return Parsed object for OVERLAPPING
+     * @throws JohnException if the arguments are not in that form, or the range is reversed
+     */
+    static Parsed parseEvents(String args) throws JohnException {
+        String[] words = args.strip().split("\\s+");
+        if (words.length >= 5 && "overlapping".equals(words[0])) {
+            LocalDateTime from = parseDateStrict(words[1] + " " + words[2]);
+            LocalDateTime to = parseDateStrict(words[3] + " " + words[4]);
+            return parsePageOptions(Parsed.overlapping(checkRange(from, to), to), words, 5, EVENTS_USAGE);
+        }
+        throw new JohnException(EVENTS_USAGE);
+    }
+
+    /**
+     * Function to parse the "--page <n>" and "--page-size <n>" options that may follow a query.
+     *
+     * @param query the query, on its first page
+     * @param words the words of the command's arguments
+     * @param from  the position of the first option word
+     * @param usage the message to report if the options are not in that form
+     * @return the query on the page the options ask for
+     * @throws JohnException if an option is unknown, repeated, missing its value or out of range
+     */
+    private static Parsed parsePageOptions(Parsed query, String[] words, int from, String usage)
+            throws JohnException {
+        int page = 1;
+        int pageSize = Page.DEFAULT_SIZE;
+        boolean hasPage = false;
+        boolean hasPageSize = false;
+        for (int i = from; i < words.length; i += 2) {
+            if (i + 1 == words.length) {
+                throw new JohnException(usage);
+            } else if ("--page".equals(words[i]) && !hasPage) {
+                page = parsePositive(words[i + 1], PAGE_INVALID);
+                hasPage = true;
+            } else if ("--page-size".equals(words[i]) && !hasPageSize) {
+                pageSize = parsePageSize(words[i + 1], usage);
+                hasPageSize = true;
+            } else {
+                throw new JohnException(usage);
+            }
+        }
+        return query.onPage(page, pageSize);
+    }
+
+    /**
+     * Function to parse a page size, which must be from 1 to {@link Page#MAX_SIZE}.
+     *
+     * @param word  the page size
+     * @param error the message to report if it is out of range
+     * @return the page size
+     * @throws JohnException if the word is not a whole number in range
+     */
+    private static int parsePageSize(String word, String error) throws JohnException {
+        int pageSize = parsePositive(word, error);
+        if (pageSize > Page.MAX_SIZE) {
+            throw new JohnException(error);
+        }
+        return pageSize;
+    }
+
+    /**
+     * Function to reject a range that ends before it starts.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return the start of the range
+     * @throws JohnException if the start is after the end
+     */
+    private static LocalDateTime checkRange(LocalDateTime from, LocalDateTime to) throws JohnException {
+        if (from.isAfter(to)) {
+            throw new JohnException(RANGE_ORDER);
+        }
+        return from;
+    }
+
+    /**
+     * Function to parse a positive whole number the way task numbers are parsed.
+     *
+     * @param word  the number
+     * @param error the message to report if it is not a positive whole number
+     * @return the number
+     * @throws JohnException if the word is not a positive whole number
+     */
+    private static int parsePositive(String word, String error) throws JohnException {
+        int n;
+        try {
+            n = Integer.parseInt(word);
+        } catch (NumberFormatException e) {
+            throw new JohnException(error);
+        }
+        if (n < 1) {
+            throw new JohnException(error);
+        }
+        return n;
+    }
+
     /**
      * Function to strictly parse a date-time string using DD/MM/YYYY HHMM.
      *
@@ -205,11 +470,11 @@ public final class Parser {
      * @return a LocalDateTime parsed from the string
      * @throws JohnException if the input string is not in the expected format
      */
-    private static LocalDateTime parseDateStrict(String s) throws JohnException {
+    static LocalDateTime parseDateStrict(String s) throws JohnException {
         try {
             return LocalDateTime.parse(s, DMY_HM);
         } catch (DateTimeParseException e) {
-            throw new JohnException("Invalid date/time. Use only DD/MM/YYYY HHMM, e.g. 28/8/2025 1800.");
+            throw new JohnException(DATE_INVALID);
         }
     }
 
@@ -219,8 +484,13 @@ public final class Parser {
     public static final class Parsed {
         public final Kind kind;
         public final Task task; // for ADD
-        public final int index; // for mark/unmark/delete
+        public final int index; // for mark/unmark/delete by number, -1 when given by id
+        public final long id; // for mark/unmark/delete by "#id", 0 when given by number
         public final String query; // for find
+        public final int page; // for list, find, due and events overlapping, 1-based
+        public final int pageSize; // for list, find, due and events overlapping
+        public final LocalDateTime start; // for due between and events overlapping; null for due before
+        public final LocalDateTime end; // for due and events overlapping
 
         /**
          * Function to construct a parsed object (non-query actions).
@@ -233,7 +503,67 @@ public final class Parser {
             this.kind = k;
             this.task = t;
             this.index = i;
+            this.id = 0;
+            this.query = null;
+            this.page = 0;
+            this.pageSize = 0;
+            this.start = null;
+            this.end = null;
+        }
+
+        /**
+         * Function to construct a parsed object for a page of the list.
+         *
+         * @param page     the 1-based page number
+         * @param pageSize the number of tasks per page
+         */
+        private Parsed(int page, int pageSize) {
+            this.kind = Kind.LIST;
+            this.task = null;
+            this.index = -1;
+            this.id = 0;
             this.query = null;
+            this.page = page;
+            this.pageSize = pageSize;
+            this.start = null;
+            this.end = null;
+        }
+
+        /**
+         * Function to construct a copy of a query for one page of its results.
+         *
+         * @param query    the query to copy
+         * @param page     the 1-based page number
+         * @param pageSize the number of results per page
+         */
+        private Parsed(Parsed query, int page, int pageSize) {
+            this.kind = query.kind;
+            this.task = query.task;
+            this.index = query.index;
+            this.id = query.id;
+            this.query = query.query;
+            this.page = page;
+            this.pageSize = pageSize;
+            this.start = query.start;
+            this.end = query.end;
+        }
+
+        /**
+         * Function to construct a parsed object for an action on the task with an id.
+         *
+         * @param k  the kind of parsed action
+         * @param id the task id
+         */
+        private Parsed(Kind k, long id) {
+            this.kind = k;
+            this.task = null;
+            this.index = -1;
+            this.id = id;
+            this.query = null;
+            this.page = 0;
+            this.pageSize = 0;
+            this.start = null;
+            this.end = null;
         }
 
         /**
@@ -246,7 +576,31 @@ public final class Parser {
             this.kind = k;
             this.task = null;
             this.index = -1;
+            this.id = 0;
             this.query = q;
+            this.page = 0;
+            this.pageSize = 0;
+            this.start = null;
+            this.end = null;
+        }
+
+        /**
+         * Function to construct a parsed object for a time-range query.
+         *
+         * @param k     the kind of parsed action
+         * @param start the start of the range, or null if it is open
+         * @param end   the end of the range
+         */
+        private Parsed(Kind k, LocalDateTime start, LocalDateTime end) {
+            this.kind = k;
+            this.task = null;
+            this.index = -1;
+            this.id = 0;
+            this.query = null;
+            this.page = 0;
+            this.pageSize = 0;
+            this.start = start;
+            this.end = end;
         }
 
         /**
@@ -267,6 +621,15 @@ public final class Parser {
             return new Parsed(Kind.HELP, null);
         }
 
+        /**
+         * Function to create a parsed object representing showing the command metrics.
+         *
+         * @return Parsed
+         */
+        public static Parsed stats() {
+            return new Parsed(Kind.STATS, null);
+        }
+
         /**
          * Function to create a parsed object representing program exit.
          */
@@ -275,10 +638,56 @@ public final class Parser {
         }
 
         /**
-         * Function to create a parsed object representing list action.
+         * Function to create a parsed object representing list action for the first page.
          */
         public static Parsed list() {
-            return new Parsed(Kind.LIST, null, -1);
+            return new Parsed(1, Page.DEFAULT_SIZE);
+        }
+
+        /**
+         * Function to create a parsed object representing list action for a page.
+         *
+         * @param page     the 1-based page number
+         * @param pageSize the number of tasks per page
+         * @return a Parsed instance for LIST
+         */
+        public static Parsed list(int page, int pageSize) {
+            return new Parsed(page, pageSize);
+        }
+
+        /**
+         * Function to create a parsed object representing the start of a batch of commands.
+         */
+        public static Parsed begin() {
+            return new Parsed(Kind.BEGIN, null, -1);
+        }
+
+        /**
+         * Function to create a parsed object representing saving the open batch of commands.
+         */
+        public static Parsed commit() {
+            return new Parsed(Kind.COMMIT, null, -1);
+        }
+
+        /**
+         * Function to create a parsed object representing discarding the open batch of commands.
+         */
+        public static Parsed rollback() {
+            return new Parsed(Kind.ROLLBACK, null, -1);
+        }
+
+        /**
+         * Function to create a parsed object representing undoing the latest change.
+         */
+        public static Parsed undo() {
+            return new Parsed(Kind.UNDO, null, -1);
+        }
+
+        /**
+         * Function to create a parsed object representing redoing the latest undone change.
+         */
+        public static Parsed redo() {
+            return new Parsed(Kind.REDO, null, -1);
         }
 
         /**
@@ -309,6 +718,27 @@ public final class Parser {
             return new Parsed(Kind.DELETE, null, idx);
         }
 
+        /**
+         * Function to create a parsed object representing marking the task with an id.
+         */
+        public static Parsed markById(long id) {
+            return new Parsed(Kind.MARK, id);
+        }
+
+        /**
+         * Function to create a parsed object representing unmarking the task with an id.
+         */
+        public static Parsed unmarkById(long id) {
+            return new Parsed(Kind.UNMARK, id);
+        }
+
+        /**
+         * Function to create a parsed object representing deleting the task with an id.
+         */
+        public static Parsed deleteById(long id) {
+            return new Parsed(Kind.DELETE, id);
+        }
+
         /**
          * Function to create a parsed object representing a find action.
          *
@@ -316,7 +746,7 @@ public final class Parser {
          * @return a Parsed instance for FIND
          */
         public static Parsed find(String keyword) {
-            return new Parsed(Kind.FIND, keyword);
+            return new Parsed(new Parsed(Kind.FIND, keyword), 1, Page.DEFAULT_SIZE);
         }
 
         /**
@@ -329,9 +759,55 @@ public final class Parser {
             return new Parsed(Kind.SORT, key);
         }
 
+        /**
+         * Function to create a parsed object representing a search for deadlines due before a date-time.
+         *
+         * @param end the exclusive upper bound
+         * @return a Parsed instance for DUE
+         */
+        public static Parsed dueBefore(LocalDateTime end) {
+            return new Parsed(new Parsed(Kind.DUE, null, end), 1, Page.DEFAULT_SIZE);
+        }
+
+        /**
+         * Function to create a parsed object representing a search for deadlines due within a range.
+         *
+         * @param start the earliest due date-time, inclusive
+         * @param end   the latest due date-time, inclusive
+         * @return a Parsed instance for DUE
+         */
+        public static Parsed dueBetween(LocalDateTime start, LocalDateTime end) {
+            return new Parsed(new Parsed(Kind.DUE, start, end), 1, Page.DEFAULT_SIZE);
+        }
+
+        /**
+         * Function to create a parsed object representing a search for events overlapping a range.
+         *
+         * @param start the start of the range, inclusive
+         * @param end   the end of the range, inclusive
+         * @return a Parsed instance for OVERLAPPING
+         */
+        public static Parsed overlapping(LocalDateTime start, LocalDateTime end) {
+            return new Parsed(new Parsed(Kind.OVERLAPPING, start, end), 1, Page.DEFAULT_SIZE);
+        }
+
+        /**
+         * Function to return this query for one page of its results.
+         *
+         * @param page     the 1-based page number
+         * @param pageSize the number of results per page
+         * @return a Parsed instance like this one, for that page
+         */
+        public Parsed onPage(int page, int pageSize) {
+            return new Parsed(this, page, pageSize);
+        }
+
         /**
          * Enumeration for fixed items to look out for while parsing
          */
-        public enum Kind { EXIT, LIST, ADD, MARK, UNMARK, DELETE, FIND, HELP, SORT, UNKNOWN }
+        public enum Kind {
+            EXIT, LIST, ADD, MARK, UNMARK, DELETE, FIND, HELP, SORT, DUE, OVERLAPPING, BEGIN, COMMIT, ROLLBACK, STATS,
+            UNDO, REDO, UNKNOWN
+        }
     }
 }
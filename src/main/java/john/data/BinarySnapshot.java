@@ -0,0 +1,193 @@
+package john.data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to encode and decode the compact binary snapshot format.
+ * Layout: the magic bytes "JOHN", a version byte and a task count, followed by one record per task:
+ * a tag byte (type in the low bits, done flag in the high bit), the task id as a long (since version 2),
+ * a length-prefixed UTF-8 description, and one epoch-minute long per date-time (by, or from and to).
+ */
+final class BinarySnapshot {
+    static final int VERSION = 2;
+    private static final int FIRST_VERSION_WITH_IDS = 2;
+    private static final byte[] MAGIC = {'J', 'O', 'H', 'N'};
+    private static final int TODO = 0;
+    private static final int DEADLINE = 1;
+    private static final int EVENT = 2;
+    private static final int TYPE_MASK = 0x7F;
+    private static final int DONE_FLAG = 0x80;
+    // Bounds that keep minute * 60 from overflowing before LocalDateTime checks the range itself
+    private static final long MIN_EPOCH_MINUTE = toEpochMinute(LocalDateTime.MIN);
+    private static final long MAX_EPOCH_MINUTE = toEpochMinute(LocalDateTime.MAX);
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Function to check whether file contents start with the binary snapshot header.
+     *
+     * @param bytes raw file contents
+     * @return true if the contents are a binary snapshot
+     */
+    static boolean isBinary(byte[] bytes) {
+        if (bytes.length < MAGIC.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to encode tasks as a binary snapshot.
+     *
+     * @param tasks the tasks to encode
+     * @param out   the stream to write to; it is flushed but not closed
+     * @throws IOException if writing fails
+     */
+    static void write(List<Task> tasks, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(tasks.size());
+        for (Task t : tasks) {
+            int doneFlag = t.getIsDone() ? DONE_FLAG : 0;
+            byte[] desc = t.getDesc().getBytes(StandardCharsets.UTF_8);
+            if (t instanceof Deadline d) {
+                data.writeByte(DEADLINE | doneFlag);
+                data.writeLong(t.getId());
+                writeDesc(data, desc);
+                data.writeLong(toEpochMinute(d.getBy()));
+            } else if (t instanceof Event e) {
+                data.writeByte(EVENT | doneFlag);
+                data.writeLong(t.getId());
+                writeDesc(data, desc);
+                data.writeLong(toEpochMinute(e.getFrom()));
+                data.writeLong(toEpochMinute(e.getTo()));
+            } else {
+                data.writeByte(TODO | doneFlag);
+                data.writeLong(t.getId());
+                writeDesc(data, desc);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Function to decode a binary snapshot.
+     * Like the text format, decoding is tolerant: records with an empty description are skipped,
+     * and a truncated file or an unknown record type yields the tasks decoded before the damage.
+     *
+     * @param bytes raw file contents, starting with the header
+     * @return the decoded tasks; those from a version 1 snapshot have no ids yet
+     * @throws IOException if the snapshot was written by a newer, unsupported version
+     */
+    static List<Task> read(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.position(MAGIC.length);
+        int version = in.get();
+        if (version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        try {
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                int tag = in.get() & 0xFF;
+                long id = version >= FIRST_VERSION_WITH_IDS ? in.getLong() : 0;
+                String desc = readDesc(in);
+                Task t = switch (tag & TYPE_MASK) {
+                case TODO -> new ToDo(desc);
+                case DEADLINE -> new Deadline(desc, fromEpochMinute(in.getLong()));
+                case EVENT -> new Event(desc, fromEpochMinute(in.getLong()), fromEpochMinute(in.getLong()));
+                default -> throw new BufferUnderflowException(); // unknown tag, record length unknown
+                };
+                if (desc.isEmpty()) {
+                    continue;
+                }
+                if ((tag & DONE_FLAG) != 0) {
+                    t.mark();
+                }
+                if (id > 0) {
+                    t.setId(id);
+                }
+                tasks.add(t);
+            }
+        } catch (BufferUnderflowException | DateTimeException e) {
+            // Damaged snapshot, or a date-time out of range: keep what was decoded
+        }
+        return tasks;
+    }
+
+    /**
+     * Function to write a length-prefixed description.
+     *
+     * @param data the stream to write to
+     * @param desc UTF-8 bytes of the description
+     * @throws IOException if writing fails
+     */
+    private static void writeDesc(DataOutputStream data, byte[] desc) throws IOException {
+        data.writeInt(desc.length);
+        data.write(desc);
+    }
+
+    /**
+     * Function to read a length-prefixed description.
+     *
+     * @param in buffer positioned at the length prefix
+     * @return the description
+     */
+    private static String readDesc(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String desc = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return desc;
+    }
+
+    /**
+     * Function to convert a date-time to minutes since the epoch, ignoring seconds like the text format does.
+     *
+     * @param time the date-time
+     * @return minutes since 1970-01-01T00:00
+     */
+    static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Function to convert minutes since the epoch back to a date-time.
+     *
+     * @param minute minutes since 1970-01-01T00:00
+     * @return the date-time
+     * @throws DateTimeException if the minute is outside the range of {@link LocalDateTime}
+     */
+    static LocalDateTime fromEpochMinute(long minute) {
+        if (minute < MIN_EPOCH_MINUTE || minute > MAX_EPOCH_MINUTE) {
+            throw new DateTimeException("Epoch minute out of range: " + minute);
+        }
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,643 @@
+package john.data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to hold a very large list of tasks in parallel primitive arrays instead of one object per task.
+ * Each row costs 33 bytes of columns (kind and done bit, id, two epoch-minute times, text address and
+ * length) plus its description as UTF-8 in a shared arena of fixed-size chunks, so 10 million tasks fit
+ * in well under a gigabyte and growing the arena never copies the text already stored.
+ * It is a standalone {@code List<Task>}, not a backend of {@link TaskList}, which refuses it: no front-end uses it
+ * yet. {@link Storage#withColumnarLoad(boolean)} loads a snapshot straight into one, and its own
+ * {@link #dueBefore}, {@link #dueBetween}, {@link #eventsOverlapping} and sorted views scan the time columns.
+ * Tasks returned by {@link #get(int)} are fresh views decoded from the columns: changing one does not
+ * change the list, so use {@link #mark(int)}, {@link #unmark(int)} or {@link #set(int, Task)} instead.
+ * Times are kept to the minute, as in the storage formats.
+ */
+public final class ColumnarTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final byte TODO = 0;
+    private static final byte DEADLINE = 1;
+    private static final byte EVENT = 2;
+    private static final byte KIND_MASK = 0x3;
+    private static final byte DONE = 0x4;
+
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int OFFSET_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_BITS);
+    private static final int INITIAL_CAPACITY = 16;
+    // Lowercasing ASCII bytes by hand is only the same as String.toLowerCase() outside locales like Turkish
+    private static final boolean IS_ASCII_LOWER_CASE_SAFE = "I".toLowerCase().equals("i");
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] textAddresses = new int[INITIAL_CAPACITY];
+    private int[] textLengths = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int chunkUsed = CHUNK_SIZE;
+    private long liveTextBytes;
+    private long wastedTextBytes;
+
+    /**
+     * Function to create an empty list.
+     */
+    public ColumnarTaskList() {
+    }
+
+    /**
+     * Function to create a list holding copies of the given tasks, one task at a time,
+     * so the source may be a lazily decoded list that never holds every task at once.
+     *
+     * @param tasks the tasks to copy, in order
+     */
+    public ColumnarTaskList(Iterable<? extends Task> tasks) {
+        for (Task t : tasks) {
+            add(t);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Function to decode the task at a position into a new, detached task.
+     *
+     * @param index the zero-based position
+     * @return a task equal to the stored one
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        String desc = text(index);
+        Task t = switch (kinds[index] & KIND_MASK) {
+        case DEADLINE -> new Deadline(desc, toTime(starts[index]));
+        case EVENT -> new Event(desc, toTime(starts[index]), toTime(ends[index]));
+        default -> new ToDo(desc);
+        };
+        if ((kinds[index] & DONE) != 0) {
+            t.mark();
+        }
+        if (ids[index] != 0) {
+            t.setId(ids[index]);
+        }
+        return t;
+    }
+
+    /**
+     * Function to store a copy of a task at a position, shifting later tasks along.
+     *
+     * @param index the zero-based position, from 0 to {@link #size()}
+     * @param t     a {@link ToDo}, {@link Deadline} or {@link Event}
+     * @throws IllegalArgumentException if the task is some other kind
+     */
+    @Override
+    public void add(int index, Task t) {
+        checkIndex(index, size + 1);
+        if (size == kinds.length) {
+            grow();
+        }
+        if (index < size) {
+            shift(index, index + 1, size - index);
+        }
+        size++;
+        write(index, t);
+        modCount++;
+    }
+
+    /**
+     * Function to replace the task at a position with a copy of another.
+     *
+     * @param index the zero-based position
+     * @param t     a {@link ToDo}, {@link Deadline} or {@link Event}
+     * @return a view of the task that was replaced
+     * @throws IllegalArgumentException if the task is some other kind
+     */
+    @Override
+    public Task set(int index, Task t) {
+        Task old = get(index);
+        release(index);
+        write(index, t);
+        return old;
+    }
+
+    /**
+     * Function to remove the task at a position, shifting later tasks back.
+     *
+     * @param index the zero-based position
+     * @return a view of the removed task
+     */
+    @Override
+    public Task remove(int index) {
+        Task old = get(index);
+        release(index);
+        shift(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        compactIfWasteful();
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        chunks.clear();
+        chunkUsed = CHUNK_SIZE;
+        liveTextBytes = 0;
+        wastedTextBytes = 0;
+        modCount++;
+    }
+
+    /**
+     * Function to mark the task at a position as done.
+     *
+     * @param index the zero-based position
+     * @return a view of the task after marking
+     */
+    public Task mark(int index) {
+        checkIndex(index, size);
+        kinds[index] |= DONE;
+        return get(index);
+    }
+
+    /**
+     * Function to mark the task at a position as not done.
+     *
+     * @param index the zero-based position
+     * @return a view of the task after unmarking
+     */
+    public Task unmark(int index) {
+        checkIndex(index, size);
+        kinds[index] &= (byte) ~DONE;
+        return get(index);
+    }
+
+    /**
+     * Function to find tasks whose description contains a keyword, ignoring case, like {@link TaskList#find}.
+     * ASCII descriptions are matched on their stored bytes, and the result only holds the matching positions,
+     * so even a keyword that matches every task costs four bytes per match until a match is read.
+     *
+     * @param keyword the text to look for
+     * @return a read-only list of views of the matching tasks, in list order, that throws
+     *         {@link ConcurrentModificationException} if read after tasks are added or removed
+     */
+    public List<Task> find(String keyword) {
+        String needle = keyword.toLowerCase();
+        byte[] asciiNeedle = IS_ASCII_LOWER_CASE_SAFE && isAscii(needle)
+                ? needle.getBytes(StandardCharsets.US_ASCII)
+                : null;
+        int[] positions = new int[INITIAL_CAPACITY];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            byte[] chunk = chunks.get(textAddresses[i] >>> CHUNK_BITS);
+            int from = textAddresses[i] & OFFSET_MASK;
+            int to = from + textLengths[i];
+            boolean isMatch = asciiNeedle != null && isAscii(chunk, from, to)
+                    ? containsIgnoreAsciiCase(chunk, from, to, asciiNeedle)
+                    : text(i).toLowerCase().contains(needle);
+            if (isMatch) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count + (count >> 1));
+                }
+                positions[count++] = i;
+            }
+        }
+        return new Matches(positions, count, modCount);
+    }
+
+    /**
+     * Function to find the deadlines due strictly before a date-time, like {@link TaskList#dueBefore}.
+     *
+     * @param time the exclusive upper bound
+     * @return a read-only list of views of those deadlines, earliest first, equal deadlines in list order
+     */
+    public List<Task> dueBefore(LocalDateTime time) {
+        return select(DEADLINE, Long.MIN_VALUE, Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC) - 1, 60),
+                Long.MIN_VALUE, false);
+    }
+
+    /**
+     * Function to find the deadlines due within a range, both ends included, like {@link TaskList#dueBetween}.
+     *
+     * @param from the earliest due date-time
+     * @param to   the latest due date-time, not before {@code from}
+     * @return a read-only list of views of those deadlines, earliest first, equal deadlines in list order
+     */
+    public List<Task> dueBetween(LocalDateTime from, LocalDateTime to) {
+        assert !from.isAfter(to) : "range must not end before it starts";
+        return select(DEADLINE, toMinutes(from), toMinutes(to), Long.MIN_VALUE, false);
+    }
+
+    /**
+     * Function to find the events that overlap a range, both ends included, like
+     * {@link TaskList#eventsOverlapping}.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range, not before {@code from}
+     * @return a read-only list of views of those events, by start time, equal start times in list order
+     */
+    public List<Task> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        assert !from.isAfter(to) : "range must not end before it starts";
+        return select(EVENT, Long.MIN_VALUE, toMinutes(to), toMinutes(from), false);
+    }
+
+    /**
+     * Function to view the list with every deadline first, by due time, followed by the rest in list order,
+     * like {@link TaskList#sortedViewDeadlineFirst()}.
+     *
+     * @return a read-only list of views of every task
+     */
+    public List<Task> sortedViewDeadlineFirst() {
+        return select(DEADLINE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, true);
+    }
+
+    /**
+     * Function to view the list with every event first, by start time, followed by the rest in list order,
+     * like {@link TaskList#sortedViewEventFirst()}.
+     *
+     * @return a read-only list of views of every task
+     */
+    public List<Task> sortedViewEventFirst() {
+        return select(EVENT, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, true);
+    }
+
+    /**
+     * Function to pick out the tasks of one kind whose times fall in a range, sorted by their first time.
+     *
+     * @param kind         {@link #DEADLINE} or {@link #EVENT}
+     * @param startFrom    the earliest first time, in epoch minutes
+     * @param startTo      the latest first time, in epoch minutes
+     * @param endFrom      the earliest end time of an event, in epoch minutes
+     * @param isWithOthers true to follow the picked tasks with every other task, in list order
+     * @return a read-only list of views of the picked tasks
+     */
+    private List<Task> select(byte kind, long startFrom, long startTo, long endFrom, boolean isWithOthers) {
+        int[] positions = new int[INITIAL_CAPACITY];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if ((kinds[i] & KIND_MASK) == kind && starts[i] >= startFrom && starts[i] <= startTo
+                    && (kind != EVENT || ends[i] >= endFrom)) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count + (count >> 1));
+                }
+                positions[count++] = i;
+            }
+        }
+        sortByStart(positions, count);
+        if (isWithOthers) {
+            positions = Arrays.copyOf(positions, size);
+            for (int i = 0; i < size; i++) {
+                if ((kinds[i] & KIND_MASK) != kind) {
+                    positions[count++] = i;
+                }
+            }
+        }
+        return new Matches(positions, count, modCount);
+    }
+
+    /**
+     * Function to sort positions, given in list order, by their first time, keeping list order between equal
+     * times. Each position is packed with its time into one long, so the sort compares primitives, unless
+     * the times span more than 2^32 minutes.
+     *
+     * @param positions the positions, sorted in place
+     * @param count     the number of positions in use
+     */
+    private void sortByStart(int[] positions, int count) {
+        long lo = Long.MAX_VALUE;
+        long hi = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            lo = Math.min(lo, starts[positions[i]]);
+            hi = Math.max(hi, starts[positions[i]]);
+        }
+        if (count > 1 && hi - lo >= 1L << 32) {
+            Integer[] boxed = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                boxed[i] = positions[i];
+            }
+            Arrays.sort(boxed, (a, b) -> Long.compare(starts[a], starts[b])); // stable, so ties keep list order
+            for (int i = 0; i < count; i++) {
+                positions[i] = boxed[i];
+            }
+            return;
+        }
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (starts[positions[i]] - lo) << 31 | positions[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < count; i++) {
+            positions[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Function to lazily render numbered display lines for a range of positions, decoding one task per line.
+     *
+     * @param from the first zero-based position, inclusive
+     * @param to   the last zero-based position, exclusive
+     * @return lines like "1. #1 [T][ ] read book"
+     */
+    public Iterator<String> displayLines(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " out of bounds for size " + size);
+        }
+        return new Iterator<>() {
+            private int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i = next++;
+                return TaskList.numbered(i + 1, get(i));
+            }
+        };
+    }
+
+    /**
+     * Function to estimate the heap held by the columns and the text arena.
+     *
+     * @return the approximate size in bytes, excluding object headers
+     */
+    public long getFootprintBytes() {
+        long columns = (long) kinds.length * (Byte.BYTES + 3 * Long.BYTES + 2 * Integer.BYTES);
+        return columns + (long) chunks.stream().mapToInt(c -> c.length).sum();
+    }
+
+    /**
+     * Function to store a task's fields in a row whose old text has already been released.
+     *
+     * @param index the zero-based position
+     * @param t     the task to copy
+     */
+    private void write(int index, Task t) {
+        assert t != null : "task cannot be null";
+        byte kind;
+        if (t instanceof Deadline d) {
+            kind = DEADLINE;
+            starts[index] = toMinutes(d.getBy());
+            ends[index] = 0;
+        } else if (t instanceof Event e) {
+            kind = EVENT;
+            starts[index] = toMinutes(e.getFrom());
+            ends[index] = toMinutes(e.getTo());
+        } else if (t instanceof ToDo) {
+            kind = TODO;
+            starts[index] = 0;
+            ends[index] = 0;
+        } else {
+            throw new IllegalArgumentException("Unsupported task type: " + t.getClass().getSimpleName());
+        }
+        kinds[index] = t.getIsDone() ? (byte) (kind | DONE) : kind;
+        ids[index] = t.getId();
+        byte[] text = t.getDesc().getBytes(StandardCharsets.UTF_8);
+        textAddresses[index] = append(text);
+        textLengths[index] = text.length;
+        liveTextBytes += text.length;
+    }
+
+    /**
+     * Function to count a row's text as garbage before the row is overwritten or removed.
+     *
+     * @param index the zero-based position
+     */
+    private void release(int index) {
+        liveTextBytes -= textLengths[index];
+        wastedTextBytes += textLengths[index];
+    }
+
+    /**
+     * Function to copy UTF-8 text into the arena. Text never spans chunks; text longer than a chunk
+     * gets a chunk of its own.
+     *
+     * @param text the encoded description
+     * @return the address of the text: chunk number in the high bits, offset in the low {@value #CHUNK_BITS}
+     */
+    private int append(byte[] text) {
+        if (chunkUsed + text.length > CHUNK_SIZE) {
+            if (chunks.size() == MAX_CHUNKS) {
+                throw new IllegalStateException("Task descriptions exceed the arena limit");
+            }
+            chunks.add(new byte[Math.max(CHUNK_SIZE, text.length)]);
+            chunkUsed = 0;
+        }
+        int address = ((chunks.size() - 1) << CHUNK_BITS) | chunkUsed;
+        System.arraycopy(text, 0, chunks.get(chunks.size() - 1), chunkUsed, text.length);
+        chunkUsed += text.length;
+        return address;
+    }
+
+    /**
+     * Function to decode a row's description.
+     *
+     * @param index the zero-based position
+     * @return the description
+     */
+    private String text(int index) {
+        byte[] chunk = chunks.get(textAddresses[index] >>> CHUNK_BITS);
+        return new String(chunk, textAddresses[index] & OFFSET_MASK, textLengths[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Function to rewrite the arena once most of it is text of removed or replaced tasks.
+     */
+    private void compactIfWasteful() {
+        if (wastedTextBytes < CHUNK_SIZE || wastedTextBytes < liveTextBytes) {
+            return;
+        }
+        List<byte[]> old = new ArrayList<>(chunks);
+        chunks.clear();
+        chunkUsed = CHUNK_SIZE;
+        for (int i = 0; i < size; i++) {
+            byte[] chunk = old.get(textAddresses[i] >>> CHUNK_BITS);
+            int from = textAddresses[i] & OFFSET_MASK;
+            textAddresses[i] = append(Arrays.copyOfRange(chunk, from, from + textLengths[i]));
+        }
+        wastedTextBytes = 0;
+    }
+
+    /**
+     * Function to enlarge every column by half.
+     */
+    private void grow() {
+        int capacity = kinds.length + (kinds.length >> 1);
+        kinds = Arrays.copyOf(kinds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        textAddresses = Arrays.copyOf(textAddresses, capacity);
+        textLengths = Arrays.copyOf(textLengths, capacity);
+    }
+
+    /**
+     * Function to move a run of rows within every column.
+     *
+     * @param from  the first row to move
+     * @param to    where the first row goes
+     * @param count the number of rows to move
+     */
+    private void shift(int from, int to, int count) {
+        System.arraycopy(kinds, from, kinds, to, count);
+        System.arraycopy(ids, from, ids, to, count);
+        System.arraycopy(starts, from, starts, to, count);
+        System.arraycopy(ends, from, ends, to, count);
+        System.arraycopy(textAddresses, from, textAddresses, to, count);
+        System.arraycopy(textLengths, from, textLengths, to, count);
+    }
+
+    /**
+     * Function to reject a position outside the list.
+     *
+     * @param index the zero-based position
+     * @param bound the exclusive upper bound
+     * @throws IndexOutOfBoundsException if the position is out of range
+     */
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+
+    /**
+     * Function to convert a time to minutes since 1970. A long holds every year a task may have, which an
+     * int would not: it runs out in the year 6053.
+     *
+     * @param t the time, with no seconds
+     * @return the epoch minute
+     */
+    private static long toMinutes(LocalDateTime t) {
+        assert t.getSecond() == 0 && t.getNano() == 0 : "times are kept to the minute";
+        return Math.floorDiv(t.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Function to undo {@link #toMinutes(LocalDateTime)}.
+     *
+     * @param minutes the epoch minute
+     * @return the time
+     */
+    private static LocalDateTime toTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Function to check whether a string is plain ASCII.
+     *
+     * @param s the string
+     * @return true if every character is below 0x80
+     */
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to check whether a run of UTF-8 bytes is plain ASCII.
+     *
+     * @param bytes the bytes
+     * @param from  the start, inclusive
+     * @param to    the end, exclusive
+     * @return true if no byte has its high bit set
+     */
+    private static boolean isAscii(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to search ASCII text for an already lowercased ASCII needle.
+     *
+     * @param bytes  the arena chunk
+     * @param from   the start of the text, inclusive
+     * @param to     the end of the text, exclusive
+     * @param needle the lowercased needle
+     * @return true if the text contains the needle, ignoring case
+     */
+    private static boolean containsIgnoreAsciiCase(byte[] bytes, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        for (int i = from; i <= last; i++) {
+            int j = 0;
+            while (j < needle.length && toLowerAscii(bytes[i + j]) == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Function to lowercase an ASCII letter.
+     *
+     * @param b an ASCII byte
+     * @return the lowercase letter, or the byte unchanged if it is not an uppercase letter
+     */
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Class to present the positions found by a query as a list of task views.
+     */
+    private final class Matches extends AbstractList<Task> implements RandomAccess {
+        private final int[] positions;
+        private final int count;
+        private final int expectedModCount;
+
+        private Matches(int[] positions, int count, int expectedModCount) {
+            this.positions = positions;
+            this.count = count;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public Task get(int index) {
+            if (ColumnarTaskList.this.modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Tasks were added or removed after the search");
+            }
+            checkIndex(index, count);
+            return ColumnarTaskList.this.get(positions[index]);
+        }
+    }
+}
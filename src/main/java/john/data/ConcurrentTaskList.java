@@ -0,0 +1,304 @@
+package john.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import john.tasks.Task;
+
+/**
+ * Class to share a task list between threads.
+ * Writers are serialised by a lock and publish a new immutable {@link Snapshot} after every change, so readers
+ * never lock: they read the latest snapshot and query it for as long as they like.
+ * Each snapshot builds its search indexes on its first query, so a burst of writes costs one list copy each
+ * and the indexes are only rebuilt for versions that are actually queried.
+ * Snapshots fix which tasks are listed and in what order; done flags are read from the tasks themselves.
+ * Ids are assigned here, under the write lock, so building a snapshot's indexes never writes to a task.
+ */
+public final class ConcurrentTaskList {
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile Snapshot current;
+    private long nextId = 1; // guarded by writeLock
+
+    /**
+     * Function to construct a concurrent task list holding some initial tasks.
+     *
+     * @param tasks the initial tasks
+     */
+    public ConcurrentTaskList(List<Task> tasks) {
+        assert tasks != null : "tasks cannot be null";
+        for (Task t : tasks) {
+            nextId = Math.max(nextId, t.getId() + 1);
+        }
+        for (Task t : tasks) {
+            if (t.getId() == 0) {
+                t.setId(nextId++);
+            }
+        }
+        this.current = new Snapshot(new ArrayList<>(tasks), 0, null);
+    }
+
+    /**
+     * Function to return the latest snapshot without locking.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Function to append a task, giving it the next id if it has none.
+     *
+     * @param t the task to add
+     * @return the snapshot that includes the task
+     */
+    public Snapshot add(Task t) {
+        assert t != null : "task cannot be null";
+        writeLock.lock();
+        try {
+            if (t.getId() == 0) {
+                t.setId(nextId);
+            }
+            nextId = Math.max(nextId, t.getId() + 1);
+            List<Task> next = new ArrayList<>(current.tasks.size() + 1);
+            next.addAll(current.tasks);
+            next.add(t);
+            return publish(next);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Function to remove the task at an index of the latest list.
+     * Other writers may have changed the list since the caller last looked; to delete what the user saw,
+     * resolve the index against that snapshot and use {@link #remove(Task)}.
+     *
+     * @param index zero-based index in the latest list
+     * @return the removed task
+     * @throws IndexOutOfBoundsException if the index is outside the latest list
+     */
+    public Task remove(int index) {
+        writeLock.lock();
+        try {
+            List<Task> next = new ArrayList<>(current.tasks);
+            Task removed = next.remove(index);
+            publish(next);
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Function to remove a task, wherever it now is in the list.
+     * Removing a task that another writer already removed has no effect.
+     *
+     * @param t the task to remove
+     * @return true if the task was still in the list
+     */
+    public boolean remove(Task t) {
+        writeLock.lock();
+        try {
+            int index = indexOf(current.tasks, t);
+            if (index < 0) {
+                return false;
+            }
+            List<Task> next = new ArrayList<>(current.tasks);
+            next.remove(index);
+            publish(next);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Function to mark a task as done by index (0-based) of the latest list.
+     *
+     * @param index zero-based index to mark
+     * @return the marked task
+     */
+    public Task mark(int index) {
+        return setDone(index, true);
+    }
+
+    /**
+     * Function to unmark a task as not done by index (0-based) of the latest list.
+     *
+     * @param index zero-based index to unmark
+     * @return the unmarked task
+     */
+    public Task unmark(int index) {
+        return setDone(index, false);
+    }
+
+    /**
+     * Function to change a done flag under the write lock and publish a new version,
+     * so that a reader comparing versions notices the change.
+     *
+     * @param index  zero-based index in the latest list
+     * @param isDone the new done flag
+     * @return the changed task
+     */
+    private Task setDone(int index, boolean isDone) {
+        writeLock.lock();
+        try {
+            Task t = current.tasks.get(index);
+            if (isDone) {
+                t.mark();
+            } else {
+                t.unmark();
+            }
+            // Same tasks in the same order, so the new version can share the search indexes
+            current = new Snapshot(current.tasks, current.version + 1, current.view);
+            return t;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Function to make a new list visible to readers, holding the write lock.
+     *
+     * @param tasks the new list, which nothing else may modify afterwards
+     * @return the published snapshot
+     */
+    private Snapshot publish(List<Task> tasks) {
+        Snapshot next = new Snapshot(tasks, current.version + 1, null);
+        current = next;
+        return next;
+    }
+
+    /**
+     * Function to find a task by identity, since tasks with equal contents are still different tasks.
+     *
+     * @param tasks the list to search
+     * @param t     the task to find
+     * @return its index, or -1 if it is not in the list
+     */
+    private static int indexOf(List<Task> tasks, Task t) {
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i) == t) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Class to represent the task list at one version; it never changes after it is published.
+     */
+    public static final class Snapshot {
+        private final List<Task> tasks;
+        private final long version;
+        private volatile TaskList view; // built on first query; racing readers may each build one
+
+        /**
+         * Function to wrap a list that will not be modified again.
+         *
+         * @param tasks   the tasks at this version
+         * @param version the number of changes made before this snapshot
+         * @param view    an indexed view of the same tasks, or null to build one when first queried
+         */
+        private Snapshot(List<Task> tasks, long version, TaskList view) {
+            this.tasks = Collections.unmodifiableList(tasks);
+            this.version = version;
+            this.view = view;
+        }
+
+        /**
+         * Function to return the number of changes made to the list before this snapshot.
+         *
+         * @return the version
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Function to return the number of tasks in this snapshot.
+         *
+         * @return number of tasks
+         */
+        public int size() {
+            return tasks.size();
+        }
+
+        /**
+         * Function to get a task by index (0-based).
+         *
+         * @param index zero-based index of the task
+         * @return the task at the index
+         */
+        public Task get(int index) {
+            return tasks.get(index);
+        }
+
+        /**
+         * Function to return the tasks of this snapshot.
+         *
+         * @return an unmodifiable list of the tasks
+         */
+        public List<Task> asList() {
+            return tasks;
+        }
+
+        /**
+         * Function to find tasks whose descriptions contain the given keyword (case-insensitive).
+         *
+         * @param keyword the keyword to look for
+         * @return a new list containing matching tasks in snapshot order
+         * @see TaskList#find(String)
+         */
+        public List<Task> find(String keyword) {
+            return view().find(keyword);
+        }
+
+        /**
+         * Function to list deadlines first in ascending "by" order, followed by the other tasks in order.
+         *
+         * @return a new list view of tasks
+         * @see TaskList#sortedViewDeadlineFirst()
+         */
+        public List<Task> sortedViewDeadlineFirst() {
+            return view().sortedViewDeadlineFirst();
+        }
+
+        /**
+         * Function to list events first in ascending "from" order, followed by the other tasks in order.
+         *
+         * @return a new list view of tasks
+         * @see TaskList#sortedViewEventFirst()
+         */
+        public List<Task> sortedViewEventFirst() {
+            return view().sortedViewEventFirst();
+        }
+
+        /**
+         * Function to return a user-friendly string of all tasks, each prefixed with its 1-based index.
+         *
+         * @return formatted string of tasks for display
+         * @see TaskList#toDisplayString()
+         */
+        public String toDisplayString() {
+            return view().toDisplayString(tasks);
+        }
+
+        /**
+         * Function to return the indexed, read-only task list behind the queries of this snapshot.
+         *
+         * @return the indexed view
+         */
+        private TaskList view() {
+            TaskList v = view;
+            if (v == null) {
+                v = new TaskList(tasks);
+                view = v;
+            }
+            return v;
+        }
+    }
+}
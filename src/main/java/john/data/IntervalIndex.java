@@ -0,0 +1,259 @@
+package john.data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import john.tasks.Event;
+import john.tasks.Task;
+
+/**
+ * Class to index events by the time span they cover, so that the events overlapping a range are found
+ * without looking at the others. It is an AVL tree ordered by start time, then insertion order, in which
+ * every node also records the latest end time in its subtree; a search skips any subtree that ends
+ * before the range starts, and everything to the right of a node that starts after the range ends.
+ */
+final class IntervalIndex {
+    private Node root;
+
+    /**
+     * Function to index a task if it is an event.
+     *
+     * @param t        the task to index
+     * @param sequence the task's insertion sequence number
+     */
+    void add(Task t, long sequence) {
+        if (t instanceof Event e) {
+            root = insert(root, new Node(e.getFrom(), e.getTo(), sequence, e));
+        }
+    }
+
+    /**
+     * Function to drop a task from the index if it is an event.
+     *
+     * @param t        the task to remove
+     * @param sequence the sequence number it was indexed with
+     */
+    void remove(Task t, long sequence) {
+        if (t instanceof Event e) {
+            root = delete(root, e.getFrom(), sequence);
+        }
+    }
+
+    /**
+     * Function to find the events that share at least one moment with a range, both ends included.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return the events whose span meets the range, by start time and then in list order
+     */
+    List<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> out = new ArrayList<>();
+        collect(root, from, to, out);
+        return out;
+    }
+
+    /**
+     * Function to add the overlapping events of a subtree to a list, in order.
+     *
+     * @param n    the subtree
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @param out  the list to add to
+     */
+    private static void collect(Node n, LocalDateTime from, LocalDateTime to, List<Task> out) {
+        if (n == null || n.maxTo.isBefore(from)) {
+            return;
+        }
+        collect(n.left, from, to, out);
+        if (n.from.isAfter(to)) {
+            return; // So does everything to the right
+        }
+        if (!n.to.isBefore(from)) {
+            out.add(n.task);
+        }
+        collect(n.right, from, to, out);
+    }
+
+    /**
+     * Function to insert a node into a subtree.
+     *
+     * @param n     the subtree, possibly empty
+     * @param added the node to insert
+     * @return the root of the balanced subtree
+     */
+    private static Node insert(Node n, Node added) {
+        if (n == null) {
+            return added;
+        }
+        if (compare(added.from, added.sequence, n) < 0) {
+            n.left = insert(n.left, added);
+        } else {
+            n.right = insert(n.right, added);
+        }
+        return rebalance(n);
+    }
+
+    /**
+     * Function to remove the node with a key from a subtree, if it is there.
+     *
+     * @param n        the subtree, possibly empty
+     * @param from     the start time of the event to remove
+     * @param sequence the sequence number of the event to remove
+     * @return the root of the balanced subtree
+     */
+    private static Node delete(Node n, LocalDateTime from, long sequence) {
+        if (n == null) {
+            return null;
+        }
+        int c = compare(from, sequence, n);
+        if (c < 0) {
+            n.left = delete(n.left, from, sequence);
+        } else if (c > 0) {
+            n.right = delete(n.right, from, sequence);
+        } else if (n.left == null) {
+            return n.right;
+        } else if (n.right == null) {
+            return n.left;
+        } else {
+            Node successor = n.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(n.right);
+            successor.left = n.left;
+            return rebalance(successor);
+        }
+        return rebalance(n);
+    }
+
+    /**
+     * Function to remove the first node of a non-empty subtree.
+     *
+     * @param n the subtree
+     * @return the root of the balanced subtree
+     */
+    private static Node deleteMin(Node n) {
+        if (n.left == null) {
+            return n.right;
+        }
+        n.left = deleteMin(n.left);
+        return rebalance(n);
+    }
+
+    /**
+     * Function to order a key against a node: by start time, then by insertion order.
+     *
+     * @param from     the start time of the key
+     * @param sequence the sequence number of the key
+     * @param n        the node to compare with
+     * @return negative, zero or positive as the key sorts before, at or after the node
+     */
+    private static int compare(LocalDateTime from, long sequence, Node n) {
+        int c = from.compareTo(n.from);
+        return c != 0 ? c : Long.compare(sequence, n.sequence);
+    }
+
+    /**
+     * Function to restore the AVL balance of a node whose children are balanced, and refresh what it records.
+     *
+     * @param n the node
+     * @return the root of the rebalanced subtree
+     */
+    private static Node rebalance(Node n) {
+        update(n);
+        int balance = height(n.left) - height(n.right);
+        if (balance > 1) {
+            if (height(n.left.left) < height(n.left.right)) {
+                n.left = rotateLeft(n.left);
+            }
+            return rotateRight(n);
+        }
+        if (balance < -1) {
+            if (height(n.right.right) < height(n.right.left)) {
+                n.right = rotateRight(n.right);
+            }
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    /**
+     * Function to lift a node's left child above it.
+     *
+     * @param n the node
+     * @return the new root of the subtree
+     */
+    private static Node rotateRight(Node n) {
+        Node l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    /**
+     * Function to lift a node's right child above it.
+     *
+     * @param n the node
+     * @return the new root of the subtree
+     */
+    private static Node rotateLeft(Node n) {
+        Node r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    /**
+     * Function to recompute a node's height and latest end time from its children.
+     *
+     * @param n the node
+     */
+    private static void update(Node n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        LocalDateTime max = n.to;
+        if (n.left != null && n.left.maxTo.isAfter(max)) {
+            max = n.left.maxTo;
+        }
+        if (n.right != null && n.right.maxTo.isAfter(max)) {
+            max = n.right.maxTo;
+        }
+        n.maxTo = max;
+    }
+
+    /**
+     * Function to return the height of a subtree.
+     *
+     * @param n the subtree, possibly empty
+     * @return its height, 0 if empty
+     */
+    private static int height(Node n) {
+        return n == null ? 0 : n.height;
+    }
+
+    /**
+     * Node of the tree: one event, with the height and latest end time of its subtree.
+     */
+    private static final class Node {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final long sequence;
+        private final Task task;
+        private LocalDateTime maxTo;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(LocalDateTime from, LocalDateTime to, long sequence, Task task) {
+            this.from = from;
+            this.to = to;
+            this.sequence = sequence;
+            this.task = task;
+            this.maxTo = to;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package john.data;
+
+import java.util.Objects;
+
+import john.tasks.Task;
+
+/**
+ * Class to represent a single task list mutation that can be appended to the storage journal.
+ * Each entry is encoded as one compact line, e.g. "A | T | Not Done | read book", "M | 4"
+ * or "I | 2 | T | Done | read book | #7".
+ */
+public final class JournalEntry {
+    static final char ADD = 'A';
+    static final char MARK = 'M';
+    static final char UNMARK = 'U';
+    static final char DELETE = 'X';
+    static final char INSERT = 'I';
+
+    private final char op;
+    private final String taskLine; // for ADD/INSERT, encoded when the entry is created
+    private final int index; // for MARK/UNMARK/DELETE/INSERT
+
+    /**
+     * Function to construct a journal entry.
+     *
+     * @param op       the operation code
+     * @param taskLine the encoded task if any (for ADD/INSERT)
+     * @param index    the zero-based index if any (for MARK/UNMARK/DELETE/INSERT)
+     */
+    private JournalEntry(char op, String taskLine, int index) {
+        this.op = op;
+        this.taskLine = taskLine;
+        this.index = index;
+    }
+
+    /**
+     * Function to create a journal entry representing a task appended to the end of the list.
+     * The task is encoded immediately, so later changes to it are only recorded by later entries.
+     *
+     * @param t the task that was added
+     * @return a JournalEntry for ADD
+     */
+    public static JournalEntry add(Task t) {
+        return new JournalEntry(ADD, Storage.encodeTaskLine(Objects.requireNonNull(t, "task must not be null")), -1);
+    }
+
+    /**
+     * Function to create a journal entry representing marking the task at an index.
+     *
+     * @param idx the zero-based index of the marked task
+     * @return a JournalEntry for MARK
+     */
+    public static JournalEntry mark(int idx) {
+        return new JournalEntry(MARK, null, idx);
+    }
+
+    /**
+     * Function to create a journal entry representing unmarking the task at an index.
+     *
+     * @param idx the zero-based index of the unmarked task
+     * @return a JournalEntry for UNMARK
+     */
+    public static JournalEntry unmark(int idx) {
+        return new JournalEntry(UNMARK, null, idx);
+    }
+
+    /**
+     * Function to create a journal entry representing deleting the task at an index.
+     *
+     * @param idx the zero-based index of the deleted task
+     * @return a JournalEntry for DELETE
+     */
+    public static JournalEntry delete(int idx) {
+        return new JournalEntry(DELETE, null, idx);
+    }
+
+    /**
+     * Function to create a journal entry representing a task put back at an index, e.g. by an undone delete.
+     * The task is encoded immediately, with its id, so it is restored exactly as it was.
+     *
+     * @param idx the zero-based index the task was inserted at
+     * @param t   the task that was inserted
+     * @return a JournalEntry for INSERT
+     */
+    public static JournalEntry insert(int idx, Task t) {
+        String line = Storage.encodeTaskLine(Objects.requireNonNull(t, "task must not be null"));
+        return new JournalEntry(INSERT, line, idx);
+    }
+
+    char getOp() {
+        return op;
+    }
+
+    String getTaskLine() {
+        return taskLine;
+    }
+
+    int getIndex() {
+        return index;
+    }
+}
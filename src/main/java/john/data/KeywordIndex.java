@@ -0,0 +1,91 @@
+package john.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import john.tasks.Task;
+
+/**
+ * Class to maintain an inverted index from lower-cased character trigrams to the tasks whose
+ * descriptions contain them, so that substring searches only verify a small set of candidates.
+ */
+final class KeywordIndex {
+    // Keywords shorter than this cannot be answered from the index and fall back to a scan
+    static final int GRAM = 3;
+    private final Map<Long, Set<Task>> postings = new HashMap<>();
+
+    /**
+     * Function to index a task that was appended to the end of the list.
+     *
+     * @param t the task to index
+     */
+    void add(Task t) {
+        String text = t.getDesc().toLowerCase();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            postings.computeIfAbsent(gramAt(text, i), k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(t);
+        }
+    }
+
+    /**
+     * Function to drop a removed task from the index.
+     *
+     * @param t the task to remove
+     */
+    void remove(Task t) {
+        String text = t.getDesc().toLowerCase();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            Long gram = gramAt(text, i);
+            Set<Task> posting = postings.get(gram);
+            if (posting != null && posting.remove(t) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Function to find indexed tasks whose lower-cased description contains the needle.
+     *
+     * @param needle the lower-cased keyword
+     * @return matching tasks in no particular order, or {@code null} if the needle is too short to use the index
+     */
+    List<Task> find(String needle) {
+        if (needle.length() < GRAM) {
+            return null;
+        }
+        Set<Task> smallest = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            Set<Task> posting = postings.get(gramAt(needle, i));
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+
+        List<Task> out = new ArrayList<>();
+        for (Task t : smallest) {
+            if (t.getDesc().toLowerCase().contains(needle)) {
+                out.add(t);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Packs the three characters starting at an offset into a single key.
+     *
+     * @param s     the lower-cased text
+     * @param start offset of the first character
+     * @return the trigram key
+     */
+    private static Long gramAt(String s, int start) {
+        return ((long) s.charAt(start) << 32) | ((long) s.charAt(start + 1) << 16) | s.charAt(start + 2);
+    }
+}
@@ -0,0 +1,103 @@
+package john.data;
+
+import java.util.Arrays;
+
+/**
+ * Class to translate between list positions and storage slots when some slots hold deleted tasks.
+ * It is a Fenwick tree over one bit per slot (1 for a live task), so counting the live slots before a slot
+ * and finding the slot of the k-th live task both take O(log n), and so do appending and deleting.
+ */
+final class LiveSlots {
+    private int[] tree; // 1-based; tree[i] counts the live slots in (i - lowbit(i), i]
+    private int slots;
+
+    /**
+     * Function to create a tree for a number of slots that are all live.
+     *
+     * @param slots the number of slots
+     */
+    LiveSlots(int slots) {
+        this.tree = new int[Math.max(slots, 16) + 1];
+        this.slots = slots;
+        for (int i = 1; i <= slots; i++) {
+            tree[i] = i & -i;
+        }
+    }
+
+    /**
+     * Function to append a live slot.
+     */
+    void append() {
+        if (slots + 1 == tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        int i = ++slots;
+        // The new node covers itself plus the nodes below it in (i - lowbit(i), i - 1]
+        tree[i] = 1 + prefix(i - 1) - prefix(i - (i & -i));
+    }
+
+    /**
+     * Function to mark a live slot as deleted.
+     *
+     * @param slot the zero-based slot
+     */
+    void delete(int slot) {
+        for (int i = slot + 1; i <= slots; i += i & -i) {
+            tree[i]--;
+        }
+    }
+
+    /**
+     * Function to mark a deleted slot as live again.
+     *
+     * @param slot the zero-based slot
+     */
+    void restore(int slot) {
+        for (int i = slot + 1; i <= slots; i += i & -i) {
+            tree[i]++;
+        }
+    }
+
+    /**
+     * Function to count the live slots before a slot, which is the list position of a live slot.
+     *
+     * @param slot the zero-based slot
+     * @return the number of live slots in [0, slot)
+     */
+    int rank(int slot) {
+        return prefix(slot);
+    }
+
+    /**
+     * Function to find the slot that holds the task at a list position.
+     *
+     * @param position the zero-based position among live slots; must be less than the live count
+     * @return the zero-based slot
+     */
+    int select(int position) {
+        int i = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(Math.max(slots, 1)); step > 0; step >>= 1) {
+            int next = i + step;
+            if (next <= slots && tree[next] <= remaining) {
+                i = next;
+                remaining -= tree[next];
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Function to count the live slots among the first slots.
+     *
+     * @param count the number of leading slots
+     * @return the live count in [0, count)
+     */
+    private int prefix(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
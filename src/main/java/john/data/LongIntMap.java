@@ -0,0 +1,143 @@
+package john.data;
+
+import java.util.Arrays;
+
+/**
+ * Class to map positive long keys to int values without boxing, using open addressing with linear probing.
+ * Key 0 marks an empty slot, which is why only positive keys are allowed.
+ * Removal shifts later entries of the probe run back, so lookups never have to skip deleted markers.
+ */
+final class LongIntMap {
+    static final int MISSING = -1;
+    private static final int MIN_CAPACITY = 16;
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Function to create an empty map.
+     */
+    LongIntMap() {
+        this.keys = new long[MIN_CAPACITY];
+        this.values = new int[MIN_CAPACITY];
+    }
+
+    /**
+     * Function to return the number of entries.
+     *
+     * @return the entry count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Function to look up the value of a key.
+     *
+     * @param key a positive key
+     * @return the value, or {@link #MISSING} if the key is absent
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Function to add or replace the value of a key.
+     *
+     * @param key   a positive key
+     * @param value the value
+     */
+    void put(long key, int value) {
+        assert key > 0 : "keys must be positive";
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Function to remove a key.
+     *
+     * @param key a positive key
+     */
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // Move back every later entry of the run that would no longer be reachable across the gap
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+    }
+
+    /**
+     * Function to remove every entry.
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    /**
+     * Function to rehash every entry into tables of a new capacity.
+     *
+     * @param capacity the new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Function to pick the home slot of a key; ids are sequential, so the bits are mixed first.
+     *
+     * @param key  the key
+     * @param mask the table size minus one
+     * @return the home slot
+     */
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
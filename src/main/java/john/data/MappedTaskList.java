@@ -0,0 +1,431 @@
+package john.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import john.tasks.Task;
+
+/**
+ * Class to expose a memory-mapped text snapshot as a list of tasks that are decoded on first access.
+ * Building the list records where each non-blank line starts and ends and checks, without building any task,
+ * that the line is canonical; the rare line that is not is decoded there and then, and dropped if malformed.
+ * Every position therefore holds the same task as an eager load would give, and never moves as tasks are
+ * decoded, which journal replay and task numbers rely on. Once every line has been decoded the mapping is
+ * released. The same scan also reads the trailing "#id" field of each line, so the next free id is known
+ * without decoding any task.
+ */
+final class MappedTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final long NO_LINE = -1;
+    // Set in the span of a line with bytes outside ASCII, which cannot be decoded from a Latin-1 copy of its batch
+    private static final long NON_ASCII = 1L << 31;
+    private final boolean isStreaming;
+    private ByteBuffer buffer;
+    // Per element: (start << 32 | end) of its line in the buffer, or NO_LINE once decoded or added later
+    private long[] spans;
+    private Task[] decoded;
+    private int size;
+    private int undecoded;
+    private long maxId;
+    private boolean hasAllIds = true;
+
+    /**
+     * Function to index the lines of a mapped text snapshot.
+     * Line terminators are the same as {@link String#lines()}: "\n", "\r" and "\r\n".
+     *
+     * @param buffer      the mapped file contents
+     * @param isStreaming true to decode lines with {@link TaskLineDecoder}
+     */
+    MappedTaskList(ByteBuffer buffer, boolean isStreaming) {
+        this.isStreaming = isStreaming;
+        this.buffer = buffer;
+        this.spans = new long[16];
+        this.decoded = new Task[16];
+        CharSequence text = new Latin1View(buffer);
+        int limit = buffer.limit();
+        int start = 0;
+        int pipes = 0;
+        boolean isAscii = true;
+        for (int i = 0; i <= limit; i++) {
+            byte b = i < limit ? buffer.get(i) : (byte) '\n';
+            if (b == '|') {
+                pipes++;
+            }
+            isAscii &= b >= 0;
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (!isBlank(start, i)) {
+                addLine(text, start, i, pipes, isAscii);
+            }
+            pipes = 0;
+            isAscii = true;
+            if (b == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+                i++;
+            }
+            start = i + 1;
+        }
+        releaseIfDone();
+    }
+
+    /**
+     * Function to add a non-blank line to the offset table, or, if it is not canonical, decode it now.
+     * A malformed line is left out, exactly as an eager load leaves it out.
+     *
+     * @param text    the buffer as Latin-1 characters, one per byte
+     * @param start   offset of the first byte of the line
+     * @param end     offset just past the last byte of the line
+     * @param pipes   the number of '|' bytes in the line
+     * @param isAscii true if every byte of the line is ASCII
+     */
+    private void addLine(CharSequence text, int start, int end, int pipes, boolean isAscii) {
+        if (size == spans.length) {
+            spans = Arrays.copyOf(spans, size * 2);
+            decoded = Arrays.copyOf(decoded, size * 2);
+        }
+        spans[size] = ((long) start << 32) | end | (isAscii ? 0 : NON_ASCII);
+        long id = trailingId(start, end, pipes);
+        boolean isCanonical;
+        if (id == 0) {
+            isCanonical = false;
+        } else if (isAscii) {
+            isCanonical = TaskLineDecoder.isCanonical(text, start, end);
+        } else {
+            String line = lineAt(size);
+            isCanonical = TaskLineDecoder.isCanonical(line, 0, line.length());
+        }
+        if (isCanonical) {
+            maxId = Math.max(maxId, id);
+            undecoded++;
+            size++;
+            return;
+        }
+        Task t = decodeLine(size);
+        if (t == null) {
+            return;
+        }
+        hasAllIds &= t.getId() > 0;
+        maxId = Math.max(maxId, t.getId());
+        decoded[size] = t;
+        spans[size++] = NO_LINE;
+    }
+
+    /**
+     * Function to check whether a line holds only ASCII whitespace, which the text decoder skips anyway.
+     *
+     * @param start offset of the first byte of the line
+     * @param end   offset just past the last byte of the line
+     * @return true if the line can be skipped without decoding it
+     */
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < 0 || !Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to read the id of a canonical line, which ends in " | #id" after the pipes of its task type.
+     * Lines in any other shape report no id, and are decoded while the list is built.
+     *
+     * @param start offset of the first byte of the line
+     * @param end   offset just past the last byte of the line
+     * @param pipes the number of '|' bytes in the line
+     * @return the id, or 0 if the line does not end in an id field
+     */
+    private long trailingId(int start, int end, int pipes) {
+        int first = start;
+        while (first < end && buffer.get(first) == ' ') {
+            first++;
+        }
+        byte type = buffer.get(first);
+        int expected = type == 'T' ? 3 : type == 'D' ? 4 : type == 'E' ? 5 : -1;
+        int i = end;
+        while (i > first && buffer.get(i - 1) == ' ') {
+            i--;
+        }
+        int digitsEnd = i;
+        long id = 0;
+        while (i > first && buffer.get(i - 1) >= '0' && buffer.get(i - 1) <= '9') {
+            i--;
+        }
+        int hash = i - 1;
+        int pipe = hash - 1;
+        while (pipe > first && buffer.get(pipe) == ' ') {
+            pipe--;
+        }
+        if (pipes != expected || digitsEnd == i || digitsEnd - i > Storage.MAX_ID_DIGITS
+                || hash <= first || buffer.get(hash) != '#' || buffer.get(pipe) != '|') {
+            return 0;
+        }
+        for (int j = i; j < digitsEnd; j++) {
+            id = id * 10 + (buffer.get(j) - '0');
+        }
+        return id;
+    }
+
+    /**
+     * Function to return the highest id of any line or added task.
+     *
+     * @return the highest id seen, or 0 if there is none
+     */
+    long maxId() {
+        return maxId;
+    }
+
+    /**
+     * Function to check whether every task had an id when the list was built.
+     *
+     * @return false if some line needs an id assigned
+     */
+    boolean hasAllIds() {
+        return hasAllIds;
+    }
+
+    /**
+     * Function to check whether every line has been decoded and the mapping released.
+     *
+     * @return true if no element is left to decode
+     */
+    boolean isDecoded() {
+        return buffer == null;
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        Task t = decoded[index];
+        if (t != null) {
+            return t;
+        }
+        Task parsed = decodeLine(index);
+        assert parsed != null : "every remaining line was checked to be canonical";
+        setDecoded(index, parsed);
+        return parsed;
+    }
+
+    @Override
+    public Task set(int index, Task t) {
+        Task previous = get(index);
+        decoded[index] = t;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Task t) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == decoded.length) {
+            decoded = Arrays.copyOf(decoded, size * 2);
+        }
+        if (buffer != null && size == spans.length) {
+            spans = Arrays.copyOf(spans, size * 2);
+        }
+        System.arraycopy(decoded, index, decoded, index + 1, size - index);
+        decoded[index] = t;
+        maxId = Math.max(maxId, t.getId());
+        if (buffer != null) {
+            System.arraycopy(spans, index, spans, index + 1, size - index);
+            spans[index] = NO_LINE;
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task removed = get(index);
+        System.arraycopy(decoded, index + 1, decoded, index, size - index - 1);
+        decoded[size - 1] = null;
+        if (buffer != null) {
+            System.arraycopy(spans, index + 1, spans, index, size - index - 1);
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Function to decode every remaining line and release the mapping.
+     */
+    void decodeAll() {
+        decodeRange(0, size);
+    }
+
+    /**
+     * Function to decode the remaining lines of a range of elements in one batch, such as a page of the list.
+     * The bytes the batch spans are copied out of the mapping once, and each ASCII line is decoded straight
+     * from that copy rather than from a copy of its own.
+     *
+     * @param from index of the first element, inclusive
+     * @param to   index just past the last element
+     */
+    void decodeRange(int from, int to) {
+        if (buffer == null || from >= to) {
+            return;
+        }
+        int lo = Integer.MAX_VALUE;
+        int hi = 0;
+        for (int i = from; i < to; i++) {
+            if (spans[i] != NO_LINE) {
+                lo = Math.min(lo, lineStart(spans[i]));
+                hi = Math.max(hi, lineEnd(spans[i]));
+            }
+        }
+        if (lo >= hi) {
+            return;
+        }
+        byte[] bytes = new byte[hi - lo];
+        buffer.get(lo, bytes);
+        String batch = new String(bytes, StandardCharsets.ISO_8859_1);
+        for (int i = from; i < to && buffer != null; i++) {
+            long span = spans[i];
+            if (span == NO_LINE) {
+                continue;
+            }
+            Task t;
+            if ((span & NON_ASCII) != 0) {
+                t = decodeLine(i);
+            } else if (isStreaming) {
+                t = TaskLineDecoder.decode(batch, lineStart(span) - lo, lineEnd(span) - lo);
+            } else {
+                t = Storage.parseTaskLine(batch.substring(lineStart(span) - lo, lineEnd(span) - lo)).orElse(null);
+            }
+            assert t != null : "every remaining line was checked to be canonical";
+            setDecoded(i, t);
+        }
+    }
+
+    /**
+     * Function to record a freshly decoded element.
+     *
+     * @param index the element index
+     * @param t     the decoded task
+     */
+    private void setDecoded(int index, Task t) {
+        decoded[index] = t;
+        spans[index] = NO_LINE;
+        undecoded--;
+        releaseIfDone();
+    }
+
+    /**
+     * Function to drop the mapping and offset table once nothing refers to them any more.
+     */
+    private void releaseIfDone() {
+        if (undecoded == 0) {
+            buffer = null;
+            spans = null;
+        }
+    }
+
+    /**
+     * Function to decode the backing line of an element.
+     *
+     * @param index the element index
+     * @return the decoded task, or {@code null} if the line is malformed
+     */
+    private Task decodeLine(int index) {
+        String line = lineAt(index);
+        return isStreaming
+                ? TaskLineDecoder.decode(line, 0, line.length())
+                : Storage.parseTaskLine(line).orElse(null);
+    }
+
+    /**
+     * Function to copy the raw line of an undecoded element out of the mapping.
+     *
+     * @param index the element index
+     * @return the line text, without its terminator
+     */
+    private String lineAt(int index) {
+        long span = spans[index];
+        assert span != NO_LINE : "element has no backing line";
+        int start = lineStart(span);
+        int end = lineEnd(span);
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Function to read the offset of the first byte of a line from its span.
+     *
+     * @param span the span of an undecoded element
+     * @return the start offset, inclusive
+     */
+    private static int lineStart(long span) {
+        return (int) (span >>> 32);
+    }
+
+    /**
+     * Function to read the offset just past the last byte of a line from its span.
+     *
+     * @param span the span of an undecoded element
+     * @return the end offset, exclusive
+     */
+    private static int lineEnd(long span) {
+        return (int) (span & Integer.MAX_VALUE);
+    }
+
+    /**
+     * Function to reject indexes outside the list.
+     *
+     * @param index the index to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Class to read a byte buffer as Latin-1 characters, one per byte, without copying it.
+     * Canonical lines are ASCII, on which this agrees with UTF-8.
+     */
+    private static final class Latin1View implements CharSequence {
+        private final ByteBuffer buffer;
+
+        /**
+         * Function to view a buffer as characters.
+         *
+         * @param buffer the buffer to read
+         */
+        Latin1View(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+}
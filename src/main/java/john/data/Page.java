@@ -0,0 +1,111 @@
+package john.data;
+
+/**
+ * Class to describe one page of a task list: which positions it covers and how to ask for the next one.
+ * Pages are numbered from 1, and an empty list still has one (empty) page.
+ */
+public final class Page {
+    /** Number of tasks on a page when the command does not say. */
+    public static final int DEFAULT_SIZE = 100;
+    /** Largest page size a command may ask for, so that one reply stays small whatever the list size. */
+    public static final int MAX_SIZE = 1000;
+
+    private final int number;
+    private final int size;
+    private final int total;
+
+    /**
+     * Function to describe a page of a list.
+     *
+     * @param number the 1-based page number
+     * @param size   the number of tasks per page, from 1 to {@link #MAX_SIZE}
+     * @param total  the number of tasks in the list
+     */
+    public Page(int number, int size, int total) {
+        assert number >= 1 : "pages are numbered from 1";
+        assert size >= 1 && size <= MAX_SIZE : "page size out of range";
+        this.number = number;
+        this.size = size;
+        this.total = total;
+    }
+
+    /**
+     * Function to return the number of pages the list fills.
+     *
+     * @return the page count, at least 1
+     */
+    public int getCount() {
+        return Math.max(1, (int) (((long) total + size - 1) / size));
+    }
+
+    /**
+     * Function to check whether the list has this page.
+     *
+     * @return true if the page number is at most the page count
+     */
+    public boolean isInRange() {
+        return number <= getCount();
+    }
+
+    /**
+     * Function to return the position of the first task on the page.
+     *
+     * @return the zero-based start position, inclusive
+     */
+    public int getFrom() {
+        return (int) Math.min(total, (long) (number - 1) * size);
+    }
+
+    /**
+     * Function to return the position just past the last task on the page.
+     *
+     * @return the zero-based end position, exclusive
+     */
+    public int getTo() {
+        return (int) Math.min(total, (long) getFrom() + size);
+    }
+
+    /**
+     * Function to describe where the page of the task list sits and how to see the next one.
+     *
+     * @return e.g. "Page 2 of 5. Type "list 3" for the next page.", or an empty string if the list fits one page
+     */
+    public String footer() {
+        String next = size == DEFAULT_SIZE
+                ? "list " + (number + 1)
+                : "list " + (number + 1) + " --page-size " + size;
+        return describe(next);
+    }
+
+    /**
+     * Function to describe where the page of a query's results sits and how to see the next one.
+     *
+     * @param command the query that gave the results, without page options, e.g. "find book"
+     * @return e.g. "Page 2 of 5. Type "find book --page 3" for the next page.", or an empty string if the
+     *         results fit one page
+     */
+    public String footer(String command) {
+        String next = size == DEFAULT_SIZE
+                ? command + " --page " + (number + 1)
+                : command + " --page " + (number + 1) + " --page-size " + size;
+        return describe(next);
+    }
+
+    /**
+     * Function to describe where the page sits, followed by the command for the next page if there is one.
+     *
+     * @param next the command that shows the next page
+     * @return the description, or an empty string if everything fits one page
+     */
+    private String describe(String next) {
+        int count = getCount();
+        if (count == 1) {
+            return "";
+        }
+        String position = "Page " + number + " of " + count + ".";
+        if (number >= count) {
+            return position;
+        }
+        return position + " Type \"" + next + "\" for the next page.";
+    }
+}
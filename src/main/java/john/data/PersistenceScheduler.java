@@ -0,0 +1,420 @@
+package john.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import john.tasks.Task;
+
+/**
+ * Class to persist task list mutations on a writer thread, so that commands return without waiting for the disk.
+ * Writes run as tasks on a scheduled executor, either one owned by the scheduler or a pool shared by many
+ * schedulers, such as one per server session; a scheduler with nothing queued holds no thread.
+ * Mutations submitted while a write is in progress are coalesced into the next write, and a pending
+ * snapshot supersedes every journal entry queued before it. Likewise, a whole undo history supersedes every
+ * history delta queued before it, and both are written after the mutations queued with them.
+ * A write failure is reported by the next {@link #submit}, {@link #flush} or {@link #close} call, after
+ * which {@link #needsCompaction()} asks for a full snapshot so that no mutation is lost.
+ */
+public final class PersistenceScheduler implements AutoCloseable {
+    static final long IDLE_MILLIS = 200;
+    static final long MAX_DELAY_MILLIS = 2000;
+    private final Storage storage;
+    private final Durability durability;
+    private final ScheduledExecutorService writers;
+    private final boolean isOwningWriters;
+    private final Object lock = new Object();
+
+    // All fields below are guarded by lock
+    private List<JournalEntry> pending = new ArrayList<>();
+    private List<Task> pendingSnapshot;
+    private List<String> pendingHistory;
+    private List<String> pendingHistoryDeltas = new ArrayList<>();
+    private long firstPendingNanos;
+    private long lastSubmitNanos;
+    private long submitted; // submissions so far
+    private long taken; // submissions handed to the writer
+    private long written; // submissions covered by a finished write
+    private long flushTarget;
+    private boolean isWriting;
+    private ScheduledFuture<?> wakeup; // the next delayed drain, if one is scheduled
+    private int journalLength;
+    private boolean isDirty;
+    private boolean isClosed;
+    private IOException failure;
+
+    /**
+     * Enum to choose when submitted mutations reach the disk.
+     */
+    public enum Durability {
+        /** Write in the background as soon as the writer is free. */
+        ASYNC,
+        /** Write in the background once submissions pause, or at the latest after a bounded delay. */
+        ON_IDLE,
+        /** Block every submission until it has been written and forced to the storage device. */
+        SYNC
+    }
+
+    /**
+     * Function to create a scheduler for a storage with a writer thread of its own, which is stopped by
+     * {@link #close()}. The storage must not be written to by anything else while the scheduler is open.
+     *
+     * @param storage    the storage to write to
+     * @param durability when submitted mutations are written
+     */
+    public PersistenceScheduler(Storage storage, Durability durability) {
+        this(storage, durability, newWriterPool(1), true);
+    }
+
+    /**
+     * Function to create a scheduler for a storage that writes on a shared pool, such as one from
+     * {@link #newWriterPool(int)}. The pool is not shut down by {@link #close()}.
+     * The storage must not be written to by anything else while the scheduler is open.
+     *
+     * @param storage    the storage to write to
+     * @param durability when submitted mutations are written
+     * @param writers    the pool to write on
+     */
+    public PersistenceScheduler(Storage storage, Durability durability, ScheduledExecutorService writers) {
+        this(storage, durability, Objects.requireNonNull(writers, "writers must not be null"), false);
+    }
+
+    private PersistenceScheduler(Storage storage, Durability durability, ScheduledExecutorService writers,
+            boolean isOwningWriters) {
+        this.storage = Objects.requireNonNull(storage, "storage must not be null");
+        this.durability = Objects.requireNonNull(durability, "durability must not be null");
+        storage.withFsync(durability == Durability.SYNC).withDirectoryFsync(durability == Durability.SYNC);
+        this.journalLength = storage.getJournalSize();
+        this.writers = writers;
+        this.isOwningWriters = isOwningWriters;
+    }
+
+    /**
+     * Function to create a pool of daemon writer threads that schedulers can share.
+     *
+     * @param threads the number of writer threads
+     * @return the pool, which its creator shuts down once every scheduler using it is closed
+     */
+    public static ScheduledExecutorService newWriterPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, "john-storage-writer-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.setRemoveOnCancelPolicy(true);
+        return pool;
+    }
+
+    /**
+     * Function to queue a single mutation for the journal.
+     *
+     * @param entry the mutation that was just applied to the task list
+     * @throws IOException if an earlier write failed, or this write failed in {@link Durability#SYNC} mode
+     */
+    public void submit(JournalEntry entry) throws IOException {
+        Objects.requireNonNull(entry, "entry must not be null");
+        synchronized (lock) {
+            ensureOpen();
+            pending.add(entry);
+            journalLength++;
+            enqueued();
+        }
+        awaitIfSync();
+    }
+
+    /**
+     * Function to queue a full snapshot, replacing every queued journal entry.
+     *
+     * @param tasks a copy of the task list that the caller will not modify
+     * @throws IOException if an earlier write failed, or this write failed in {@link Durability#SYNC} mode
+     */
+    public void submitSnapshot(List<Task> tasks) throws IOException {
+        Objects.requireNonNull(tasks, "tasks must not be null");
+        synchronized (lock) {
+            ensureOpen();
+            pending = new ArrayList<>();
+            pendingSnapshot = tasks;
+            journalLength = 0;
+            isDirty = false;
+            enqueued();
+        }
+        awaitIfSync();
+    }
+
+    /**
+     * Function to queue the whole undo history to replace the saved one, superseding any history or
+     * history deltas queued before it. Meant to go with a snapshot, so that the saved history stays short.
+     *
+     * @param lines the encoded history, which the caller will not modify
+     * @throws IOException if an earlier write failed, or this write failed in {@link Durability#SYNC} mode
+     */
+    public void submitHistory(List<String> lines) throws IOException {
+        Objects.requireNonNull(lines, "lines must not be null");
+        synchronized (lock) {
+            ensureOpen();
+            pendingHistory = lines;
+            pendingHistoryDeltas = new ArrayList<>();
+            enqueued();
+        }
+        awaitIfSync();
+    }
+
+    /**
+     * Function to queue undo history deltas to be appended to the saved history.
+     *
+     * @param lines the delta lines, oldest first
+     * @throws IOException if an earlier write failed, or this write failed in {@link Durability#SYNC} mode
+     */
+    public void submitHistoryDeltas(List<String> lines) throws IOException {
+        Objects.requireNonNull(lines, "lines must not be null");
+        if (lines.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            ensureOpen();
+            pendingHistoryDeltas.addAll(lines);
+            enqueued();
+        }
+        awaitIfSync();
+    }
+
+    /**
+     * Function to check whether the next mutation should be submitted as a full snapshot instead,
+     * either because the journal has grown past the storage threshold or because a write failed.
+     *
+     * @return true if a snapshot should be submitted
+     */
+    public boolean needsCompaction() {
+        synchronized (lock) {
+            int threshold = storage.getCompactThreshold();
+            return isDirty || (threshold > 0 && journalLength >= threshold);
+        }
+    }
+
+    /**
+     * Function to wait until everything submitted so far has been written.
+     *
+     * @throws IOException if a write failed
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            awaitWritten(submitted);
+            rethrowFailure();
+        }
+    }
+
+    /**
+     * Function to write everything still queued and, if the writer pool is its own, shut it down.
+     * Closing an already closed scheduler has no effect.
+     *
+     * @throws IOException if a write failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            isClosed = true;
+            awaitWritten(submitted);
+        }
+        if (isOwningWriters) {
+            writers.shutdown();
+        }
+        synchronized (lock) {
+            rethrowFailure();
+        }
+    }
+
+    /**
+     * Function to reject submissions after {@link #close()}.
+     */
+    private void ensureOpen() {
+        if (isClosed) {
+            throw new IllegalStateException("Persistence scheduler is closed");
+        }
+    }
+
+    /**
+     * Function to record a submission and wake the writer.
+     */
+    private void enqueued() {
+        long now = System.nanoTime();
+        if (submitted == taken) {
+            firstPendingNanos = now;
+        }
+        lastSubmitNanos = now;
+        submitted++;
+        if (!isWriting && wakeup == null) {
+            wake();
+        }
+    }
+
+    /**
+     * Function to run a drain on the writer pool now, holding the lock. If the pool no longer accepts tasks,
+     * the drain runs on the calling thread instead, so that nothing queued is lost.
+     */
+    private void wake() {
+        try {
+            writers.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drain();
+        }
+    }
+
+    /**
+     * Function to block until the latest submission is written, in {@link Durability#SYNC} mode only.
+     * Otherwise, only a failure of an earlier write is reported.
+     *
+     * @throws IOException if a write failed
+     */
+    private void awaitIfSync() throws IOException {
+        synchronized (lock) {
+            if (durability == Durability.SYNC) {
+                awaitWritten(submitted);
+            }
+            rethrowFailure();
+        }
+    }
+
+    /**
+     * Function to wait, holding the lock, until a number of submissions have been written.
+     *
+     * @param target the submission count to wait for
+     */
+    private void awaitWritten(long target) {
+        flushTarget = Math.max(flushTarget, target);
+        if (written < target && !isWriting) {
+            wake(); // writes what an idle delay was holding back
+        }
+        boolean isInterrupted = false;
+        while (written < target) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Function to report, once, a failure recorded by a write.
+     *
+     * @throws IOException the recorded failure
+     */
+    private void rethrowFailure() throws IOException {
+        if (failure != null) {
+            IOException e = failure;
+            failure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Function to write whatever is due, repeating until nothing is, and then schedule itself for the time
+     * the next queued write falls due, if any. Only one drain writes at a time; any other returns at once.
+     */
+    private void drain() {
+        while (true) {
+            List<JournalEntry> batch;
+            List<Task> snapshot;
+            List<String> history;
+            List<String> historyDeltas;
+            long covered;
+            synchronized (lock) {
+                if (isWriting) {
+                    return;
+                }
+                if (wakeup != null) {
+                    wakeup.cancel(false);
+                    wakeup = null;
+                }
+                long waitMillis = millisUntilDue();
+                if (waitMillis != 0) {
+                    if (waitMillis > 0) {
+                        scheduleWakeup(waitMillis);
+                    }
+                    return;
+                }
+                isWriting = true;
+                batch = pending;
+                snapshot = pendingSnapshot;
+                history = pendingHistory;
+                historyDeltas = pendingHistoryDeltas;
+                covered = submitted;
+                taken = submitted;
+                pending = new ArrayList<>();
+                pendingSnapshot = null;
+                pendingHistory = null;
+                pendingHistoryDeltas = new ArrayList<>();
+            }
+
+            IOException error = null;
+            try {
+                if (snapshot != null) {
+                    storage.save(snapshot);
+                }
+                storage.appendAll(batch);
+                if (history != null) {
+                    storage.saveHistory(history);
+                }
+                storage.appendHistory(historyDeltas);
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = new IOException("Unable to write tasks", e); // keeps waiters from blocking forever
+            }
+
+            synchronized (lock) {
+                if (error != null) {
+                    failure = error;
+                    isDirty = true;
+                }
+                isWriting = false;
+                written = covered;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Function to schedule the next drain, holding the lock. If the pool no longer accepts tasks, the queued
+     * write is left for the next {@link #flush} or {@link #close}, which runs it on the calling thread.
+     *
+     * @param delayMillis how long to wait before draining
+     */
+    private void scheduleWakeup(long delayMillis) {
+        try {
+            wakeup = writers.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            wakeup = null;
+        }
+    }
+
+    /**
+     * Function to decide, holding the lock, how long the writer should wait before its next write.
+     *
+     * @return 0 to write now, a positive number of milliseconds to wait, or -1 if nothing is queued
+     */
+    private long millisUntilDue() {
+        if (taken == submitted) {
+            return -1;
+        }
+        if (durability != Durability.ON_IDLE || isClosed || flushTarget > taken) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long idleAt = lastSubmitNanos + IDLE_MILLIS * 1_000_000;
+        long capAt = firstPendingNanos + MAX_DELAY_MILLIS * 1_000_000;
+        long dueIn = Math.min(idleAt, capAt) - now;
+        return dueIn <= 0 ? 0 : Math.max(1, dueIn / 1_000_000);
+    }
+}
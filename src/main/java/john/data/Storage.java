@@ -1,18 +1,35 @@
 package john.data;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
+import john.metrics.Metrics;
 import john.tasks.Deadline;
 import john.tasks.Event;
 import john.tasks.Task;
@@ -21,11 +38,53 @@ import john.tasks.ToDo;
 /**
  * Class to help JohnChatBot manage its task history by storing them in the hard disk
  * The history will be stored as a txt file in ./data/johnChatBot.txt
+ * In journal mode, mutations are appended to ./data/johnChatBot.txt.journal and
+ * periodically compacted into the snapshot file.
+ * Snapshots are written in the selected {@link Format}; loading detects the format of the file,
+ * so switching formats migrates the file on the next save.
+ * Each snapshot is written to ./data/johnChatBot.txt.tmp and renamed over the old one, so a crash
+ * during a save leaves either the old or the new snapshot, never a mix of both.
+ * Every task is stored with its id, e.g. "T | Not Done | read book | #12"; files written before ids
+ * existed are given ids in list order and rewritten when they are loaded.
+ * The undo history is kept apart from the tasks, in ./data/johnChatBot.txt.history: the whole history as of
+ * the last snapshot, followed by one small delta per command, appended like journal records.
  */
 public class Storage {
+    // Number of journal records after which callers should compact the journal into the snapshot
+    public static final int DEFAULT_COMPACT_THRESHOLD = 1000;
     // Canonical storage format for all date-times: DD/MM/YYYY HHMM (single-digit day/month allowed)
     private static final DateTimeFormatter DMY_HM = DateTimeFormatter.ofPattern("d/M/yyyy HHmm");
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String HISTORY_SUFFIX = ".history";
+    // First journal line, "@ | <crc32 of snapshot>", ties the journal to the snapshot it extends
+    private static final char JOURNAL_HEADER = '@';
+    private static final String SEPARATOR = " | ";
+    // Longest id field that is read as an id; 18 digits always fit in a long
+    static final int MAX_ID_DIGITS = 18;
+    // Text snapshots smaller than this are decoded on one thread even with parallel load on
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+    // Bytes of a text snapshot read and decoded at a time by a columnar load
+    private static final int COLUMNAR_WINDOW = 1 << 20;
     private final Path file;
+    private final Path journal;
+    private final Path temp;
+    private final Path history;
+    private Format format = Format.TEXT;
+    private boolean isMapped;
+    private boolean isColumnar;
+    private boolean isStreamingDecoder = true;
+    private boolean isParallelLoad;
+    private boolean isFsync;
+    private boolean isDirectoryFsync;
+    private boolean isInPlaceSave;
+    private int compactThreshold; // 0 when journal mode is off
+    private int journalEntries;
+    private long snapshotChecksum;
+    private boolean isSnapshotKnown;
+    private boolean isJournalOpen;
+    private Metrics metrics;
 
     /**
      * Function to create a new instance of Storage
@@ -35,6 +94,174 @@ public class Storage {
     public Storage(Path file) {
         assert file != null : "Storage file path must not be null";
         this.file = file;
+        this.journal = file.resolveSibling(file.getFileName() + JOURNAL_SUFFIX);
+        this.temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        this.history = file.resolveSibling(file.getFileName() + HISTORY_SUFFIX);
+    }
+
+    /**
+     * Function to switch this storage to journal mode, where each mutation is appended
+     * to a journal file instead of rewriting the whole snapshot.
+     *
+     * @param compactThreshold number of journal records after which {@link #needsCompaction()} is true
+     * @return this storage, for chaining
+     */
+    public Storage withJournal(int compactThreshold) {
+        assert compactThreshold > 0 : "compactThreshold must be positive";
+        this.compactThreshold = compactThreshold;
+        return this;
+    }
+
+    /**
+     * Function to select the format that snapshots are written in.
+     * Existing files in either format can still be loaded, so this also migrates between formats.
+     *
+     * @param format the snapshot format to write
+     * @return this storage, for chaining
+     */
+    public Storage withFormat(Format format) {
+        this.format = Objects.requireNonNull(format, "format must not be null");
+        return this;
+    }
+
+    /**
+     * Function to load text snapshots lazily: the file is memory-mapped, only an offset table of its
+     * lines is built up front, and each task is decoded the first time it is accessed.
+     * Malformed lines are found and skipped while the table is built, so task positions never change later.
+     *
+     * @param isMapped true to memory-map text snapshots on load
+     * @return this storage, for chaining
+     */
+    public Storage withMappedLoad(boolean isMapped) {
+        this.isMapped = isMapped;
+        return this;
+    }
+
+    /**
+     * Function to load snapshots into a {@link ColumnarTaskList}, which holds tasks in primitive columns
+     * instead of one object per task. Text snapshots are read and decoded a window at a time, so neither
+     * the whole file nor every decoded task is ever held at once; binary snapshots are decoded whole and
+     * then copied into the columns. Takes precedence over {@link #withMappedLoad(boolean)}.
+     * The result is queried directly, since {@link TaskList} does not accept it; no front-end loads this way yet.
+     *
+     * @param isColumnar true to load into a {@link ColumnarTaskList}
+     * @return this storage, for chaining
+     */
+    public Storage withColumnarLoad(boolean isColumnar) {
+        this.isColumnar = isColumnar;
+        return this;
+    }
+
+    /**
+     * Function to choose how text snapshot lines are decoded.
+     * The streaming decoder scans each line once without regex or substrings; the original
+     * split-based parser is kept for comparison. Both accept and skip exactly the same lines.
+     *
+     * @param isStreaming true for the single-pass decoder, false for the regex-based parser
+     * @return this storage, for chaining
+     */
+    public Storage withStreamingDecoder(boolean isStreaming) {
+        this.isStreamingDecoder = isStreaming;
+        return this;
+    }
+
+    /**
+     * Function to decode large text snapshots on several threads. The file is split into chunks that
+     * end just after a line feed, the chunks are decoded on the common fork-join pool, and the tasks are
+     * joined back in file order, so the result, including which lines are skipped, is the same as
+     * decoding on one thread. Memory-mapped loads are not affected, since they decode lazily.
+     *
+     * @param isParallel true to decode text snapshots of at least 1 MiB in parallel
+     * @return this storage, for chaining
+     */
+    public Storage withParallelLoad(boolean isParallel) {
+        this.isParallelLoad = isParallel;
+        return this;
+    }
+
+    /**
+     * Function to force every snapshot and journal write to the storage device before it returns.
+     *
+     * @param isFsync true to call {@link FileChannel#force(boolean)} after each write
+     * @return this storage, for chaining
+     */
+    public Storage withFsync(boolean isFsync) {
+        this.isFsync = isFsync;
+        return this;
+    }
+
+    /**
+     * Function to also force the directory entry of a renamed snapshot to the storage device,
+     * so that the rename itself survives a power loss. Has no effect on platforms that cannot
+     * open a directory for syncing.
+     *
+     * @param isDirectoryFsync true to sync the parent directory after each snapshot rename
+     * @return this storage, for chaining
+     */
+    public Storage withDirectoryFsync(boolean isDirectoryFsync) {
+        this.isDirectoryFsync = isDirectoryFsync;
+        return this;
+    }
+
+    /**
+     * Function to write snapshots straight over the snapshot file, truncating it first, as saves did before
+     * they went through a temporary file. A crash during such a save can leave a cut-off snapshot, so this
+     * only exists to measure what atomic saves cost, e.g. in the storage benchmarks.
+     *
+     * @param isInPlaceSave true to overwrite the snapshot in place, without a temporary file or rename
+     * @return this storage, for chaining
+     */
+    public Storage withInPlaceSave(boolean isInPlaceSave) {
+        this.isInPlaceSave = isInPlaceSave;
+        return this;
+    }
+
+    /**
+     * Function to time every snapshot save and journal append, and count the bytes they write.
+     *
+     * @param metrics the metrics to record into, or null to stop recording
+     * @return this storage, for chaining
+     */
+    public Storage withMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Function to return the number of journal records written since the last snapshot.
+     *
+     * @return the journal length
+     */
+    public int getJournalSize() {
+        return journalEntries;
+    }
+
+    /**
+     * Function to return the journal length at which the journal should be compacted.
+     *
+     * @return the compaction threshold, or 0 when journal mode is off
+     */
+    public int getCompactThreshold() {
+        return compactThreshold;
+    }
+
+    /**
+     * Function to check whether this storage appends mutations to a journal.
+     *
+     * @return true if journal mode is on
+     */
+    public boolean isJournaled() {
+        return compactThreshold > 0;
+    }
+
+    /**
+     * Function to check whether the journal has grown enough that it should be compacted,
+     * i.e. the caller should {@link #save(List)} the full list.
+     *
+     * @return true if the journal holds at least the compaction threshold of records
+     */
+    public boolean needsCompaction() {
+        return isJournaled() && journalEntries >= compactThreshold;
     }
 
     /**
@@ -64,7 +291,7 @@ public class Storage {
 
     /**
      * Function to load the list of tasks from the .txt file into JohnChatBot,
-     * converts the tasks from string to Task
+     * converts the tasks from string to Task, then replays any journal records on top
      *
      * @return list of tasks
      * @throws IOException if the file cannot be read/created
@@ -74,28 +301,403 @@ public class Storage {
         if (file.getParent() != null) {
             Files.createDirectories(file.getParent());
         }
-        // Create and return empty list if file not found
+        recoverInterruptedSave();
+        // Create an empty snapshot if file not found; a journal may still hold records
         if (!Files.exists(file)) {
             Files.createFile(file);
-            return new ArrayList<>();
         }
 
-        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<Task> tasks = isColumnar ? loadColumnar() : isMapped ? loadMapped() : null;
+        if (tasks == null) {
+            byte[] bytes = Files.readAllBytes(file);
+            rememberSnapshot(checksum(bytes));
+            if (BinarySnapshot.isBinary(bytes)) {
+                tasks = BinarySnapshot.read(bytes);
+            } else if (isParallelLoad && bytes.length >= PARALLEL_THRESHOLD) {
+                tasks = decodeTextParallel(bytes, isStreamingDecoder);
+            } else {
+                tasks = decodeText(bytes, isStreamingDecoder);
+            }
+            if (isColumnar) {
+                tasks = new ColumnarTaskList(tasks);
+            }
+        }
+
+        boolean isMissingIds = replayJournal(tasks);
+        if (isMissingIds || !(tasks instanceof MappedTaskList)) {
+            tasks = assignMissingIds(tasks);
+        }
+        return tasks;
+    }
+
+    /**
+     * Function to give ids to tasks loaded from a file written before ids existed, and save them,
+     * so that the ids shown in this session are the ones loaded in the next.
+     *
+     * @param tasks the loaded tasks
+     * @return the same tasks, all with ids
+     * @throws IOException if the file with the new ids cannot be saved
+     */
+    private List<Task> assignMissingIds(List<Task> tasks) throws IOException {
+        long maxId = 0;
+        boolean isMissingIds = false;
+        for (Task t : tasks) {
+            maxId = Math.max(maxId, t.getId());
+            isMissingIds |= t.getId() == 0;
+        }
+        if (!isMissingIds) {
+            return tasks;
+        }
+        List<Task> all = tasks instanceof MappedTaskList ? new ArrayList<>(tasks) : tasks;
+        for (int i = 0; i < all.size(); i++) {
+            Task t = all.get(i);
+            if (t.getId() == 0) {
+                t.setId(++maxId);
+                all.set(i, t); // a ColumnarTaskList hands out detached views
+            }
+        }
+        save(all);
+        return all;
+    }
+
+    /**
+     * Function to clean up after a save that was interrupted before its rename.
+     * If the snapshot exists, the temporary file is an unfinished replacement for it and is discarded.
+     * If only the temporary file exists, the very first save was interrupted, and whatever it holds is
+     * kept; decoding skips a cut-off last record.
+     *
+     * @throws IOException if the temporary file cannot be removed or renamed
+     */
+    private void recoverInterruptedSave() throws IOException {
+        if (!Files.exists(temp)) {
+            return;
+        }
+        if (Files.exists(file)) {
+            Files.delete(temp);
+        } else {
+            replaceSnapshotWithTemp();
+        }
+    }
+
+    /**
+     * Function to decode a text snapshot into a columnar list, one window of whole lines at a time.
+     *
+     * @return the tasks, or {@code null} if the snapshot is binary and should be decoded whole instead
+     * @throws IOException if the file cannot be read
+     */
+    private List<Task> loadColumnar() throws IOException {
+        ColumnarTaskList tasks = new ColumnarTaskList();
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] window = in.readNBytes(COLUMNAR_WINDOW);
+            if (BinarySnapshot.isBinary(window)) {
+                return null;
+            }
+            crc.update(window);
+            int filled = window.length;
+            window = Arrays.copyOf(window, COLUMNAR_WINDOW);
+            while (true) {
+                int end = filled;
+                while (end > 0 && window[end - 1] != '\n') {
+                    end--;
+                }
+                decodeText(window, 0, end, isStreamingDecoder, tasks);
+                System.arraycopy(window, end, window, 0, filled - end);
+                filled -= end;
+                if (filled == window.length) {
+                    window = Arrays.copyOf(window, window.length * 2); // a line longer than the window
+                }
+                int n = in.readNBytes(window, filled, window.length - filled);
+                if (n == 0) {
+                    break;
+                }
+                crc.update(window, filled, n);
+                filled += n;
+            }
+            decodeText(window, 0, filled, isStreamingDecoder, tasks);
+        }
+        rememberSnapshot(crc.getValue());
+        return tasks;
+    }
+
+    /**
+     * Function to memory-map a text snapshot and return a lazily decoded view of it.
+     *
+     * @return the lazily decoded tasks, or {@code null} if the snapshot should be loaded eagerly instead
+     * @throws IOException if the file cannot be mapped
+     */
+    private List<Task> loadMapped() throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            byte[] head = new byte[Math.min(map.limit(), 8)];
+            map.get(0, head);
+            if (BinarySnapshot.isBinary(head)) {
+                return null;
+            }
+            MappedTaskList mapped = new MappedTaskList(map, isStreamingDecoder);
+            if (!mapped.hasAllIds()) {
+                return null; // Decode eagerly, then assign and save the missing ids
+            }
+            CRC32 crc = new CRC32();
+            crc.update(map.duplicate());
+            rememberSnapshot(crc.getValue());
+            return mapped;
+        }
+    }
+
+    /**
+     * Function to decode a text snapshot, skipping malformed lines.
+     *
+     * @param bytes       raw file contents
+     * @param isStreaming true to use {@link TaskLineDecoder}, false for {@link #parseTaskLine(String)}
+     * @return list of tasks
+     */
+    static List<Task> decodeText(byte[] bytes, boolean isStreaming) {
         List<Task> tasks = new ArrayList<>();
+        decodeText(bytes, 0, bytes.length, isStreaming, tasks);
+        return tasks;
+    }
 
-        for (String raw : lines) {
-            parseTaskLine(raw).ifPresent(tasks::add);
+    /**
+     * Function to decode a text snapshot on the common fork-join pool, skipping malformed lines.
+     * Chunks end just after a line feed byte, which never occurs inside a multi-byte UTF-8 character
+     * and keeps every "\r\n" whole, so each chunk holds exactly the lines the whole file would.
+     *
+     * @param bytes       raw file contents
+     * @param isStreaming true to use {@link TaskLineDecoder}, false for {@link #parseTaskLine(String)}
+     * @return list of tasks, in file order
+     */
+    static List<Task> decodeTextParallel(byte[] bytes, boolean isStreaming) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, bytes.length / (4 * parallelism));
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int at = 0;
+        while (bytes.length - at > chunkSize) {
+            int cut = at + chunkSize;
+            while (cut < bytes.length && bytes[cut - 1] != '\n') {
+                cut++;
+            }
+            bounds.add(cut);
+            at = cut;
+        }
+        if (at < bytes.length) {
+            bounds.add(bytes.length);
         }
 
+        List<List<Task>> chunks = IntStream.range(0, bounds.size() - 1).parallel()
+                .mapToObj(i -> {
+                    List<Task> chunk = new ArrayList<>();
+                    decodeText(bytes, bounds.get(i), bounds.get(i + 1), isStreaming, chunk);
+                    return chunk;
+                })
+                .toList();
+        List<Task> tasks = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+        chunks.forEach(tasks::addAll);
         return tasks;
     }
 
+    /**
+     * Function to decode the lines in a range of a text snapshot, skipping malformed lines.
+     *
+     * @param bytes       raw file contents
+     * @param from        offset of the first byte of the range, at the start of a line
+     * @param to          offset just past the range, at the start of a line or the end of the file
+     * @param isStreaming true to use {@link TaskLineDecoder}, false for {@link #parseTaskLine(String)}
+     * @param tasks       the list to add the decoded tasks to
+     */
+    private static void decodeText(byte[] bytes, int from, int to, boolean isStreaming, List<Task> tasks) {
+        String content = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        if (!isStreaming) {
+            content.lines().forEach(raw -> parseTaskLine(raw).ifPresent(tasks::add));
+            return;
+        }
+
+        // Same line terminators as String.lines(): "\n", "\r" and "\r\n"
+        int length = content.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && content.charAt(end) != '\n' && content.charAt(end) != '\r') {
+                end++;
+            }
+            Task t = TaskLineDecoder.decode(content, start, end);
+            if (t != null) {
+                tasks.add(t);
+            }
+            boolean isCrLf = end + 1 < length && content.charAt(end) == '\r' && content.charAt(end + 1) == '\n';
+            start = end + (isCrLf ? 2 : 1);
+        }
+    }
+
+    /**
+     * Function to apply the journal records that belong to the current snapshot.
+     * A journal written against an older snapshot is already contained in the snapshot and is discarded,
+     * as is a trailing record that was cut off by a crash.
+     *
+     * @param tasks the tasks decoded from the snapshot, updated in place
+     * @return true if a replayed task has no id, because the journal was written before ids existed
+     * @throws IOException if the journal cannot be read or cleaned up
+     */
+    private boolean replayJournal(List<Task> tasks) throws IOException {
+        if (!Files.exists(journal)) {
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(journal);
+        int end = lastNewline(bytes);
+        List<String> records = end < 0
+                ? List.of()
+                : new String(bytes, 0, end, StandardCharsets.UTF_8).lines().toList();
+
+        if (records.isEmpty() || !isHeaderFor(records.get(0), snapshotChecksum)) {
+            Files.delete(journal);
+            return false;
+        }
+        boolean isMissingIds = false;
+        for (int i = 1; i < records.size(); i++) {
+            if (applyRecord(records.get(i), tasks)) {
+                journalEntries++;
+                String record = records.get(i);
+                isMissingIds |= record.charAt(0) == JournalEntry.ADD && tasks.get(tasks.size() - 1).getId() == 0;
+            }
+        }
+        if (end + 1 < bytes.length) {
+            try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                ch.truncate(end + 1);
+            }
+        }
+        isJournalOpen = true;
+        return isMissingIds;
+    }
+
+    /**
+     * Function to find the last complete journal record.
+     *
+     * @param bytes raw journal content
+     * @return index of the last newline byte, or -1 if there is none
+     */
+    private static int lastNewline(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Function to check that a journal header line refers to the snapshot with the given checksum.
+     *
+     * @param line     first line of the journal
+     * @param checksum CRC32 of the snapshot file
+     * @return true if the journal extends that snapshot
+     */
+    private static boolean isHeaderFor(String line, long checksum) {
+        if (line.length() <= SEPARATOR.length() || line.charAt(0) != JOURNAL_HEADER) {
+            return false;
+        }
+        return line.substring(1 + SEPARATOR.length()).equals(Long.toHexString(checksum));
+    }
+
+    /**
+     * Function to apply one journal record to the list of tasks.
+     * Malformed records and out-of-range indexes are skipped, like malformed snapshot lines.
+     *
+     * @param record a journal line such as "A | T | Not Done | read book", "X | 3" or "I | 3 | T | Done | x | #4"
+     * @param tasks  the tasks to update
+     * @return true if the record was applied
+     */
+    private static boolean applyRecord(String record, List<Task> tasks) {
+        if (record.length() <= SEPARATOR.length() || !record.startsWith(SEPARATOR, 1)) {
+            return false;
+        }
+        String body = record.substring(1 + SEPARATOR.length());
+        char op = record.charAt(0);
+        if (op == JournalEntry.ADD) {
+            Optional<Task> t = parseTaskLine(body);
+            t.ifPresent(tasks::add);
+            return t.isPresent();
+        }
+        if (op == JournalEntry.INSERT) {
+            return applyInsert(body, tasks);
+        }
+
+        int idx;
+        try {
+            idx = Integer.parseInt(body.strip());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (idx < 0 || idx >= tasks.size()) {
+            return false;
+        }
+        switch (op) {
+        case JournalEntry.MARK -> setDone(tasks, idx, true);
+        case JournalEntry.UNMARK -> setDone(tasks, idx, false);
+        case JournalEntry.DELETE -> tasks.remove(idx);
+        default -> {
+            return false;
+        }
+        }
+        return true;
+    }
+
+    /**
+     * Function to mark or unmark a task in place, through the list if it hands out detached views.
+     *
+     * @param tasks  the tasks to update
+     * @param idx    the position of the task, in range
+     * @param isDone true to mark the task, false to unmark it
+     */
+    private static void setDone(List<Task> tasks, int idx, boolean isDone) {
+        if (tasks instanceof ColumnarTaskList columns) {
+            if (isDone) {
+                columns.mark(idx);
+            } else {
+                columns.unmark(idx);
+            }
+        } else if (isDone) {
+            tasks.get(idx).mark();
+        } else {
+            tasks.get(idx).unmark();
+        }
+    }
+
+    /**
+     * Function to apply the body of an insert record, "<index> | <task line>", to the list of tasks.
+     *
+     * @param body  the record after its operation code
+     * @param tasks the tasks to update
+     * @return true if the index was in range and the task could be decoded
+     */
+    private static boolean applyInsert(String body, List<Task> tasks) {
+        int split = body.indexOf(SEPARATOR);
+        if (split < 0) {
+            return false;
+        }
+        int idx;
+        try {
+            idx = Integer.parseInt(body.substring(0, split).strip());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        Optional<Task> t = parseTaskLine(body.substring(split + SEPARATOR.length()));
+        if (idx < 0 || idx > tasks.size() || t.isEmpty()) {
+            return false;
+        }
+        tasks.add(idx, t.get());
+        return true;
+    }
+
     /**
      * method to parse lines of Tasks (in String format) to conver to Task objects
      * @param raw lines in string, representing a Task
      * @return the Task Object obtained from converting the string
      */
-    private static Optional<Task> parseTaskLine(String raw) {
+    static Optional<Task> parseTaskLine(String raw) {
         if (raw == null) {
             return Optional.empty();
         }
@@ -110,6 +712,12 @@ public class Storage {
         }
 
         String type = parts[0].strip();
+        int fields = switch (type) {
+        case "D" -> 4;
+        case "E" -> 5;
+        default -> 3;
+        };
+        long id = parts.length > fields ? parseIdField(parts[parts.length - 1]) : 0;
         String status = parts[1].strip();
         String desc = parts[2].strip();
 
@@ -123,8 +731,33 @@ public class Storage {
         };
 
         task.ifPresent(t -> applyDoneFlag(t, isDone));
+        if (id > 0) {
+            task.ifPresent(t -> t.setId(id));
+        }
         return task;
     }
+
+    /**
+     * Function to read an id field such as "#12".
+     *
+     * @param field the last field of a task line, without surrounding spaces
+     * @return the id, or 0 if the field is not an id
+     */
+    static long parseIdField(String field) {
+        int digits = field.length() - 1;
+        if (digits < 1 || digits > MAX_ID_DIGITS || field.charAt(0) != '#') {
+            return 0;
+        }
+        long id = 0;
+        for (int i = 1; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
     /**
      * Function to decode a Todo in string representation (lines)
      * @param desc string for description of Todo
@@ -199,49 +832,260 @@ public class Storage {
     }
     /**
      * Function to save the current list of tasks in to the .txt file
-     * To be called from JohnChatBot.java after any mutation in the tasks
+     * To be called from JohnChatBot.java after any mutation in the tasks,
+     * or to compact the journal when in journal mode
      *
      * @param tasks list of tasks to persist
      * @throws IOException if writing fails
      */
     public void save(List<Task> tasks) throws IOException {
         Objects.requireNonNull(tasks, "tasks must not be null");
-
-        List<String> out = tasks.stream()
-                .map(Storage::encodeTaskLine)
-                .toList();
         assert tasks != null : "Tasks to be saved must not be null";
 
+        long start = startTimer();
+        ensureParentDir();
+        rememberSnapshot(writeSnapshot(tasks));
+        // The new snapshot already contains every journaled mutation
+        Files.deleteIfExists(journal);
+        journalEntries = 0;
+        isJournalOpen = false;
+        stopTimer(start);
+    }
+
+    /**
+     * Function to append a single mutation to the journal.
+     * The cost of this call does not depend on the number of tasks.
+     *
+     * @param entry the mutation that was just applied to the task list
+     * @throws IOException if writing fails
+     */
+    public void append(JournalEntry entry) throws IOException {
+        appendAll(List.of(Objects.requireNonNull(entry, "entry must not be null")));
+    }
+
+    /**
+     * Function to append several mutations to the journal with a single write.
+     *
+     * @param entries the mutations, in the order they were applied to the task list
+     * @throws IOException if writing fails
+     */
+    public void appendAll(List<JournalEntry> entries) throws IOException {
+        Objects.requireNonNull(entries, "entries must not be null");
+        if (entries.isEmpty()) {
+            return;
+        }
+        long start = startTimer();
+        if (!isSnapshotKnown) {
+            rememberSnapshot(checksum(Files.exists(file) ? Files.readAllBytes(file) : new byte[0]));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        if (!isJournalOpen) {
+            sb.append(JOURNAL_HEADER).append(SEPARATOR).append(Long.toHexString(snapshotChecksum)).append('\n');
+        }
+        for (JournalEntry entry : entries) {
+            sb.append(encodeRecord(entry)).append('\n');
+        }
+
+        ensureParentDir();
+        try (FileChannel ch = FileChannel.open(journal,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                isJournalOpen ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                ch.write(bytes);
+            }
+            if (isFsync) {
+                ch.force(false);
+            }
+            if (metrics != null) {
+                metrics.recordBytesWritten(bytes.limit());
+            }
+        }
+        isJournalOpen = true;
+        journalEntries += entries.size();
+        stopTimer(start);
+    }
+
+    /**
+     * Function to read the undo history written by {@link #saveHistory(List)} and {@link #appendHistory(List)}.
+     * A last line cut short by a crash during an append is left out and cut from the file, like a torn
+     * journal record, so that the next append starts on a line of its own.
+     *
+     * @return the saved lines, or an empty list if no history was saved
+     * @throws IOException if the history file exists but cannot be read or cleaned up
+     */
+    public List<String> loadHistory() throws IOException {
+        if (!Files.exists(history)) {
+            return List.of();
+        }
+        byte[] bytes = Files.readAllBytes(history);
+        int end = bytes.length - 1;
+        while (end >= 0 && bytes[end] != '\n') {
+            end--;
+        }
+        if (end + 1 < bytes.length) {
+            try (FileChannel ch = FileChannel.open(history, StandardOpenOption.WRITE)) {
+                ch.truncate(end + 1);
+            }
+        }
+        return new String(bytes, 0, end + 1, StandardCharsets.UTF_8).lines().toList();
+    }
+
+    /**
+     * Function to replace the saved undo history, together with every line appended to it. Like a snapshot,
+     * it is written to a temporary file that is renamed over the old one, so a crash leaves either the old or
+     * the new history. Callers do this when they compact the journal, so that the appended lines stay few.
+     * Like {@link #appendHistory(List)}, it is not timed as a save.
+     *
+     * @param lines the encoded history, one change per line
+     * @throws IOException if writing fails
+     */
+    public void saveHistory(List<String> lines) throws IOException {
+        Objects.requireNonNull(lines, "lines must not be null");
+        ensureParentDir();
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        Path historyTemp = history.resolveSibling(history.getFileName() + TEMP_SUFFIX);
+        try (FileChannel ch = FileChannel.open(historyTemp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                ch.write(bytes);
+            }
+            if (isFsync) {
+                ch.force(false);
+            }
+            if (metrics != null) {
+                metrics.recordBytesWritten(bytes.limit());
+            }
+        }
+        moveOver(historyTemp, history);
+    }
+
+    /**
+     * Function to append lines to the saved undo history with a single write, e.g. the deltas of one command.
+     * The cost of this call depends only on the number of lines.
+     *
+     * @param lines the lines to append, each without a line terminator
+     * @throws IOException if writing fails
+     */
+    public void appendHistory(List<String> lines) throws IOException {
+        Objects.requireNonNull(lines, "lines must not be null");
+        if (lines.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
         ensureParentDir();
-        writeLines(out);
+        try (FileChannel ch = FileChannel.open(history,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                ch.write(bytes);
+            }
+            if (isFsync) {
+                ch.force(false);
+            }
+            if (metrics != null) {
+                metrics.recordBytesWritten(bytes.limit());
+            }
+        }
+    }
+
+    /**
+     * Function to read the clock if a save is to be timed.
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if metrics are off
+     */
+    private long startTimer() {
+        return metrics != null && metrics.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Function to record the time since {@link #startTimer()} as a save.
+     *
+     * @param start the value returned by {@link #startTimer()}
+     */
+    private void stopTimer(long start) {
+        if (start != 0) {
+            metrics.recordLatency(Metrics.Phase.SAVE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Method to encode a journal entry as a single line
+     * @param entry the entry to encode
+     * @return the journal line, without a line terminator
+     */
+    private static String encodeRecord(JournalEntry entry) {
+        String body = switch (entry.getOp()) {
+        case JournalEntry.ADD -> entry.getTaskLine();
+        case JournalEntry.INSERT -> entry.getIndex() + SEPARATOR + entry.getTaskLine();
+        default -> Integer.toString(entry.getIndex());
+        };
+        return entry.getOp() + SEPARATOR + body;
+    }
+
+    /**
+     * Function to remember which snapshot the journal extends.
+     *
+     * @param checksum CRC32 of the snapshot file contents
+     */
+    private void rememberSnapshot(long checksum) {
+        snapshotChecksum = checksum;
+        isSnapshotKnown = true;
+    }
+
+    /**
+     * Function to compute the CRC32 of a byte array.
+     *
+     * @param bytes the bytes to check
+     * @return the CRC32 value
+     */
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
     }
     /**
      * Method to encode a task by converting it to string to be written onto a file
      * @param t a Task to be converted
      * @return A string to be written into the file
      */
-    private static String encodeTaskLine(Task t) {
+    static String encodeTaskLine(Task t) {
         Objects.requireNonNull(t, "task must not be null");
         String status = t.getIsDone() ? "Done" : "Not Done";
+        String line;
 
         if (t instanceof Deadline d) {
-            return String.join(" | ",
+            line = String.join(" | ",
                     "D",
                     status,
                     d.getDesc(),
                     "By: " + d.getBy().format(DMY_HM)
             );
-        }
-        if (t instanceof Event e) {
-            return String.join(" | ",
+        } else if (t instanceof Event e) {
+            line = String.join(" | ",
                     "E",
                     status,
                     e.getDesc(),
                     "From: " + e.getFrom().format(DMY_HM),
                     "To: " + e.getTo().format(DMY_HM)
             );
+        } else {
+            line = String.join(" | ", "T", status, t.getDesc());
         }
-        return String.join(" | ", "T", status, t.getDesc());
+        return t.getId() > 0 ? line + SEPARATOR + "#" + t.getId() : line;
     }
     /**
      * method to check if the directory exists, creates one otherwise
@@ -254,19 +1098,104 @@ public class Storage {
         }
     }
     /**
-     * Method for file writing to write new lines on the file
-     * @param out a list of strings to write
+     * Method for file writing to replace the snapshot with the given tasks in the selected format.
+     * The tasks are written to a temporary sibling which is then renamed over the snapshot.
+     * @param tasks the tasks to write
+     * @return the CRC32 of the bytes written
      * @throws IOException if there is invalid input
      */
-    private void writeLines(List<String> out) throws IOException {
-        Files.write(
-                file,
-                out,
-                StandardCharsets.UTF_8,
+    private long writeSnapshot(List<Task> tasks) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel ch = FileChannel.open(isInPlaceSave ? file : temp,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.TRUNCATE_EXISTING,
-                StandardOpenOption.WRITE
-        );
+                StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(ch), crc));
+            if (format == Format.BINARY) {
+                BinarySnapshot.write(tasks, out);
+            } else {
+                writeLines(tasks, out);
+            }
+            out.flush();
+            if (isFsync) {
+                ch.force(true);
+            }
+            if (metrics != null) {
+                metrics.recordBytesWritten(ch.size());
+            }
+        }
+        if (isInPlaceSave) {
+            return crc.getValue();
+        }
+        replaceSnapshotWithTemp();
+        if (isDirectoryFsync) {
+            syncParentDir();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Method to rename the temporary file over the snapshot, atomically where the file system allows it
+     * @throws IOException if the rename fails
+     */
+    private void replaceSnapshotWithTemp() throws IOException {
+        moveOver(temp, file);
+    }
+
+    /**
+     * Method to rename a file over another, atomically where the file system allows it
+     * @param source the file to rename
+     * @param target the file to replace
+     * @throws IOException if the rename fails
+     */
+    private static void moveOver(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Method to force the parent directory, and with it the latest rename, to the storage device
+     * @throws IOException if the directory can be opened but not synced
+     */
+    private void syncParentDir() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        FileChannel dir;
+        try {
+            dir = FileChannel.open(parent, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return; // Some platforms, e.g. Windows, cannot open a directory; skip the sync there
+        }
+        try (dir) {
+            dir.force(true);
+        }
+    }
+
+    /**
+     * Method to write tasks in the text format, one line per task
+     * @param tasks the tasks to write
+     * @param out the stream to write to; it is flushed but not closed
+     * @throws IOException if writing fails
+     */
+    private static void writeLines(List<Task> tasks, OutputStream out) throws IOException {
+        BufferedWriter w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (Task t : tasks) {
+            w.write(encodeTaskLine(t));
+            w.newLine();
+        }
+        w.flush();
+    }
+
+    /**
+     * Formats that snapshots can be written in.
+     */
+    public enum Format {
+        // Human-readable lines such as "D | Not Done | return book | By: 28/8/2025 1800"
+        TEXT,
+        // Compact records with a versioned header, see BinarySnapshot
+        BINARY
     }
 
 }
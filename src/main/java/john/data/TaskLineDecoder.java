@@ -0,0 +1,273 @@
+package john.data;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to decode text snapshot lines in a single pass over the characters, without regex splitting,
+ * intermediate substrings or DateTimeFormatter.
+ * It recognises the canonical "T/D/E | Done | desc | By: d/M/yyyy HHmm | #id" grammar directly; any line it
+ * cannot decode with certainty is handed to {@link Storage#parseTaskLine(String)}, so both paths accept
+ * and reject exactly the same lines.
+ */
+final class TaskLineDecoder {
+    // Stands for "this line is canonical" when a line is only checked; never added to a list
+    private static final Task CANONICAL = new ToDo("canonical");
+
+    private TaskLineDecoder() {
+    }
+
+    /**
+     * Function to decode the line between two offsets of a character sequence.
+     *
+     * @param text  the text holding the line
+     * @param start offset of the first character of the line
+     * @param end   offset just past the last character of the line, excluding the terminator
+     * @return the decoded task, or {@code null} if the line is blank or malformed
+     */
+    static Task decode(CharSequence text, int start, int end) {
+        return decode(text, start, end, true);
+    }
+
+    /**
+     * Function to check that a line is in the canonical grammar, so that {@link #decode} is certain to
+     * decode it without the fallback. Nothing is allocated for the task itself.
+     *
+     * @param text  the text holding the line
+     * @param start offset of the first character of the line
+     * @param end   offset just past the last character of the line, excluding the terminator
+     * @return true if the line decodes to a task on the single-pass path
+     */
+    static boolean isCanonical(CharSequence text, int start, int end) {
+        return decode(text, start, end, false) != null;
+    }
+
+    /**
+     * Function to decode a line, or only check that it is canonical.
+     *
+     * @param text       the text holding the line
+     * @param start      offset of the first character of the line
+     * @param end        offset just past the last character of the line, excluding the terminator
+     * @param isBuilding false to stop before building the task, returning {@link #CANONICAL} instead
+     * @return the decoded task, {@link #CANONICAL} for a canonical line when not building, or {@code null}
+     */
+    private static Task decode(CharSequence text, int start, int end, boolean isBuilding) {
+        // Only plain spaces may separate fields; other whitespace goes through the regex path
+        int lo = start;
+        int hi = end;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < ' ' || (c > '~' && Character.isWhitespace(c))) {
+                return fallback(text, start, end, isBuilding);
+            }
+        }
+        lo = skipSpaces(text, lo, hi);
+        hi = trimSpaces(text, lo, hi);
+        if (lo == hi) {
+            return null;
+        }
+
+        int[] pipes = new int[5];
+        int count = 0;
+        for (int i = lo; i < hi; i++) {
+            if (text.charAt(i) == '|') {
+                if (count == pipes.length) {
+                    return fallback(text, start, end, isBuilding);
+                }
+                pipes[count++] = i;
+            }
+        }
+        if (count < 2 || trimSpaces(text, lo, pipes[0]) != lo + 1) {
+            return fallback(text, start, end, isBuilding);
+        }
+        char type = text.charAt(lo);
+        int expected = type == 'T' ? 2 : type == 'D' ? 3 : type == 'E' ? 4 : -1;
+        long id = 0;
+        if (expected > 0 && count == expected + 1) {
+            // One extra field: the id, which ends the line
+            int idLo = skipSpaces(text, pipes[expected] + 1, hi);
+            id = Storage.parseIdField(text.subSequence(idLo, hi).toString());
+            if (id == 0) {
+                return fallback(text, start, end, isBuilding);
+            }
+            hi = trimSpaces(text, lo, pipes[expected]);
+            count = expected;
+        }
+        if (count != expected) {
+            return fallback(text, start, end, isBuilding);
+        }
+
+        boolean isDone = fieldEqualsIgnoreCase(text, pipes[0] + 1, pipes[1], "Done");
+        int descEnd = count > 2 ? pipes[2] : hi;
+        int descLo = skipSpaces(text, pipes[1] + 1, descEnd);
+        int descHi = trimSpaces(text, descLo, descEnd);
+        if (descLo == descHi) {
+            return fallback(text, start, end, isBuilding);
+        }
+        String desc = isBuilding ? text.subSequence(descLo, descHi).toString() : null;
+
+        Task t;
+        if (type == 'T') {
+            t = isBuilding ? new ToDo(desc) : CANONICAL;
+        } else if (type == 'D') {
+            LocalDateTime by = parseDate(text, pipes[2] + 1, hi, "By");
+            if (by == null) {
+                return fallback(text, start, end, isBuilding);
+            }
+            t = isBuilding ? new Deadline(desc, by) : CANONICAL;
+        } else {
+            LocalDateTime from = parseDate(text, pipes[2] + 1, pipes[3], "From");
+            LocalDateTime to = parseDate(text, pipes[3] + 1, hi, "To");
+            if (from == null || to == null) {
+                return fallback(text, start, end, isBuilding);
+            }
+            t = isBuilding ? new Event(desc, from, to) : CANONICAL;
+        }
+        if (!isBuilding) {
+            return t;
+        }
+        if (isDone) {
+            t.mark();
+        }
+        if (id > 0) {
+            t.setId(id);
+        }
+        return t;
+    }
+
+    /**
+     * Function to decode a line with the original regex-based parser.
+     *
+     * @param text       the text holding the line
+     * @param start      offset of the first character of the line
+     * @param end        offset just past the last character of the line
+     * @param isBuilding false if only checking whether the line is canonical, which it is not
+     * @return the decoded task, or {@code null} if the line is blank or malformed or only being checked
+     */
+    private static Task fallback(CharSequence text, int start, int end, boolean isBuilding) {
+        return isBuilding ? Storage.parseTaskLine(text.subSequence(start, end).toString()).orElse(null) : null;
+    }
+
+    /**
+     * Function to parse an optionally labelled "d/M/yyyy HHmm" field, e.g. "By: 28/8/2025 1800".
+     * Only unambiguous values are accepted; anything else returns {@code null} for the fallback to judge.
+     *
+     * @param text  the text holding the field
+     * @param lo    offset of the first character of the field
+     * @param hi    offset just past the field
+     * @param label the optional label in front of the date
+     * @return the date-time, or {@code null} if the field is not a plainly valid date-time
+     */
+    private static LocalDateTime parseDate(CharSequence text, int lo, int hi, String label) {
+        lo = skipSpaces(text, lo, hi);
+        hi = trimSpaces(text, lo, hi);
+        if (regionMatchesIgnoreCase(text, lo, hi, label)) {
+            lo = skipSpaces(text, lo + label.length(), hi);
+            if (lo < hi && text.charAt(lo) == ':') {
+                lo = skipSpaces(text, lo + 1, hi);
+            }
+        }
+
+        int p = lo;
+        int dayEnd = digitsEnd(text, p, hi, 2);
+        if (dayEnd == p || dayEnd >= hi || text.charAt(dayEnd) != '/') {
+            return null;
+        }
+        int day = number(text, p, dayEnd);
+        p = dayEnd + 1;
+        int monthEnd = digitsEnd(text, p, hi, 2);
+        if (monthEnd == p || monthEnd >= hi || text.charAt(monthEnd) != '/') {
+            return null;
+        }
+        int month = number(text, p, monthEnd);
+        p = monthEnd + 1;
+        if (hi - p != 9 || digitsEnd(text, p, p + 4, 4) != p + 4 || text.charAt(p + 4) != ' '
+                || digitsEnd(text, p + 5, hi, 4) != hi) {
+            return null;
+        }
+        int year = number(text, p, p + 4);
+        int hour = number(text, p + 5, p + 7);
+        int minute = number(text, p + 7, p + 9);
+
+        if (year < 1 || month < 1 || month > 12 || hour > 23 || minute > 59
+                || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    /**
+     * Function to find the end of a run of at most {@code max} ASCII digits.
+     */
+    private static int digitsEnd(CharSequence text, int lo, int hi, int max) {
+        int i = lo;
+        while (i < hi && i - lo < max && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Function to read the ASCII digits between two offsets as a number.
+     */
+    private static int number(CharSequence text, int lo, int hi) {
+        int n = 0;
+        for (int i = lo; i < hi; i++) {
+            n = n * 10 + (text.charAt(i) - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Function to check whether a field, ignoring surrounding spaces, equals a word ignoring case.
+     */
+    private static boolean fieldEqualsIgnoreCase(CharSequence text, int lo, int hi, String word) {
+        lo = skipSpaces(text, lo, hi);
+        hi = trimSpaces(text, lo, hi);
+        return hi - lo == word.length() && regionMatchesIgnoreCase(text, lo, hi, word);
+    }
+
+    /**
+     * Function to check whether the text at an offset starts with a word, ignoring case.
+     */
+    private static boolean regionMatchesIgnoreCase(CharSequence text, int lo, int hi, String word) {
+        if (hi - lo < word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char a = text.charAt(lo + i);
+            char b = word.charAt(i);
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)
+                    && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to skip spaces forwards from an offset.
+     */
+    private static int skipSpaces(CharSequence text, int lo, int hi) {
+        while (lo < hi && text.charAt(lo) == ' ') {
+            lo++;
+        }
+        return lo;
+    }
+
+    /**
+     * Function to skip spaces backwards from an end offset.
+     */
+    private static int trimSpaces(CharSequence text, int lo, int hi) {
+        while (hi > lo && text.charAt(hi - 1) == ' ') {
+            hi--;
+        }
+        return hi;
+    }
+}
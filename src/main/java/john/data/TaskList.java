@@ -1,9 +1,17 @@
 package john.data;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 import john.tasks.Deadline;
 import john.tasks.Event;
@@ -11,25 +19,80 @@ import john.tasks.Task;
 
 /**
  * Class to wrap and manage the list of tasks, providing operations to mutate and access tasks.
+ * Every task gets a stable id when it is added, and can be looked up by id in O(1).
+ * Deleting a task leaves an empty slot instead of shifting every later task; once a quarter of the slots
+ * are empty they are compacted in one pass, so a delete costs O(log n) amortised.
  */
 public class TaskList {
-    private final List<Task> tasks;
+    static final int COMPACT_MIN = 64;
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+    private static final int MIN_CHUNK_SIZE = 4096;
+    // Number of lazily loaded tasks decoded together by a search that runs before the indexes are built
+    private static final int DECODE_BATCH = 4096;
+    private List<Task> tasks; // one slot per task; null marks a deleted task until the next compaction
+    // Sequence number of every task, in list order; appended tasks get the next one, inserted tasks one in between
+    private final Map<Task, Long> sequence = new IdentityHashMap<>();
+    private final KeywordIndex keywords = new KeywordIndex();
+    private final TimeIndex deadlines = new TimeIndex(t -> t instanceof Deadline d ? d.getBy() : null);
+    private final TimeIndex events = new TimeIndex(t -> t instanceof Event e ? e.getFrom() : null);
+    private final IntervalIndex eventSpans = new IntervalIndex();
+    private final LongIntMap slotsById = new LongIntMap();
+    private LiveSlots live; // translates positions to slots while there are empty slots, null otherwise
+    private int emptySlots;
+    private long nextSequence;
+    private long nextId = 1;
+    private boolean isIndexed;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
     /**
      * Function to construct an empty task list.
      */
     public TaskList() {
         this.tasks = new ArrayList<>();
+        this.isIndexed = true;
     }
 
     /**
      * Function to construct a task list from an existing list of tasks.
+     * A lazily decoded list from {@link Storage#withMappedLoad(boolean)} is adopted as-is,
+     * and its secondary indexes are only built when a query first needs them.
+     * Tasks without an id are given one, in list order, after the highest id in the list.
+     * A {@link ColumnarTaskList} is refused, since copying it would turn every row back into a task object.
      *
      * @param tasks the initial list of tasks to load into the task list
+     * @throws IllegalArgumentException if the tasks are a {@link ColumnarTaskList}
      */
     public TaskList(List<Task> tasks) {
         assert tasks != null : "tasks cannot be null";
-        this.tasks = new ArrayList<>(tasks);
+        if (tasks instanceof ColumnarTaskList) {
+            throw new IllegalArgumentException("A ColumnarTaskList is queried directly, not wrapped in a TaskList");
+        }
+        if (tasks instanceof MappedTaskList mapped) {
+            this.tasks = tasks;
+            this.nextId = mapped.maxId() + 1;
+        } else {
+            this.tasks = new ArrayList<>(tasks);
+            for (Task t : tasks) {
+                nextId = Math.max(nextId, t.getId() + 1);
+            }
+            ensureIndexed();
+        }
+    }
+
+    /**
+     * Function to set how many tasks a query must look at before it is split across the common fork-join pool.
+     * Scans by {@link #find(String)} and the sorted views test runs of slots in parallel,
+     * and large keyword hit sets are put back in list order with {@link Arrays#parallelSort(long[])};
+     * results are in exactly the same order as on one thread. Below the threshold, which defaults to
+     * {@value #DEFAULT_PARALLEL_THRESHOLD}, the cheaper sequential path is used.
+     *
+     * @param threshold the smallest number of tasks to process in parallel; {@link Integer#MAX_VALUE} disables it
+     * @return this task list, for chaining
+     */
+    public TaskList withParallelThreshold(int threshold) {
+        assert threshold >= 0 : "threshold cannot be negative";
+        this.parallelThreshold = threshold;
+        return this;
     }
 
     /**
@@ -38,7 +101,7 @@ public class TaskList {
      * @return number of tasks
      */
     public int size() {
-        return tasks.size();
+        return tasks.size() - emptySlots;
     }
 
     /**
@@ -48,26 +111,251 @@ public class TaskList {
      * @return the task at the index
      */
     public Task get(int index) {
-        return tasks.get(index);
+        return tasks.get(slotOf(index));
     }
 
     /**
-     * Function to add a task to the list.
+     * Function to find the position of a task by its id.
+     *
+     * @param id the id of the task
+     * @return the zero-based index of the task, or -1 if no task in the list has that id
+     */
+    public int indexOfId(long id) {
+        ensureIndexed();
+        int slot = id > 0 ? slotsById.get(id) : LongIntMap.MISSING;
+        if (slot == LongIntMap.MISSING) {
+            return -1;
+        }
+        return live == null ? slot : live.rank(slot);
+    }
+
+    /**
+     * Function to add a task to the list, giving it the next id if it has none.
      *
      * @param t the task to add
      */
     public void add(Task t) {
+        if (t.getId() == 0) {
+            t.setId(nextId);
+        }
+        nextId = Math.max(nextId, t.getId() + 1);
         tasks.add(t);
+        if (live != null) {
+            live.append();
+        }
+        if (isIndexed) {
+            index(t, tasks.size() - 1);
+        }
+    }
+
+    /**
+     * Function to put a task at a position, moving the task there and every later task down by one,
+     * e.g. to undo a delete. The task keeps its id, or is given the next id if it has none.
+     * If the slot before the task at that position is empty, as it is straight after the delete being undone,
+     * the task goes into it in O(log n); otherwise the slots from there on are shifted and renumbered in O(n).
+     *
+     * @param index zero-based position, from 0 to {@link #size()}
+     * @param t     the task to insert
+     */
+    public void insert(int index, Task t) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (index == size()) {
+            add(t);
+            return;
+        }
+        ensureIndexed();
+        if (t.getId() == 0) {
+            t.setId(nextId);
+        }
+        nextId = Math.max(nextId, t.getId() + 1);
+        int slot = slotOf(index);
+        long seq = sequenceBefore(index, slot);
+        if (slot > 0 && tasks.get(slot - 1) == null) {
+            tasks.set(slot - 1, t);
+            live.restore(slot - 1);
+            emptySlots--;
+            index(t, slot - 1, seq);
+        } else {
+            tasks.add(slot, t);
+            index(t, slot, seq);
+            compact(); // renumbers the slots of every task after the new one
+        }
+    }
+
+    /**
+     * Function to pick the sequence number of a task inserted at a position, between those of its neighbours.
+     * If there is no number left between them, every sequence number is spread out first.
+     *
+     * @param index zero-based position of the insert, below {@link #size()}
+     * @param slot  the slot of the task now at that position
+     * @return a sequence number above the previous task's and below the next task's
+     */
+    private long sequenceBefore(int index, int slot) {
+        long before = index == 0 ? -1 : sequence.get(get(index - 1));
+        long after = sequence.get(tasks.get(slot));
+        if (after - before < 2) {
+            spreadSequences();
+            before = index == 0 ? -1 : sequence.get(get(index - 1));
+            after = sequence.get(tasks.get(slot));
+        }
+        return before + (after - before) / 2;
+    }
+
+    /**
+     * Function to renumber every task with odd sequence numbers in list order, leaving a free number
+     * before each task. The time indexes are keyed by sequence number, so they are rebuilt in O(n log n);
+     * this only happens for an insert between tasks whose numbers are adjacent, e.g. after a restart.
+     */
+    private void spreadSequences() {
+        for (Task t : tasks) {
+            if (t != null) {
+                long seq = sequence.get(t);
+                deadlines.remove(t, seq);
+                events.remove(t, seq);
+                eventSpans.remove(t, seq);
+            }
+        }
+        long next = 1;
+        for (Task t : tasks) {
+            if (t != null) {
+                sequence.put(t, next);
+                deadlines.add(t, next);
+                events.add(t, next);
+                eventSpans.add(t, next);
+                next += 2;
+            }
+        }
+        nextSequence = next;
     }
 
     /**
      * Function to remove and return a task by index (0-based).
+     * The task's slot is left empty rather than shifting every later task.
      *
      * @param index zero-based index to remove
      * @return the removed task
      */
     public Task remove(int index) {
-        return tasks.remove(index);
+        if (!isIndexed) {
+            return tasks.remove(index); // lazily loaded, so there are no slot numbers to keep stable yet
+        }
+        int slot = slotOf(index);
+        Task removed = tasks.get(slot);
+        unindex(removed);
+        if (live == null && slot == tasks.size() - 1) {
+            tasks.remove(slot);
+            return removed;
+        }
+        if (live == null) {
+            live = new LiveSlots(tasks.size());
+        }
+        live.delete(slot);
+        tasks.set(slot, null);
+        emptySlots++;
+        if (emptySlots >= Math.max(COMPACT_MIN, tasks.size() / 4)) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Function to find the slot holding the task at a position.
+     *
+     * @param index zero-based position
+     * @return the slot in {@link #tasks}
+     */
+    private int slotOf(int index) {
+        if (live == null) {
+            return index;
+        }
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return live.select(index);
+    }
+
+    /**
+     * Function to drop every empty slot and renumber the slots of the remaining tasks.
+     */
+    private void compact() {
+        List<Task> kept = new ArrayList<>(size());
+        slotsById.clear();
+        for (Task t : tasks) {
+            if (t != null) {
+                slotsById.put(t.getId(), kept.size());
+                kept.add(t);
+            }
+        }
+        tasks = kept;
+        emptySlots = 0;
+        live = null;
+    }
+
+    /**
+     * Function to build the secondary indexes if they have not been built yet,
+     * decoding every task of a lazily loaded list.
+     */
+    private void ensureIndexed() {
+        if (isIndexed) {
+            return;
+        }
+        if (tasks instanceof MappedTaskList mapped) {
+            mapped.decodeAll();
+            tasks = new ArrayList<>(tasks); // slots may now be emptied, which the mapped list cannot hold
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            index(tasks.get(i), i);
+        }
+        isIndexed = true;
+    }
+
+    /**
+     * Function to add a newly appended task to every secondary index.
+     *
+     * @param t    the task to index
+     * @param slot the slot holding the task
+     */
+    private void index(Task t, int slot) {
+        index(t, slot, nextSequence++);
+    }
+
+    /**
+     * Function to add a task to every secondary index under a given sequence number.
+     *
+     * @param t    the task to index
+     * @param slot the slot holding the task
+     * @param seq  the sequence number, which places the task among the others in list order
+     */
+    private void index(Task t, int slot, long seq) {
+        assert !sequence.containsKey(t) : "the same task cannot be added twice";
+        if (t.getId() == 0) {
+            t.setId(nextId++);
+        }
+        slotsById.put(t.getId(), slot);
+        sequence.put(t, seq);
+        keywords.add(t);
+        deadlines.add(t, seq);
+        events.add(t, seq);
+        eventSpans.add(t, seq);
+    }
+
+    /**
+     * Function to drop a removed task from every secondary index.
+     *
+     * @param t the task to unindex
+     */
+    private void unindex(Task t) {
+        Long seq = sequence.remove(t);
+        if (seq == null) {
+            return;
+        }
+        slotsById.remove(t.getId());
+        keywords.remove(t);
+        deadlines.remove(t, seq);
+        events.remove(t, seq);
+        eventSpans.remove(t, seq);
     }
 
     /**
@@ -77,7 +365,7 @@ public class TaskList {
      * @return the marked task
      */
     public Task mark(int index) {
-        Task t = tasks.get(index);
+        Task t = get(index);
         t.mark();
         return t;
     }
@@ -89,13 +377,16 @@ public class TaskList {
      * @return the unmarked task
      */
     public Task unmark(int index) {
-        Task t = tasks.get(index);
+        Task t = get(index);
         t.unmark();
         return t;
     }
 
     /**
      * Function to find tasks whose descriptions contain the given keyword (case-insensitive).
+     * Keywords of at least three characters are answered from the trigram index;
+     * shorter ones scan the whole list. The first search of a lazily loaded list scans it a batch at a time
+     * instead, rather than waiting for every task to be decoded and indexed.
      *
      * @param keyword the keyword to look for
      * @return a new list containing matching tasks in their current order
@@ -103,9 +394,104 @@ public class TaskList {
     public List<Task> find(String keyword) {
         assert keyword != null : "keyword cannot be null";
         String needle = keyword.toLowerCase();
-        return tasks.stream()
-                .filter(t -> t.getDesc().toLowerCase().contains(needle))
-                .collect(Collectors.toList());
+        if (tasks instanceof MappedTaskList mapped && !mapped.isDecoded()) {
+            return findInBatches(mapped, needle);
+        }
+        ensureIndexed();
+        List<Task> hits = keywords.find(needle);
+        if (hits != null) {
+            sortInListOrder(hits);
+            return hits;
+        }
+        List<Task> out = new ArrayList<>();
+        filterInto(t -> t.getDesc().toLowerCase().contains(needle), out);
+        return out;
+    }
+
+    /**
+     * Function to search a lazily loaded list, decoding a batch of tasks at a time and testing it.
+     *
+     * @param mapped the lazily loaded tasks
+     * @param needle the lower-case keyword
+     * @return a new list containing matching tasks in their current order
+     */
+    private static List<Task> findInBatches(MappedTaskList mapped, String needle) {
+        List<Task> out = new ArrayList<>();
+        for (int from = 0; from < mapped.size(); from += DECODE_BATCH) {
+            int to = Math.min(mapped.size(), from + DECODE_BATCH);
+            mapped.decodeRange(from, to);
+            for (int i = from; i < to; i++) {
+                Task t = mapped.get(i);
+                if (t.getDesc().toLowerCase().contains(needle)) {
+                    out.add(t);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Function to put indexed tasks back in list order, by insertion sequence. Each task's sequence number
+     * and position are packed into one long, so the sort compares primitives instead of looking up
+     * sequence numbers on every comparison; hit sets of at least the parallel threshold sort in parallel.
+     *
+     * @param hits indexed tasks in any order, sorted in place
+     */
+    private void sortInListOrder(List<Task> hits) {
+        // The packed key holds the sequence number in its top 32 bits, so it must fit in an int
+        if (nextSequence > Integer.MAX_VALUE) {
+            hits.sort(Comparator.comparingLong(sequence::get));
+            return;
+        }
+        Task[] found = hits.toArray(new Task[0]);
+        long[] keys = new long[found.length];
+        if (found.length < parallelThreshold) {
+            for (int i = 0; i < found.length; i++) {
+                keys[i] = sequence.get(found[i]) << 32 | i;
+            }
+            Arrays.sort(keys);
+        } else {
+            Arrays.parallelSetAll(keys, i -> sequence.get(found[i]) << 32 | i);
+            Arrays.parallelSort(keys);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            hits.set(i, found[(int) keys[i]]);
+        }
+    }
+
+    /**
+     * Function to add the tasks that pass a test to a list, in list order. Lists of at least the parallel
+     * threshold are split into runs of slots that are tested on the common fork-join pool, and the runs are
+     * joined back in order, so the result is the same as testing every task on one thread.
+     *
+     * @param keep the test, never given an empty slot
+     * @param out  the list to add the passing tasks to
+     */
+    private void filterInto(Predicate<Task> keep, List<Task> out) {
+        int slots = tasks.size();
+        if (slots < parallelThreshold) {
+            for (Task t : tasks) {
+                if (t != null && keep.test(t)) {
+                    out.add(t);
+                }
+            }
+            return;
+        }
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, slots / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        List<Task> all = tasks;
+        List<List<Task>> chunks = IntStream.range(0, (slots + chunkSize - 1) / chunkSize).parallel()
+                .mapToObj(c -> {
+                    List<Task> chunk = new ArrayList<>();
+                    for (int i = c * chunkSize, end = Math.min(slots, i + chunkSize); i < end; i++) {
+                        Task t = all.get(i);
+                        if (t != null && keep.test(t)) {
+                            chunk.add(t);
+                        }
+                    }
+                    return chunk;
+                })
+                .toList();
+        chunks.forEach(out::addAll);
     }
 
     /**
@@ -115,21 +501,7 @@ public class TaskList {
      * @return a new list view of tasks.
      */
     public List<Task> sortedViewDeadlineFirst() {
-        List<Task> deadlines = tasks.stream()
-                .filter(t -> t instanceof Deadline)
-                .map(t -> (Deadline) t)
-                .sorted(Comparator.comparing(Deadline::getBy))
-                .map(t -> (Task) t)
-                .toList();
-
-        List<Task> others = tasks.stream()
-                .filter(t -> !(t instanceof Deadline))
-                .toList();
-
-        List<Task> out = new ArrayList<>(tasks.size());
-        out.addAll(deadlines);
-        out.addAll(others);
-        return out;
+        return sortedViewFirst(deadlines);
     }
 
     /**
@@ -139,30 +511,114 @@ public class TaskList {
      * @return a new list view of tasks.
      */
     public List<Task> sortedViewEventFirst() {
-        List<Task> events = tasks.stream()
-                .filter(t -> t instanceof Event)
-                .map(t -> (Event) t)
-                .sorted(Comparator.comparing(Event::getFrom))
-                .map(t -> (Task) t)
-                .toList();
+        return sortedViewFirst(events);
+    }
 
-        List<Task> others = tasks.stream()
-                .filter(t -> !(t instanceof Event))
-                .toList();
+    /**
+     * Function to find the deadlines due strictly before a date-time, from the deadline index.
+     *
+     * @param time the exclusive upper bound
+     * @return a new list of those deadlines, earliest first, equal deadlines in list order
+     */
+    public List<Task> dueBefore(LocalDateTime time) {
+        ensureIndexed();
+        return new ArrayList<>(deadlines.before(time));
+    }
 
-        List<Task> out = new ArrayList<>(tasks.size());
-        out.addAll(events);
-        out.addAll(others);
+    /**
+     * Function to find the deadlines due within a range, both ends included, from the deadline index.
+     *
+     * @param from the earliest due date-time
+     * @param to   the latest due date-time, not before {@code from}
+     * @return a new list of those deadlines, earliest first, equal deadlines in list order
+     */
+    public List<Task> dueBetween(LocalDateTime from, LocalDateTime to) {
+        assert !from.isAfter(to) : "range must not end before it starts";
+        ensureIndexed();
+        return new ArrayList<>(deadlines.between(from, to));
+    }
+
+    /**
+     * Function to find the events that overlap a range, both ends included, from the interval index.
+     * An event overlaps the range if it starts no later than the range ends and ends no earlier than it starts.
+     *
+     * @param from the start of the range
+     * @param to   the end of the range, not before {@code from}
+     * @return a new list of those events, by start time, equal start times in list order
+     */
+    public List<Task> eventsOverlapping(LocalDateTime from, LocalDateTime to) {
+        assert !from.isAfter(to) : "range must not end before it starts";
+        ensureIndexed();
+        return eventSpans.overlapping(from, to);
+    }
+
+    /**
+     * Builds a view with the tasks of a time index first, in index order, followed by the rest in list order.
+     * The index is already sorted, so this is a linear walk; only picking out the rest is split up for large lists.
+     *
+     * @param first the index whose tasks lead the view
+     * @return a new list view of tasks.
+     */
+    private List<Task> sortedViewFirst(TimeIndex first) {
+        ensureIndexed();
+        List<Task> out = new ArrayList<>(size());
+        out.addAll(first.inOrder());
+        filterInto(t -> !first.covers(t), out);
         return out;
     }
 
+    /**
+     * Function to capture the current tasks and their done status, so that later changes can be undone.
+     *
+     * @return a checkpoint for {@link #restore(Checkpoint)}
+     */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(asList());
+    }
+
+    /**
+     * Function to return the list to the state it had when a checkpoint was taken.
+     *
+     * @param checkpoint a checkpoint taken from this list
+     */
+    public void restore(Checkpoint checkpoint) {
+        assert checkpoint != null : "checkpoint cannot be null";
+        if (isIndexed) {
+            for (Task t : tasks) {
+                unindex(t);
+            }
+        }
+        tasks = new ArrayList<>(checkpoint.tasks.size());
+        live = null;
+        emptySlots = 0;
+        isIndexed = true;
+        for (int i = 0; i < checkpoint.tasks.size(); i++) {
+            Task t = checkpoint.tasks.get(i);
+            if (checkpoint.isDone[i]) {
+                t.mark();
+            } else {
+                t.unmark();
+            }
+            add(t);
+        }
+    }
+
     /**
      * Function to return a copy of the internal list for persistence.
      *
      * @return a new list containing all current tasks
      */
     public List<Task> asList() {
-        return new ArrayList<>(tasks);
+        if (emptySlots == 0) {
+            return new ArrayList<>(tasks);
+        }
+        List<Task> out = new ArrayList<>(size());
+        for (Task t : tasks) {
+            if (t != null) {
+                out.add(t);
+            }
+        }
+        return out;
     }
 
     /**
@@ -197,7 +653,7 @@ public class TaskList {
         }
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < view.size(); i++) {
-            sb.append(i + 1).append(". ").append(view.get(i));
+            sb.append(numbered(i + 1, view.get(i)));
             if (i < view.size() - 1) {
                 sb.append("\n");
             }
@@ -205,26 +661,133 @@ public class TaskList {
         return sb.toString();
     }
 
+    /**
+     * Function to render a task with its 1-based number and, once it has one, its id.
+     *
+     * @param number the number shown in front of the task
+     * @param t      the task
+     * @return e.g. "2. #7 [D][X] return book (by: Aug 6 2023)"
+     */
+    public static String numbered(int number, Task t) {
+        return t.getId() > 0
+                ? number + ". #" + t.getId() + " " + t
+                : number + ". " + t;
+    }
+
+    /**
+     * Function to stream the numbered display lines of a range of the list, such as one page.
+     * Each line is rendered only when the iterator reaches it, so showing a page of a huge list costs
+     * that page alone, and the page of a lazily loaded list is decoded as one batch; the list must not be
+     * modified while the iterator is in use.
+     *
+     * @param from zero-based position of the first task, inclusive
+     * @param to   zero-based position just past the last task
+     * @return an iterator over lines formatted like {@link #toDisplayString()}
+     * @throws IndexOutOfBoundsException if the range is not within the list
+     */
+    public Iterator<String> displayLines(int from, int to) {
+        checkRange(from, to, size());
+        if (tasks instanceof MappedTaskList mapped) {
+            mapped.decodeRange(from, to); // a lazily loaded list has no empty slots, so positions are slots
+        }
+        return new Iterator<>() {
+            private int position = from;
+            private int slot = from < to ? slotOf(from) : 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < to;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                // Walk the slots directly, skipping deleted ones, rather than selecting each position
+                while (tasks.get(slot) == null) {
+                    slot++;
+                }
+                return numbered(++position, tasks.get(slot++));
+            }
+        };
+    }
+
+    /**
+     * Function to stream the numbered display lines of a range of a view, such as a page of search results.
+     *
+     * @param view tasks to render in order
+     * @param from zero-based position of the first task, inclusive
+     * @param to   zero-based position just past the last task
+     * @return an iterator over lines formatted like {@link #toDisplayString(List)}
+     * @throws IndexOutOfBoundsException if the range is not within the view
+     */
+    public static Iterator<String> displayLines(List<Task> view, int from, int to) {
+        checkRange(from, to, view.size());
+        return new Iterator<>() {
+            private int position = from;
+
+            @Override
+            public boolean hasNext() {
+                return position < to;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task t = view.get(position);
+                return numbered(++position, t);
+            }
+        };
+    }
+
+    /**
+     * Function to check that a range lies within a list.
+     *
+     * @param from the start, inclusive
+     * @param to   the end, exclusive
+     * @param size the size of the list
+     * @throws IndexOutOfBoundsException if the range is not within the list
+     */
+    private static void checkRange(int from, int to, int size) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") is outside a list of size " + size);
+        }
+    }
+
     /**
      * Function to return a user-friendly string of all tasks in the list,
-     * each prefixed with its 1-based index.
+     * each prefixed with its 1-based index and its id.
      * Example:
-     * 1. [T][ ] read book
-     * 2. [D][X] return book (by: Aug 6 2023)
+     * 1. #1 [T][ ] read book
+     * 2. #4 [D][X] return book (by: Aug 6 2023)
      *
      * @return formatted string of tasks for display
      */
     public String toDisplayString() {
-        if (tasks.isEmpty()) {
-            return "No tasks in your list.";
-        }
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append(i + 1).append(". ").append(tasks.get(i));
-            if (i < tasks.size() - 1) {
-                sb.append("\n");
+        return toDisplayString(emptySlots == 0 ? tasks : asList());
+    }
+
+    /**
+     * Class to hold the tasks of a list and their done status at one point in time.
+     */
+    public static final class Checkpoint {
+        private final List<Task> tasks;
+        private final boolean[] isDone;
+
+        /**
+         * Function to copy the tasks and their done status.
+         *
+         * @param tasks a copy of the tasks to capture
+         */
+        private Checkpoint(List<Task> tasks) {
+            this.tasks = tasks;
+            this.isDone = new boolean[this.tasks.size()];
+            for (int i = 0; i < isDone.length; i++) {
+                isDone[i] = this.tasks.get(i).getIsDone();
             }
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,106 @@
+package john.data;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import john.tasks.Task;
+
+/**
+ * Class to keep the tasks that carry a given date-time ordered by that date-time,
+ * with ties broken by insertion order, so that sorted views are a walk instead of a sort.
+ */
+final class TimeIndex {
+    private final Function<Task, LocalDateTime> keyOf;
+    private final TreeMap<Key, Task> byTime = new TreeMap<>();
+
+    /**
+     * Function to construct an index over one date-time attribute.
+     *
+     * @param keyOf extracts the date-time from a task, or returns {@code null} for tasks not in this index
+     */
+    TimeIndex(Function<Task, LocalDateTime> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Function to index a task.
+     *
+     * @param t        the task to index
+     * @param sequence the task's insertion sequence number
+     */
+    void add(Task t, long sequence) {
+        LocalDateTime time = keyOf.apply(t);
+        if (time != null) {
+            byTime.put(new Key(time, sequence), t);
+        }
+    }
+
+    /**
+     * Function to drop a task from the index.
+     *
+     * @param t        the task to remove
+     * @param sequence the sequence number it was indexed with
+     */
+    void remove(Task t, long sequence) {
+        LocalDateTime time = keyOf.apply(t);
+        if (time != null) {
+            byTime.remove(new Key(time, sequence));
+        }
+    }
+
+    /**
+     * Function to check whether a task belongs in this index.
+     *
+     * @param t the task to check
+     * @return true if the task carries the indexed date-time
+     */
+    boolean covers(Task t) {
+        return keyOf.apply(t) != null;
+    }
+
+    /**
+     * Function to return the indexed tasks in ascending date-time order.
+     *
+     * @return a live, read-only view of the indexed tasks
+     */
+    Collection<Task> inOrder() {
+        return byTime.values();
+    }
+
+    /**
+     * Function to return the indexed tasks whose date-time is strictly before a given one.
+     *
+     * @param time the exclusive upper bound
+     * @return a live, read-only view of those tasks in ascending date-time order
+     */
+    Collection<Task> before(LocalDateTime time) {
+        return byTime.headMap(new Key(time, Long.MIN_VALUE), false).values();
+    }
+
+    /**
+     * Function to return the indexed tasks whose date-time lies in a range, both ends included.
+     *
+     * @param from the earliest date-time
+     * @param to   the latest date-time, not before {@code from}
+     * @return a live, read-only view of those tasks in ascending date-time order
+     */
+    Collection<Task> between(LocalDateTime from, LocalDateTime to) {
+        return byTime.subMap(new Key(from, Long.MIN_VALUE), true, new Key(to, Long.MAX_VALUE), true).values();
+    }
+
+    /**
+     * Sort key of an indexed task; the sequence number keeps equal date-times in list order.
+     */
+    private record Key(LocalDateTime time, long sequence) implements Comparable<Key> {
+        private static final Comparator<Key> ORDER =
+                Comparator.comparing(Key::time).thenComparingLong(Key::sequence);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
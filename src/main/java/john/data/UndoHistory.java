@@ -0,0 +1,542 @@
+package john.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import john.tasks.Task;
+
+/**
+ * Class to keep a bounded history of task list changes, so that the latest ones can be undone and redone.
+ * A change is kept as what is needed to reverse it, never as a copy of the list: the position it touched,
+ * the task's previous done status, and the task itself as one encoded line, e.g.
+ * "X | 3 | Not Done | T | Not Done | read book | #12". Every change takes the same memory however long
+ * the list is. The changes are kept in a ring: recording a change into a full ring forgets the oldest one,
+ * and recording a change after an undo forgets the changes that could have been redone.
+ * Before a change is undone or redone it is checked against the list; if the list no longer matches,
+ * e.g. because the task file was edited by hand, the whole history is dropped rather than applied.
+ * Every step the history takes is also kept as one short delta line, e.g. "+ | M | 4 | ..." for a recorded
+ * change or {@code "<"} for an undo, so that a caller can append {@link #takeDeltas()} to a log after each command
+ * instead of saving the whole history with {@link #encode()}; {@link #decode(List, int)} replays them.
+ */
+public final class UndoHistory {
+    public static final int DEFAULT_CAPACITY = 100;
+    // First line of a saved history, "@ | <number of changes that can be undone>"
+    private static final String HEADER = "@ | ";
+    private static final String SEPARATOR = " | ";
+    private static final String DONE = "Done";
+    private static final String NOT_DONE = "Not Done";
+    // Delta lines that replay a step of the history on top of a saved one
+    private static final char RECORD = '+';
+    private static final char UNDO = '<';
+    private static final char REDO = '>';
+    private static final char DISCARD = '-';
+    private static final char CLEAR = '!';
+
+    private final Change[] ring;
+    private int first; // slot of the oldest change
+    private int size;
+    private int undoable; // the oldest changes that are applied to the list; the others can be redone
+    private List<String> deltas = new ArrayList<>(); // steps taken since the last takeDeltas()
+
+    /**
+     * Function to create an empty history.
+     *
+     * @param capacity the number of changes to keep
+     */
+    public UndoHistory(int capacity) {
+        assert capacity > 0 : "capacity must be positive";
+        this.ring = new Change[capacity];
+    }
+
+    /**
+     * Function to rebuild a history saved with {@link #encode()}, followed by any deltas from
+     * {@link #takeDeltas()} appended after it. Deltas without a saved history are replayed on an empty one.
+     * A history with any malformed line is dropped as a whole, since its changes could not be trusted.
+     *
+     * @param lines    the saved lines
+     * @param capacity the number of changes to keep; older saved changes are forgotten
+     * @return the history, empty if there was none or it was malformed
+     */
+    public static UndoHistory decode(List<String> lines, int capacity) {
+        UndoHistory history = new UndoHistory(capacity);
+        int next = 0;
+        try {
+            if (!lines.isEmpty() && lines.get(0).startsWith(HEADER)) {
+                int undoable = Integer.parseInt(lines.get(0).substring(HEADER.length()).strip());
+                List<Change> changes = new ArrayList<>();
+                for (next = 1; next < lines.size() && !isDelta(lines.get(next)); next++) {
+                    changes.add(Change.decode(lines.get(next)));
+                }
+                if (undoable < 0 || undoable > changes.size()) {
+                    return new UndoHistory(capacity);
+                }
+                int dropped = Math.max(0, undoable - capacity);
+                for (int i = dropped; i < Math.min(changes.size(), dropped + capacity); i++) {
+                    history.ring[history.size++] = changes.get(i);
+                }
+                history.undoable = undoable - dropped;
+            }
+            for (; next < lines.size(); next++) {
+                history.replay(lines.get(next));
+            }
+        } catch (IllegalArgumentException e) {
+            return new UndoHistory(capacity);
+        }
+        history.deltas = new ArrayList<>();
+        return history;
+    }
+
+    /**
+     * Function to encode the history as lines, oldest change first, for {@link #decode(List, int)}.
+     *
+     * @return a new list of lines, as many as the history holds changes plus one
+     */
+    public List<String> encode() {
+        List<String> lines = new ArrayList<>(size + 1);
+        lines.add(HEADER + undoable);
+        for (int i = 0; i < size; i++) {
+            lines.add(ring[slot(i)].encode());
+        }
+        return lines;
+    }
+
+    /**
+     * Function to return the delta lines of every step taken since the last call, and forget them.
+     * Appended in order after the lines of {@link #encode()}, they decode to this history.
+     *
+     * @return the delta lines, oldest first
+     */
+    public List<String> takeDeltas() {
+        List<String> taken = deltas;
+        deltas = new ArrayList<>();
+        return taken;
+    }
+
+    /**
+     * Function to record a task that was just appended to the list.
+     *
+     * @param index the position it was appended at
+     * @param t     the task, with its id
+     */
+    public void recordAdd(int index, Task t) {
+        record(new Change(Kind.ADD, index, false, Storage.encodeTaskLine(t), t.getId()));
+    }
+
+    /**
+     * Function to record a task that was just deleted from the list.
+     *
+     * @param index   the position it was deleted from
+     * @param removed the task, as it was when it was deleted
+     */
+    public void recordDelete(int index, Task removed) {
+        record(new Change(Kind.DELETE, index, removed.getIsDone(), Storage.encodeTaskLine(removed), removed.getId()));
+    }
+
+    /**
+     * Function to record a task that was just marked as done.
+     *
+     * @param index   the position of the task
+     * @param t       the task
+     * @param wasDone whether it was done before
+     */
+    public void recordMark(int index, Task t, boolean wasDone) {
+        record(new Change(Kind.MARK, index, wasDone, Storage.encodeTaskLine(t), t.getId()));
+    }
+
+    /**
+     * Function to record a task that was just marked as not done.
+     *
+     * @param index   the position of the task
+     * @param t       the task
+     * @param wasDone whether it was done before
+     */
+    public void recordUnmark(int index, Task t, boolean wasDone) {
+        record(new Change(Kind.UNMARK, index, wasDone, Storage.encodeTaskLine(t), t.getId()));
+    }
+
+    /**
+     * Function to reverse the latest change that is still applied.
+     *
+     * @param tasks the list the change was made to
+     * @return what was undone, or null if there is nothing to undo or the list no longer matches the history
+     */
+    public Step undo(TaskList tasks) {
+        if (undoable == 0) {
+            return null;
+        }
+        Change change = ring[slot(undoable - 1)];
+        if (!change.isAppliedTo(tasks)) {
+            clear();
+            return null;
+        }
+        undoable--;
+        deltas.add(String.valueOf(UNDO));
+        return change.undo(tasks);
+    }
+
+    /**
+     * Function to apply again the earliest change that was undone.
+     *
+     * @param tasks the list the change was undone on
+     * @return what was redone, or null if there is nothing to redo or the list no longer matches the history
+     */
+    public Step redo(TaskList tasks) {
+        if (undoable == size) {
+            return null;
+        }
+        Change change = ring[slot(undoable)];
+        if (!change.isUndoneIn(tasks)) {
+            clear();
+            return null;
+        }
+        undoable++;
+        deltas.add(String.valueOf(REDO));
+        return change.redo(tasks);
+    }
+
+    /**
+     * Function to forget the latest changes, e.g. after they were rolled back some other way,
+     * together with every change that could have been redone.
+     *
+     * @param count the number of applied changes to forget
+     */
+    public void discardLatest(int count) {
+        truncate(undoable - Math.min(count, undoable));
+        undoable = size;
+        deltas.add(DISCARD + SEPARATOR + count);
+    }
+
+    /**
+     * Function to forget every change.
+     */
+    public void clear() {
+        truncate(0);
+        first = 0;
+        undoable = 0;
+        deltas.add(String.valueOf(CLEAR));
+    }
+
+    /**
+     * Function to return the number of changes that can be undone.
+     *
+     * @return the undo count
+     */
+    public int getUndoCount() {
+        return undoable;
+    }
+
+    /**
+     * Function to return the number of changes that can be redone.
+     *
+     * @return the redo count
+     */
+    public int getRedoCount() {
+        return size - undoable;
+    }
+
+    /**
+     * Function to add a change after the applied ones, forgetting the oldest change if the ring is full.
+     *
+     * @param change the change that was just made
+     */
+    private void record(Change change) {
+        truncate(undoable);
+        if (size == ring.length) {
+            ring[first] = null;
+            first = slot(1);
+            size--;
+        }
+        ring[slot(size)] = change;
+        size++;
+        undoable = size;
+        deltas.add(RECORD + SEPARATOR + change.encode());
+    }
+
+    /**
+     * Function to check whether a saved line is a delta rather than a change of the saved history.
+     *
+     * @param line the line
+     * @return true if the line is a delta
+     */
+    private static boolean isDelta(String line) {
+        return !line.isEmpty() && "+<>-!".indexOf(line.charAt(0)) >= 0;
+    }
+
+    /**
+     * Function to take again a step described by a delta line from {@link #takeDeltas()}.
+     *
+     * @param line the delta line
+     * @throws IllegalArgumentException if the line is malformed or the step is not possible
+     */
+    private void replay(String line) {
+        char op = line.isEmpty() ? ' ' : line.charAt(0);
+        String arg = line.startsWith(SEPARATOR, 1) ? line.substring(1 + SEPARATOR.length()) : "";
+        switch (op) {
+        case RECORD -> record(Change.decode(arg));
+        case UNDO -> undoable = checkedCursor(undoable - 1, line);
+        case REDO -> undoable = checkedCursor(undoable + 1, line);
+        case DISCARD -> {
+            int count = Integer.parseInt(arg);
+            if (count < 0) {
+                throw new IllegalArgumentException("Malformed delta: " + line);
+            }
+            discardLatest(count);
+        }
+        case CLEAR -> clear();
+        default -> throw new IllegalArgumentException("Malformed delta: " + line);
+        }
+    }
+
+    /**
+     * Function to check that a replayed undo or redo stays within the history.
+     *
+     * @param cursor the undo count after the step
+     * @param line   the delta line, for the error message
+     * @return the cursor
+     * @throws IllegalArgumentException if there was nothing to undo or redo
+     */
+    private int checkedCursor(int cursor, String line) {
+        if (cursor < 0 || cursor > size) {
+            throw new IllegalArgumentException("Delta does not match the history: " + line);
+        }
+        return cursor;
+    }
+
+    /**
+     * Function to forget the newest changes beyond a count, clearing their slots.
+     *
+     * @param count the number of oldest changes to keep
+     */
+    private void truncate(int count) {
+        for (int i = count; i < size; i++) {
+            ring[slot(i)] = null;
+        }
+        size = count;
+    }
+
+    /**
+     * Function to find the slot of a change.
+     *
+     * @param age the change's position, 0 for the oldest
+     * @return its slot in the ring
+     */
+    private int slot(int age) {
+        return (first + age) % ring.length;
+    }
+
+    /**
+     * Enumeration of the changes that can be undone.
+     */
+    public enum Kind {
+        ADD('A', "adding"), DELETE('X', "deleting"), MARK('M', "marking"), UNMARK('U', "unmarking");
+
+        private final char code;
+        private final String action;
+
+        Kind(char code, String action) {
+            this.code = code;
+            this.action = action;
+        }
+
+        /**
+         * Function to describe the change for the user, e.g. "deleting" as in "undone deleting this task".
+         *
+         * @return the change as a verb
+         */
+        public String getAction() {
+            return action;
+        }
+
+        /**
+         * Function to find a kind by its code in a saved history.
+         *
+         * @param code the code
+         * @return the kind
+         * @throws IllegalArgumentException if no kind has the code
+         */
+        static Kind of(char code) {
+            for (Kind kind : values()) {
+                if (kind.code == code) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown change: " + code);
+        }
+    }
+
+    /**
+     * Class to describe a change that was undone or redone.
+     */
+    public static final class Step {
+        private final Kind kind;
+        private final Task task;
+        private final JournalEntry entry;
+
+        private Step(Kind kind, Task task, JournalEntry entry) {
+            this.kind = kind;
+            this.task = task;
+            this.entry = entry;
+        }
+
+        /**
+         * Function to return the kind of the original change.
+         *
+         * @return the kind
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Function to return the task the change was undone or redone on, as it is now.
+         *
+         * @return the task
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * Function to return the mutation that was applied to the list, to be saved like any other.
+         *
+         * @return the journal entry
+         */
+        public JournalEntry getEntry() {
+            return entry;
+        }
+    }
+
+    /**
+     * One recorded change, with the task encoded so that it can be recreated after a restart.
+     */
+    private static final class Change {
+        private final Kind kind;
+        private final int index;
+        private final boolean wasDone;
+        private final String taskLine;
+        private final long id;
+
+        private Change(Kind kind, int index, boolean wasDone, String taskLine, long id) {
+            this.kind = kind;
+            this.index = index;
+            this.wasDone = wasDone;
+            this.taskLine = taskLine;
+            this.id = id;
+        }
+
+        /**
+         * Function to decode a change from a line written by {@link #encode()}.
+         *
+         * @param line e.g. "M | 4 | Not Done | T | Done | read book | #12"
+         * @return the change
+         * @throws IllegalArgumentException if the line is malformed
+         */
+        static Change decode(String line) {
+            String[] parts = line.split(" \\| ", 4);
+            if (parts.length < 4 || parts[0].length() != 1) {
+                throw new IllegalArgumentException("Malformed change: " + line);
+            }
+            Kind kind = Kind.of(parts[0].charAt(0));
+            int index = Integer.parseInt(parts[1]);
+            Optional<Task> task = Storage.parseTaskLine(parts[3]);
+            if (index < 0 || task.isEmpty() || task.get().getId() <= 0) {
+                throw new IllegalArgumentException("Malformed change: " + line);
+            }
+            return new Change(kind, index, DONE.equals(parts[2]), parts[3], task.get().getId());
+        }
+
+        /**
+         * Function to encode the change as one line.
+         *
+         * @return the line, without a line terminator
+         */
+        String encode() {
+            return kind.code + SEPARATOR + index + SEPARATOR + (wasDone ? DONE : NOT_DONE) + SEPARATOR + taskLine;
+        }
+
+        /**
+         * Function to check that the list looks as it did straight after the change.
+         * A deleted task must not be in the list any more, or undoing the delete would add it twice.
+         *
+         * @param tasks the list
+         * @return true if the change can be undone
+         */
+        boolean isAppliedTo(TaskList tasks) {
+            return switch (kind) {
+            case ADD -> index == tasks.size() - 1 && tasks.get(index).getId() == id;
+            case DELETE -> index <= tasks.size() && tasks.indexOfId(id) < 0;
+            default -> isAt(tasks);
+            };
+        }
+
+        /**
+         * Function to check that the list looks as it did straight before the change.
+         * An added task must not be in the list, or redoing the add would add it twice.
+         *
+         * @param tasks the list
+         * @return true if the change can be redone
+         */
+        boolean isUndoneIn(TaskList tasks) {
+            return kind == Kind.ADD ? index == tasks.size() && tasks.indexOfId(id) < 0 : isAt(tasks);
+        }
+
+        /**
+         * Function to check that the task the change touched is at its position.
+         *
+         * @param tasks the list
+         * @return true if the task at the change's position has the change's id
+         */
+        private boolean isAt(TaskList tasks) {
+            return index < tasks.size() && tasks.get(index).getId() == id;
+        }
+
+        /**
+         * Function to reverse the change.
+         *
+         * @param tasks a list the change is applied to
+         * @return what was done
+         */
+        Step undo(TaskList tasks) {
+            return switch (kind) {
+            case ADD -> new Step(kind, tasks.remove(index), JournalEntry.delete(index));
+            case DELETE -> {
+                Task t = decodeTask();
+                tasks.insert(index, t);
+                yield new Step(kind, t, JournalEntry.insert(index, t));
+            }
+            default -> wasDone
+                    ? new Step(kind, tasks.mark(index), JournalEntry.mark(index))
+                    : new Step(kind, tasks.unmark(index), JournalEntry.unmark(index));
+            };
+        }
+
+        /**
+         * Function to make the change again.
+         *
+         * @param tasks a list the change is undone on
+         * @return what was done
+         */
+        Step redo(TaskList tasks) {
+            return switch (kind) {
+            case ADD -> {
+                Task t = decodeTask();
+                tasks.add(t);
+                yield new Step(kind, t, JournalEntry.add(t));
+            }
+            case DELETE -> new Step(kind, tasks.remove(index), JournalEntry.delete(index));
+            case MARK -> new Step(kind, tasks.mark(index), JournalEntry.mark(index));
+            case UNMARK -> new Step(kind, tasks.unmark(index), JournalEntry.unmark(index));
+            };
+        }
+
+        /**
+         * Function to recreate the task as it was when the change was recorded.
+         *
+         * @return a new task with the recorded id
+         */
+        private Task decodeTask() {
+            return Storage.parseTaskLine(taskLine).orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package john.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import john.command.Parser.Parsed.Kind;
+
+/**
+ * Class to count commands by kind and time each phase of handling them, for the "stats" command and JMX.
+ * When disabled, callers skip reading the clock, so the only cost per command is reading one flag.
+ * Metrics are on unless the JVM is started with {@code -Djohn.metrics=false}, and can be switched at
+ * run time through the {@link MetricsMXBean}.
+ */
+public final class Metrics implements MetricsMXBean {
+    /** Name the shared metrics are registered under with the platform MBean server. */
+    public static final String OBJECT_NAME = "john:type=Metrics";
+    private static final String INVALID = "INVALID";
+    private static final Metrics SHARED = new Metrics(!"false".equalsIgnoreCase(System.getProperty("john.metrics")));
+    private static final AtomicBoolean IS_REGISTERED = new AtomicBoolean();
+
+    private volatile boolean isEnabled;
+    private final AtomicLongArray commands = new AtomicLongArray(Kind.values().length);
+    private final AtomicLongArray errors = new AtomicLongArray(Kind.values().length);
+    private final LongAdder invalidCommands = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+
+    /**
+     * Function to create empty metrics.
+     *
+     * @param isEnabled true to start recording straight away
+     */
+    public Metrics(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Function to return the metrics shared by every session in this JVM, registering them with the
+     * platform MBean server the first time. If JMX is unavailable, the metrics still work without it.
+     *
+     * @return the shared metrics
+     */
+    public static Metrics shared() {
+        if (IS_REGISTERED.compareAndSet(false, true)) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(SHARED, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                // JMX is optional: the "stats" command reads the same counters
+            }
+        }
+        return SHARED;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    @Override
+    public void setEnabled(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * Function to count a finished command.
+     *
+     * @param kind      the command's kind, or null if it could not be parsed
+     * @param isSuccess false if the command was rejected or failed
+     */
+    public void recordCommand(Kind kind, boolean isSuccess) {
+        if (!isEnabled) {
+            return;
+        }
+        if (kind == null) {
+            invalidCommands.increment();
+            return;
+        }
+        commands.incrementAndGet(kind.ordinal());
+        if (!isSuccess) {
+            errors.incrementAndGet(kind.ordinal());
+        }
+    }
+
+    /**
+     * Function to record how long one phase of a command took.
+     *
+     * @param phase the phase
+     * @param nanos the time taken in nanoseconds
+     */
+    public void recordLatency(Phase phase, long nanos) {
+        if (isEnabled) {
+            latencies.get(phase).record(nanos);
+        }
+    }
+
+    /**
+     * Function to count bytes written to disk.
+     *
+     * @param bytes the number of bytes
+     */
+    public void recordBytesWritten(long bytes) {
+        if (isEnabled) {
+            bytesWritten.add(bytes);
+        }
+    }
+
+    /**
+     * Function to return the histogram of one phase.
+     *
+     * @param phase the phase
+     * @return its latencies
+     */
+    public LatencyHistogram getLatencies(Phase phase) {
+        return latencies.get(phase);
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Kind kind : Kind.values()) {
+            counts.put(kind.name(), commands.get(kind.ordinal()));
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Kind kind : Kind.values()) {
+            counts.put(kind.name(), errors.get(kind.ordinal()));
+        }
+        counts.put(INVALID, invalidCommands.sum());
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getP50Micros() {
+        return byPhase(h -> h.getPercentileNanos(50) / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getP99Micros() {
+        return byPhase(h -> h.getPercentileNanos(99) / 1000);
+    }
+
+    @Override
+    public Map<String, Long> getMaxMicros() {
+        return byPhase(h -> h.getMaxNanos() / 1000);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("enabled: ").append(isEnabled).append('\n');
+        sb.append("commands:").append(nonZero(getCommandCounts())).append('\n');
+        sb.append("errors:").append(nonZero(getErrorCounts())).append('\n');
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram h = latencies.get(phase);
+            sb.append(String.format("%s_us: count %d, mean %.1f, p50 %.1f, p99 %.1f, max %.1f",
+                    phase.name().toLowerCase(Locale.ROOT), h.getCount(), h.getMeanNanos() / 1e3,
+                    h.getPercentileNanos(50) / 1e3, h.getPercentileNanos(99) / 1e3, h.getMaxNanos() / 1e3));
+            sb.append('\n');
+        }
+        sb.append("bytes_written: ").append(getBytesWritten());
+        return sb.toString();
+    }
+
+    /**
+     * Function to read one statistic of every phase.
+     *
+     * @param statistic the statistic to read from a phase's histogram
+     * @return the values keyed by phase name
+     */
+    private Map<String, Long> byPhase(ToLongFunction<LatencyHistogram> statistic) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            values.put(phase.name(), statistic.applyAsLong(latencies.get(phase)));
+        }
+        return values;
+    }
+
+    /**
+     * Function to list the non-zero counts on one line.
+     *
+     * @param counts the counts by name
+     * @return e.g. " LIST 3, ADD 2", or " none"
+     */
+    private static String nonZero(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder();
+        counts.forEach((name, count) -> {
+            if (count > 0) {
+                sb.append(sb.length() == 0 ? " " : ", ").append(name).append(' ').append(count);
+            }
+        });
+        return sb.length() == 0 ? " none" : sb.toString();
+    }
+
+    /**
+     * Enumeration of the timed phases of a command. The handler phase excludes rendering, and saving
+     * happens on the background writer, so each phase is measured on its own.
+     */
+    public enum Phase { PARSE, HANDLER, RENDER, SAVE }
+}
@@ -0,0 +1,72 @@
+package john.metrics;
+
+import java.util.Map;
+
+/**
+ * Interface to expose John's command metrics over JMX, e.g. in JConsole under "john:type=Metrics".
+ * Latency maps are keyed by phase name: PARSE, HANDLER, RENDER and SAVE.
+ */
+public interface MetricsMXBean {
+    /**
+     * Function to check whether commands are being measured.
+     *
+     * @return true if metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Function to start or stop measuring commands. Counts recorded so far are kept.
+     *
+     * @param isEnabled true to record metrics
+     */
+    void setEnabled(boolean isEnabled);
+
+    /**
+     * Function to return how many commands of each kind ran.
+     *
+     * @return command counts keyed by command kind, including failed commands
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * Function to return how many commands of each kind failed.
+     *
+     * @return error counts keyed by command kind, with "INVALID" for commands that could not be parsed
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Function to return the median latency of each phase.
+     *
+     * @return upper bounds in microseconds keyed by phase
+     */
+    Map<String, Long> getP50Micros();
+
+    /**
+     * Function to return the 99th percentile latency of each phase.
+     *
+     * @return upper bounds in microseconds keyed by phase
+     */
+    Map<String, Long> getP99Micros();
+
+    /**
+     * Function to return the slowest latency of each phase.
+     *
+     * @return maxima in microseconds keyed by phase
+     */
+    Map<String, Long> getMaxMicros();
+
+    /**
+     * Function to return the number of bytes written to snapshots and journals.
+     *
+     * @return the byte count
+     */
+    long getBytesWritten();
+
+    /**
+     * Function to render every metric as "name: value" lines, as the "stats" command shows them.
+     *
+     * @return the metrics as plain text
+     */
+    String getSummary();
+}
@@ -0,0 +1,391 @@
+package john.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import john.John;
+import john.command.Parser;
+import john.data.PersistenceScheduler;
+import john.exceptions.JohnException;
+
+/**
+ * Class to serve the {@link John} facade over HTTP, so that many users can share one JVM.
+ * Every session name maps to its own task file in the data directory and is loaded on first use.
+ * Names are case-insensitive: "Bob" and "bob" are the same session.
+ * A session is saved and closed when it sends {@code bye} or has been idle for the idle timeout, and is
+ * loaded again by its next request. All sessions write their files on one shared pool of writer threads.
+ * <ul>
+ *     <li>{@code POST /session/<name>} runs the command in the request body and returns John's reply.</li>
+ *     <li>{@code GET /stats} returns request counts, the request rate and latency percentiles.</li>
+ * </ul>
+ * Each request runs on its own virtual thread when the JVM supports them, and on a pooled thread otherwise.
+ * Requests of one session run one at a time; requests of different sessions run in parallel.
+ */
+public final class JohnServer implements AutoCloseable {
+    static final Pattern SESSION_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    static final int MAX_COMMAND_BYTES = 64 * 1024;
+    static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final String SESSION_PATH = "/session/";
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService writers;
+    private final ScheduledExecutorService sweeper;
+    private final Path dataDir;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final RequestStats stats = new RequestStats();
+
+    /**
+     * Class to pair a session's facade with the lock that keeps its commands in order.
+     * The facade is loaded by the first request holding the lock, so that loading one session's file never
+     * blocks requests for other names. A closed session is already out of the map, and a request that finds
+     * one retries with a fresh session.
+     * A lock is used rather than {@code synchronized} so that a waiting virtual thread does not pin its carrier.
+     */
+    private static final class Session {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastUsedNanos = System.nanoTime();
+        // Guarded by lock
+        private John john;
+        private boolean isClosed;
+    }
+
+    /**
+     * Function to bind a server to an address; it does not accept requests until {@link #start()}.
+     *
+     * @param address the address to listen on; port 0 picks a free port
+     * @param dataDir the directory holding one task file per session
+     * @throws IOException if the directory cannot be created or the address cannot be bound
+     */
+    public JohnServer(InetSocketAddress address, Path dataDir) throws IOException {
+        this(address, dataDir, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Function to bind a server that closes sessions after a given idle time.
+     *
+     * @param address     the address to listen on; port 0 picks a free port
+     * @param dataDir     the directory holding one task file per session
+     * @param idleTimeout how long a session may go without requests before it is saved and closed
+     * @throws IOException if the directory cannot be created or the address cannot be bound
+     */
+    public JohnServer(InetSocketAddress address, Path dataDir, Duration idleTimeout) throws IOException {
+        Objects.requireNonNull(idleTimeout, "idleTimeout must not be null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.dataDir = Files.createDirectories(dataDir);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.server = HttpServer.create(address, 0);
+        this.executor = newPerRequestExecutor();
+        this.writers = PersistenceScheduler.newWriterPool(Runtime.getRuntime().availableProcessors());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "john-session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleTimeoutNanos / 2);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+        server.createContext(SESSION_PATH, this::handleSession);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Function to create an executor that starts one virtual thread per request.
+     * Virtual threads are looked up reflectively so that the project still builds for Java 17,
+     * where an unbounded cached pool of platform threads is used instead.
+     *
+     * @return the executor for request handlers
+     */
+    static ExecutorService newPerRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Function to start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Function to return the port the server listens on, which is useful after binding port 0.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Function to return the live request counters.
+     *
+     * @return the counters shared by all sessions
+     */
+    public RequestStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Function to return the number of sessions currently open.
+     *
+     * @return the open session count
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Function to stop accepting requests, wait briefly for running ones, and save every open session.
+     *
+     * @throws IOException if saving a session fails; the other sessions are still saved
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop(1);
+        executor.shutdown();
+        sweeper.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            sweeper.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException failure = null;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session s = entry.getValue();
+            s.lock.lock();
+            try {
+                closeSession(entry.getKey(), s);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            } finally {
+                s.lock.unlock();
+            }
+        }
+        writers.shutdown();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Function to run one command for the session named in the request path.
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException if the reply cannot be sent
+     */
+    private void handleSession(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        String reply;
+        try (exchange) {
+            String name = exchange.getRequestURI().getPath().substring(SESSION_PATH.length());
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                status = 405;
+                reply = "Use POST with the command as the request body.";
+            } else if (!SESSION_NAME.matcher(name).matches()) {
+                status = 400;
+                reply = "Session names are 1 to 64 letters, digits, '-' or '_'.";
+            } else {
+                String command = readCommand(exchange.getRequestBody());
+                if (command == null) {
+                    status = 413;
+                    reply = "Commands are limited to " + MAX_COMMAND_BYTES + " bytes.";
+                } else {
+                    // One key per file, since "Bob.txt" and "bob.txt" are one file on case-insensitive file systems
+                    reply = runCommand(name.toLowerCase(Locale.ROOT), command);
+                }
+            }
+            send(exchange, status, reply);
+        } finally {
+            stats.record(System.nanoTime() - start, status == 200);
+        }
+    }
+
+    /**
+     * Function to report the request counters and the number of open sessions.
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException if the reply cannot be sent
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            send(exchange, 200, stats.toDisplayString() + "\nsessions: " + sessions.size());
+        }
+    }
+
+    /**
+     * Function to run a command in a session, loading the session's file first if it is not open.
+     * The session is saved and closed after {@code bye}.
+     *
+     * @param name    a validated session name
+     * @param command the command to run
+     * @return John's reply
+     */
+    private String runCommand(String name, String command) {
+        while (true) {
+            Session session = sessions.computeIfAbsent(name, n -> new Session());
+            session.lock.lock();
+            try {
+                if (session.isClosed) {
+                    continue; // closed while this request waited; the next session reloads the saved file
+                }
+                if (session.john == null) {
+                    session.john = new John(dataDir.resolve(name + ".txt").toString(), writers);
+                }
+                String reply = session.john.getResponse(command);
+                session.lastUsedNanos = System.nanoTime();
+                if (isExit(command)) {
+                    try {
+                        closeSession(name, session);
+                    } catch (IOException e) {
+                        System.err.println("Failed to save session " + name + ": " + e.getMessage());
+                    }
+                }
+                return reply;
+            } finally {
+                session.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Function to save and close, holding its lock, every session idle for longer than the idle timeout.
+     * Sessions busy with a request are left for the next sweep.
+     */
+    private void evictIdle() {
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session s = entry.getValue();
+            if (System.nanoTime() - s.lastUsedNanos < idleTimeoutNanos || !s.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (!s.isClosed && System.nanoTime() - s.lastUsedNanos >= idleTimeoutNanos) {
+                    closeSession(entry.getKey(), s);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to save session " + entry.getKey() + ": " + e.getMessage());
+            } finally {
+                s.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Function to save a session, holding its lock, and remove it from the open sessions.
+     * The session is removed even if saving fails, since its writer no longer accepts changes.
+     *
+     * @param name    the session name
+     * @param session the session to close
+     * @throws IOException if writing the session's pending changes fails
+     */
+    private void closeSession(String name, Session session) throws IOException {
+        if (session.isClosed) {
+            return;
+        }
+        try {
+            if (session.john != null) {
+                session.john.shutdown();
+            }
+        } finally {
+            session.isClosed = true;
+            sessions.remove(name, session); // only now may a new session load the file
+        }
+    }
+
+    /**
+     * Function to check whether a command ends its session.
+     *
+     * @param command the raw command
+     * @return true for {@code bye}
+     */
+    private static boolean isExit(String command) {
+        try {
+            return !command.isBlank() && Parser.parse(command.strip()).kind == Parser.Parsed.Kind.EXIT;
+        } catch (JohnException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Function to read a UTF-8 command body, refusing bodies over the size limit.
+     *
+     * @param body the request body
+     * @return the command, or {@code null} if the body is too large
+     * @throws IOException if the body cannot be read
+     */
+    private static String readCommand(InputStream body) throws IOException {
+        byte[] bytes = body.readNBytes(MAX_COMMAND_BYTES + 1);
+        return bytes.length > MAX_COMMAND_BYTES ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Function to send a plain-text reply.
+     *
+     * @param exchange the HTTP exchange
+     * @param status   the HTTP status code
+     * @param text     the reply body
+     * @throws IOException if the reply cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Function to start the server from the command line.
+     * Usage: {@code JohnServer [port] [data directory]}, defaulting to port 8080 and "data/sessions".
+     *
+     * @param args the optional port and data directory
+     * @throws IOException if the server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path dir = Path.of(args.length > 1 ? args[1] : "data/sessions");
+        JohnServer server = new JohnServer(new InetSocketAddress(port), dir);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Failed to save sessions: " + e.getMessage());
+            }
+        }));
+        server.start();
+        System.out.println("John is serving on port " + server.getPort() + ", sessions in " + dir.toAbsolutePath());
+    }
+}
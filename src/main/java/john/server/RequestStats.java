@@ -0,0 +1,119 @@
+package john.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class to count requests and their latencies without locking, so that recording never slows a request down.
+ * Latencies are kept in power-of-two microsecond buckets, so percentiles are reported as upper bounds.
+ */
+public final class RequestStats {
+    private static final int BUCKETS = 40;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    // Bucket i counts latencies below 2^i microseconds that did not fit bucket i - 1
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    /**
+     * Function to create empty counters.
+     */
+    public RequestStats() {
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Function to record one finished request.
+     *
+     * @param nanos     how long the request took
+     * @param isSuccess false if the request was rejected or failed
+     */
+    public void record(long nanos, boolean isSuccess) {
+        requests.increment();
+        if (!isSuccess) {
+            errors.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        long micros = Math.max(nanos / 1000, 0);
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        histogram[bucket].increment();
+    }
+
+    /**
+     * Function to return the number of requests recorded so far.
+     *
+     * @return the request count
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Function to return the number of failed requests recorded so far.
+     *
+     * @return the error count
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Function to return the average number of requests per second since the counters were created.
+     *
+     * @return the request rate
+     */
+    public double getRequestsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : requests.sum() / seconds;
+    }
+
+    /**
+     * Function to return an upper bound of a latency percentile.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the bucket bound in microseconds below which that share of requests finished, or 0 if none did
+     */
+    public long getLatencyPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Function to render the counters as "name: value" lines.
+     *
+     * @return the counters as plain text
+     */
+    public String toDisplayString() {
+        long count = requests.sum();
+        long meanMicros = count == 0 ? 0 : totalNanos.sum() / count / 1000;
+        return String.join("\n",
+                "requests: " + count,
+                "errors: " + errors.sum(),
+                String.format("requests_per_second: %.2f", getRequestsPerSecond()),
+                "latency_mean_us: " + meanMicros,
+                "latency_p50_us: " + getLatencyPercentileMicros(50),
+                "latency_p99_us: " + getLatencyPercentileMicros(99),
+                "latency_max_us: " + maxNanos.get() / 1000);
+    }
+}
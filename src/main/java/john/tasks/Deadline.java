@@ -8,8 +8,8 @@ import java.time.format.DateTimeFormatter;
  * has to be completed by
  */
 public class Deadline extends Task {
-    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM dd yyyy");
     private final LocalDateTime by;
+    private String dateText; // " (by: ...)", formatted on first render; racing threads build equal strings
 
     /**
      * Constructs a new Deadline task with the specified description and due date.
@@ -37,7 +37,12 @@ public class Deadline extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[D]" + super.toString() + " (by: " + this.by.format(DISPLAY) + ")";
+    protected String render(boolean isDone) {
+        String date = dateText;
+        if (date == null) {
+            date = " (by: " + DisplayDates.format(this.by) + ")";
+            dateText = date;
+        }
+        return "[D]" + super.render(isDone) + date;
     }
 }
@@ -0,0 +1,40 @@
+package john.tasks;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class to format dates for display, sharing one string per date.
+ * The display pattern has no time of day, and task lists repeat the same few dates many times,
+ * so formatting each date once saves both the formatting and the duplicate strings.
+ */
+final class DisplayDates {
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    private static final int MAX_ENTRIES = 4096; // about eleven years of distinct days
+    private static final ConcurrentHashMap<LocalDate, String> CACHE = new ConcurrentHashMap<>();
+
+    private DisplayDates() {
+    }
+
+    /**
+     * Function to format the date of a date-time, e.g. "Aug 06 2023".
+     *
+     * @param t the date-time
+     * @return the formatted date, shared with every other caller asking for the same date
+     */
+    static String format(LocalDateTime t) {
+        LocalDate date = t.toLocalDate();
+        String s = CACHE.get(date);
+        if (s == null) {
+            s = date.format(DISPLAY);
+            if (CACHE.size() >= MAX_ENTRIES) {
+                // Rare enough that starting over is cheaper than tracking which dates are old
+                CACHE.clear();
+            }
+            CACHE.putIfAbsent(date, s);
+        }
+        return s;
+    }
+}
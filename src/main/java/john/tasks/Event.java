@@ -1,16 +1,15 @@
 package john.tasks;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Events are Tasks which have the special attribute of strings "to" and "from" to show the duration of an event.
  * It is recognised with the letter 'E' in displays
  */
 public class Event extends Task {
-    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM dd yyyy");
     private final LocalDateTime from;
     private final LocalDateTime to;
+    private String dateText; // " (from: ... to: ...)", formatted on first render; racing threads build equal strings
 
     /**
      * Constructs a new Event task with the specified description and time range.
@@ -44,13 +43,18 @@ public class Event extends Task {
 
     @Override
     public String toFileFormatString() {
-        String fromString = this.from.format(DISPLAY);
-        String toString = this.to.format(DISPLAY);
+        String fromString = DisplayDates.format(this.from);
+        String toString = DisplayDates.format(this.to);
         return "E | " + super.toFileFormatString() + " | From: " + fromString + " | To: " + toString;
     }
 
     @Override
-    public String toString() {
-        return "[E]" + super.toString() + " (from: " + from.format(DISPLAY) + " to: " + to.format(DISPLAY) + ")";
+    protected String render(boolean isDone) {
+        String dates = dateText;
+        if (dates == null) {
+            dates = " (from: " + DisplayDates.format(from) + " to: " + DisplayDates.format(to) + ")";
+            dateText = dates;
+        }
+        return "[E]" + super.render(isDone) + dates;
     }
 }
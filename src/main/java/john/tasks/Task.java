@@ -6,7 +6,9 @@ package john.tasks;
  */
 public class Task {
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone; // volatile so that readers of a shared list see marks made by other threads
+    private long id; // 0 until the task is first added to a task list
+    private volatile Rendered rendered; // toString() result, kept for the done status it was rendered with
 
     /**
      * Constructs a new Task with the specified description.
@@ -43,6 +45,24 @@ public class Task {
         return this.isDone;
     }
 
+    /**
+     * Returns the id of this task, which stays the same across sessions and list changes.
+     * @return The id, or 0 if the task has not been added to a task list yet.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the id of this task; the task list and storage assign ids, and they never change afterwards.
+     * @param id A positive id.
+     */
+    public void setId(long id) {
+        assert id > 0 : "id must be positive";
+        assert this.id == 0 || this.id == id : "id cannot change once assigned";
+        this.id = id;
+    }
+
     /**
      * Marks this task as done.
      */
@@ -73,8 +93,37 @@ public class Task {
         return doneStr + " | " + description;
     }
 
+    /**
+     * Returns the display form of this task, rendering it only when it was never rendered or its done status
+     * has changed since. The cached text records the status it shows, so a mark or unmark on another thread
+     * can never leave a stale string behind.
+     * @return The display form, e.g. "[T][X] read book".
+     */
     @Override
     public String toString() {
-        return "[" + this.getStatusIcon() + "] " + this.description;
+        boolean done = this.isDone;
+        Rendered r = rendered;
+        if (r == null || r.isDone() != done) {
+            r = new Rendered(done, render(done));
+            rendered = r;
+        }
+        return r.text();
+    }
+
+    /**
+     * Builds the display form of this task for a given done status; subclasses add their type and dates.
+     * @param isDone The done status to show.
+     * @return The display form, e.g. "[X] read book".
+     */
+    protected String render(boolean isDone) {
+        return "[" + (isDone ? "X" : " ") + "] " + this.description;
+    }
+
+    /**
+     * Holds a rendered display form together with the done status it shows.
+     * @param isDone The done status the text was rendered with.
+     * @param text The rendered text.
+     */
+    private record Rendered(boolean isDone, String text) {
     }
 }
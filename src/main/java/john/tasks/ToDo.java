@@ -20,7 +20,7 @@ public class ToDo extends Task {
     }
 
     @Override
-    public String toString() {
-        return "[T]" + super.toString();
+    protected String render(boolean isDone) {
+        return "[T]" + super.render(isDone);
     }
 }
@@ -0,0 +1,87 @@
+package john.ui;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import john.John;
+
+/**
+ * Class to run a session's commands away from the JavaFX Application Thread.
+ * Commands run one at a time on a single worker thread in the order they were submitted, so a slow
+ * list, search or save never freezes the window and replies still come back in command order.
+ * John is only ever touched by the worker, so it needs no locking of its own.
+ */
+public class CommandQueue implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+    private final John john;
+    private final ExecutorService worker;
+
+    /**
+     * Function to create a queue that owns a John session.
+     *
+     * @param john the session to run commands against
+     */
+    public CommandQueue(John john) {
+        assert john != null : "john cannot be null";
+        this.john = john;
+        this.worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "john-commands");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Function to queue a command behind every command submitted before it.
+     *
+     * @param input the raw user input
+     * @return a future completed with John's response on the worker thread
+     * @throws java.util.concurrent.RejectedExecutionException if the queue was shut down
+     */
+    public CompletableFuture<String> submit(String input) {
+        return CompletableFuture.supplyAsync(() -> john.getResponse(input), worker);
+    }
+
+    /**
+     * Function to save pending changes once the queued commands have run, and stop taking commands.
+     *
+     * @return a future completed when the tasks are saved, or completed exceptionally with an
+     *         {@link UncheckedIOException} if they could not be
+     */
+    public CompletableFuture<Void> shutdown() {
+        CompletableFuture<Void> saved = CompletableFuture.runAsync(() -> {
+            try {
+                john.shutdown();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, worker);
+        worker.shutdown();
+        return saved;
+    }
+
+    /**
+     * Function to wait for the queued commands and then save, for when the window closes without "bye".
+     * Calling it after {@link #shutdown()} is harmless.
+     *
+     * @throws IOException if a pending write fails
+     */
+    @Override
+    public void close() throws IOException {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Commands were still running after " + CLOSE_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for commands to finish", e);
+        }
+        john.shutdown();
+    }
+}
@@ -1,23 +1,20 @@
 package john.ui;
 
-import java.io.IOException;
-import java.util.Collections;
 import java.util.Objects;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 
 /**
  * Represents a dialog bubble for displaying messages in the chat interface.
  * Contains both user and John chatbot messages with appropriate avatars and styling.
+ * Bubbles are built in code rather than from FXML, so creating one costs a few node allocations
+ * instead of parsing a file and injecting fields by reflection.
  */
 public class DialogBox extends HBox {
 
@@ -27,40 +24,62 @@ public class DialogBox extends HBox {
     private static final Image JOHN = new Image(
             Objects.requireNonNull(DialogBox.class.getResourceAsStream("/images/john_dancing.gif"))
     );
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final String STYLESHEET =
+            Objects.requireNonNull(DialogBox.class.getResource("/css/dialog-box.css")).toExternalForm();
+    private static final double AVATAR_SIZE = 99.0;
+    private static final Insets BOX_PADDING = new Insets(15.0, 5.0, 15.0, 5.0);
+    private static final Insets LABEL_PADDING = new Insets(6.0);
+    private static final Insets LABEL_MARGIN = new Insets(0.0, 7.0, 0.0, 7.0);
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
 
     /**
-     * Constructs a DialogBox for the conversation with the chatbot GUI.
-     * @param message The text message to display.
-     * @param avatar The image to show as the avatar.
-     * @param isUser True if this dialog box represents a user message, false for bot.
+     * Constructs an empty DialogBox, to be filled by {@link #show(Transcript.Message)}.
+     * Transcript cells construct one each and reuse it for whichever message scrolls into view.
      */
-    private DialogBox(String message, Image avatar, boolean isUser) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    DialogBox() {
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setWrapText(true);
+        dialog.setPadding(LABEL_PADDING);
+        HBox.setMargin(dialog, LABEL_MARGIN);
+
+        // The id is what dialog-box.css styles the avatar by
+        displayPicture.setId("displayPicture");
+        displayPicture.setFitHeight(AVATAR_SIZE);
+        displayPicture.setFitWidth(AVATAR_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
 
-        dialog.setText(message);
-        displayPicture.setImage(avatar);
+        setAlignment(Pos.TOP_RIGHT);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(400.0);
+        setPadding(BOX_PADDING);
+        getStylesheets().add(STYLESHEET);
+        getChildren().addAll(dialog, displayPicture);
     }
 
     /**
-     * Flips the chat bubble along the vertical axis for John-User chats
+     * Displays a message, with the avatar on the right for the user and on the left for John.
+     * @param m The message to display.
      */
-    private void flip() {
-        dialog.getStyleClass().add("reply-label");
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
+    void show(Transcript.Message m) {
+        dialog.setText(m.text());
+        displayPicture.setImage(m.isUser() ? USER : JOHN);
+        boolean isFlipped = getChildren().get(0) == displayPicture;
+        if (isFlipped != m.isUser()) {
+            return;
+        }
+        // Only reorder when the side changes, since replacing children forces a new layout pass
+        if (m.isUser()) {
+            dialog.getStyleClass().remove("reply-label");
+            getChildren().setAll(dialog, displayPicture);
+            setAlignment(Pos.TOP_RIGHT);
+        } else {
+            dialog.getStyleClass().add("reply-label");
+            getChildren().setAll(displayPicture, dialog);
+            setAlignment(Pos.TOP_LEFT);
+        }
     }
 
     /**
@@ -69,7 +88,9 @@ public class DialogBox extends HBox {
      * @return A DialogBox configured for user display.
      */
     public static DialogBox ofUser(String message) {
-        return new DialogBox(message, USER, true);
+        DialogBox userDb = new DialogBox();
+        userDb.show(new Transcript.Message(message, true));
+        return userDb;
     }
 
     /**
@@ -78,8 +99,8 @@ public class DialogBox extends HBox {
      * @return A DialogBox configured for John's display.
      */
     public static DialogBox ofJohn(String message) {
-        DialogBox johnDb = new DialogBox(message, JOHN, false);
-        johnDb.flip();
+        DialogBox johnDb = new DialogBox();
+        johnDb.show(new Transcript.Message(message, false));
         return johnDb;
     }
 }
@@ -1,14 +1,21 @@
 package john.ui;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ProgressIndicator;
-import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
@@ -26,23 +33,47 @@ import john.John;
  */
 @SuppressWarnings("checkstyle:Regexp")
 public class MainWindow extends AnchorPane {
+    /** How long a command may run before the busy spinner appears, so quick replies never flicker it. */
+    private static final Duration BUSY_THRESHOLD = Duration.millis(200);
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Transcript.Message> transcriptView;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
+
+    private CommandQueue commands;
+
+    private int pendingCommands;
 
-    private John john;
+    private final PauseTransition busyDelay = new PauseTransition(BUSY_THRESHOLD);
+
+    private Transcript transcript = new Transcript(null, Transcript.DEFAULT_CAP);
+
+    private final ObservableList<Transcript.Message> messages = FXCollections.observableArrayList();
 
     private Node shutdownOverlay;
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        transcriptView.setItems(messages);
+        transcriptView.setCellFactory(TranscriptCell::new);
+        transcriptView.setFocusTraversable(false);
+        busyDelay.setOnFinished(e -> busyIndicator.setVisible(pendingCommands > 0));
+    }
+
+    /**
+     * Sets where the chat history goes once it passes the in-memory cap; call before {@link #setJohn(John)}.
+     * @param t The transcript to record messages in.
+     */
+    public void setTranscript(Transcript t) {
+        assert messages.isEmpty() : "set the transcript before any message is shown";
+        this.transcript = t;
     }
+
     /**
      * Overlay to provide shutdown so that shutdown is not too abrupt after typing in "bye".
      * Ensures an overlay exists and is visible; builds and attaches it on first use.
@@ -110,11 +141,11 @@ public class MainWindow extends AnchorPane {
         if (overlay == null) {
             return;
         }
-        if (scrollPane.getScene() == null || scrollPane.getScene().getRoot() == null) {
+        if (transcriptView.getScene() == null || transcriptView.getScene().getRoot() == null) {
             // Scene not ready; nothing to attach to.
             return;
         }
-        Pane root = (Pane) scrollPane.getScene().getRoot();
+        Pane root = (Pane) transcriptView.getScene().getRoot();
 
         if (root instanceof AnchorPane) {
             AnchorPane.setTopAnchor(overlay, 0.0);
@@ -145,18 +176,31 @@ public class MainWindow extends AnchorPane {
 
     /**
      * Sets the John instance for this window and displays a welcome message.
+     * From here on John is only used by this window's command queue.
      * @param j The John chatbot instance to associate with this window.
      */
     public void setJohn(John j) {
-        this.john = j;
-        dialogContainer.getChildren().add(DialogBox.ofJohn("John ChatBot \uD83D\uDDFF has arrived.\n"
-                + "What can John \uD83D\uDDFF do for you?"));
+        this.commands = new CommandQueue(j);
+        appendMessage(new Transcript.Message("John ChatBot \uD83D\uDDFF has arrived.\n"
+                + "What can John \uD83D\uDDFF do for you?", false));
+    }
+
+    /**
+     * Waits for queued commands and saves the tasks, for when the window is closed without "bye".
+     *
+     * @throws IOException If a pending write fails.
+     */
+    public void stop() throws IOException {
+        if (commands != null) {
+            commands.close();
+        }
     }
 
     /**
      * Handles user input from the text field (Send button / Enter key).
-     * Validates input, delegates to John for a response, updates the dialog UI,
-     * and initiates graceful shutdown when the exit command is detected.
+     * Validates input, shows it at once, and queues it for John on a worker thread so that slow commands
+     * never block the window. Replies are posted back in command order, and graceful shutdown begins
+     * once the reply to the exit command is shown.
      */
     @FXML
     private void handleUserInput() {
@@ -166,12 +210,43 @@ public class MainWindow extends AnchorPane {
             return;
         }
 
-        String response = john.getResponse(input);
-        appendConversation(input, response);
+        boolean isExit = isExitCommand(trimmed);
+        appendMessage(new Transcript.Message(input, true));
         clearUserInput();
+        if (isExit) {
+            // Nothing may be queued behind the exit command
+            disableInputControls();
+        }
+
+        commandStarted();
+        commands.submit(input).whenComplete((response, e) -> Platform.runLater(() -> {
+            commandFinished();
+            appendMessage(new Transcript.Message(response != null ? response
+                    : "Even John \uD83D\uDDFF did not expect this error: " + e.getMessage(), false));
+            if (isExit) {
+                beginGracefulShutdown();
+            }
+        }));
+    }
 
-        if (isExitCommand(trimmed)) {
-            beginGracefulShutdown();
+    /**
+     * Counts a queued command and arms the busy spinner if none was pending.
+     */
+    private void commandStarted() {
+        pendingCommands++;
+        if (pendingCommands == 1) {
+            busyDelay.playFromStart();
+        }
+    }
+
+    /**
+     * Counts a finished command and hides the busy spinner once none are pending.
+     */
+    private void commandFinished() {
+        pendingCommands--;
+        if (pendingCommands == 0) {
+            busyDelay.stop();
+            busyIndicator.setVisible(false);
         }
     }
 
@@ -186,16 +261,38 @@ public class MainWindow extends AnchorPane {
     }
 
     /**
-     * Appends the user message and JohnChatBot response to the dialog container.
+     * Records a message, trims whatever the transcript spilled from the front of the list,
+     * and scrolls to the new message. Only the visible bubbles are laid out, however long the session.
      *
-     * @param userMessage   the original user input.
-     * @param johnResponse  the response returned by JohnChatBot.
+     * @param m the message to show.
      */
-    private void appendConversation(String userMessage, String johnResponse) {
-        dialogContainer.getChildren().addAll(
-                DialogBox.ofUser(userMessage),
-                DialogBox.ofJohn(johnResponse)
-        );
+    private void appendMessage(Transcript.Message m) {
+        try {
+            record(m);
+        } catch (IOException e) {
+            // A spill frees a quarter of the cap, so showing the warning cannot fail the same way again
+            appendMessage(new Transcript.Message(
+                    "John \uD83D\uDDFF couldn't save older messages: " + e.getMessage(), false));
+            return;
+        }
+        transcriptView.scrollTo(messages.size() - 1);
+    }
+
+    /**
+     * Adds a message to the transcript and the list, dropping from the list whatever the transcript spilled.
+     *
+     * @param m the message to add.
+     * @throws IOException if spilled messages could not be written; the list is trimmed regardless.
+     */
+    private void record(Transcript.Message m) throws IOException {
+        messages.add(m);
+        try {
+            transcript.add(m);
+        } finally {
+            if (messages.size() > transcript.size()) {
+                messages.remove(0, messages.size() - transcript.size());
+            }
+        }
     }
 
     /**
@@ -217,12 +314,33 @@ public class MainWindow extends AnchorPane {
 
     /**
      * Begins a graceful shutdown sequence:
-     * disables inputs, shows the shutdown overlay, and closes the window after a short delay.
+     * disables inputs, shows the shutdown overlay, saves on the worker thread,
+     * and closes the window a short delay after the save finishes.
      */
     private void beginGracefulShutdown() {
         disableInputControls();
         showShutdownOverlay();
-        scheduleCloseAfter(Duration.seconds(1));
+        commands.shutdown().whenComplete((v, e) -> Platform.runLater(() -> {
+            if (e != null) {
+                reportSaveFailure(e);
+            }
+            scheduleCloseAfter(Duration.seconds(1));
+        }));
+    }
+
+    /**
+     * Tells the user that changes still queued for disk could not be saved.
+     *
+     * @param e the failure, possibly wrapped by the command queue.
+     */
+    private void reportSaveFailure(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        appendMessage(new Transcript.Message(
+                "John \uD83D\uDDFF couldn't save your tasks: " + cause.getMessage(), false));
     }
 
     /**
@@ -0,0 +1,186 @@
+package john.ui;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to hold the recent messages of a chat session, keeping at most a fixed number in memory.
+ * When the cap is passed, the oldest quarter of the messages is appended to a spill file and dropped,
+ * so a long session costs bounded heap and the window's list is trimmed in batches rather than per message.
+ * Spill lines look like "U | text" or "J | text", with backslashes and line breaks escaped.
+ */
+public class Transcript {
+    /** Default number of messages kept in memory. */
+    public static final int DEFAULT_CAP = 500;
+    private static final int MIN_CAP = 4;
+
+    private final ArrayDeque<Message> messages = new ArrayDeque<>();
+    private final Path spillFile;
+    private final int cap;
+    private int spilledCount;
+
+    /**
+     * Function to create an empty transcript.
+     *
+     * @param spillFile the file older messages are appended to, or null to discard them
+     * @param cap       the number of messages to keep in memory; at least 4
+     */
+    public Transcript(Path spillFile, int cap) {
+        assert cap >= MIN_CAP : "cap must be at least " + MIN_CAP;
+        this.spillFile = spillFile;
+        this.cap = cap;
+    }
+
+    /**
+     * Function to add a message, spilling the oldest ones if the cap is passed.
+     * The spilled messages leave memory even if writing them fails, so the cap always holds.
+     *
+     * @param m the message to add
+     * @return the number of messages removed from the front of the transcript
+     * @throws IOException if the spilled messages could not be written
+     */
+    public int add(Message m) throws IOException {
+        assert m != null : "message cannot be null";
+        messages.addLast(m);
+        if (messages.size() <= cap) {
+            return 0;
+        }
+        int count = messages.size() - cap + cap / 4;
+        List<Message> spilled = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            spilled.add(messages.removeFirst());
+        }
+        spilledCount += count;
+        if (spillFile != null) {
+            write(spilled);
+        }
+        return count;
+    }
+
+    /**
+     * Function to return the number of messages held in memory.
+     *
+     * @return the in-memory message count
+     */
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * Function to return the number of messages moved out of memory so far.
+     *
+     * @return the spilled message count
+     */
+    public int getSpilledCount() {
+        return spilledCount;
+    }
+
+    /**
+     * Function to return the messages held in memory, oldest first.
+     *
+     * @return a new list of the messages
+     */
+    public List<Message> asList() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Function to read back every message in the spill file, oldest first.
+     *
+     * @return the spilled messages, or an empty list if nothing was spilled
+     * @throws IOException if the file cannot be read
+     */
+    public List<Message> readSpilled() throws IOException {
+        List<Message> result = new ArrayList<>();
+        if (spillFile == null || !Files.exists(spillFile)) {
+            return result;
+        }
+        for (String line : Files.readAllLines(spillFile, StandardCharsets.UTF_8)) {
+            if (line.length() >= 4) {
+                result.add(new Message(unescape(line.substring(4)), line.charAt(0) == 'U'));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Function to append messages to the spill file.
+     *
+     * @param spilled the messages to append, oldest first
+     * @throws IOException if the file cannot be written
+     */
+    private void write(List<Message> spilled) throws IOException {
+        Path parent = spillFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter w = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Message m : spilled) {
+                w.write(m.isUser() ? "U | " : "J | ");
+                w.write(escape(m.text()));
+                w.newLine();
+            }
+        }
+    }
+
+    /**
+     * Function to keep a message on one line.
+     *
+     * @param s the message text
+     * @return the text with backslashes, line feeds and carriage returns escaped
+     */
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '\\' -> sb.append("\\\\");
+            case '\n' -> sb.append("\\n");
+            case '\r' -> sb.append("\\r");
+            default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Function to undo {@link #escape(String)}.
+     *
+     * @param s an escaped message
+     * @return the original text
+     */
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                switch (next) {
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                default -> sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Class to represent one chat bubble.
+     *
+     * @param text   the message text
+     * @param isUser true if the user sent it, false if John did
+     */
+    public record Message(String text, boolean isUser) {
+    }
+}
@@ -0,0 +1,38 @@
+package john.ui;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+/**
+ * Represents one visible row of the chat transcript.
+ * The list view only creates enough cells to fill the viewport and hands them new messages as the user
+ * scrolls, so each cell builds a single {@link DialogBox} and refills it instead of creating a node per message.
+ */
+class TranscriptCell extends ListCell<Transcript.Message> {
+    /** Width left for the vertical scroll bar, so bubbles never force a horizontal one. */
+    private static final double SCROLL_BAR_ALLOWANCE = 18;
+
+    private final DialogBox box = new DialogBox();
+
+    /**
+     * Constructs a cell whose bubble follows the width of the list.
+     * @param list The list view the cell belongs to.
+     */
+    TranscriptCell(ListView<Transcript.Message> list) {
+        box.prefWidthProperty().bind(list.widthProperty().subtract(SCROLL_BAR_ALLOWANCE));
+        box.maxWidthProperty().bind(box.prefWidthProperty());
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    @Override
+    protected void updateItem(Transcript.Message m, boolean isEmpty) {
+        super.updateItem(m, isEmpty);
+        if (isEmpty || m == null) {
+            setGraphic(null);
+        } else {
+            box.show(m);
+            setGraphic(box);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package john.ui;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Scanner;
 
+import john.data.Page;
 import john.data.TaskList;
 import john.tasks.Task;
 
@@ -13,7 +15,23 @@ import john.tasks.Task;
  */
 public class Ui {
     private static final String DIVIDER = "=================================================\n";
-    private final Scanner sc = new Scanner(System.in);
+    private final Scanner sc;
+
+    /**
+     * Function to create a Ui that reads commands typed into the console.
+     */
+    public Ui() {
+        this(System.in);
+    }
+
+    /**
+     * Function to create a Ui that reads commands from a stream, such as a batch file.
+     *
+     * @param in the stream to read commands from
+     */
+    public Ui(InputStream in) {
+        this.sc = new Scanner(in);
+    }
 
     /**
      * Function to print the welcome message at program start.
@@ -69,19 +87,23 @@ public class Ui {
     }
 
     /**
-     * Function to print the results of a find operation.
+     * Function to print one page of the results of a find operation.
      * If no tasks match, a friendly message is shown.
      *
      * @param matches the list of tasks that matched the query
+     * @param page    the page to print, which must be in range
+     * @param command the find command without its page options, e.g. "find book"
      */
-    public void showFound(List<Task> matches) {
+    public void showFound(List<Task> matches, Page page, String command) {
         if (matches.isEmpty()) {
             System.out.println("No matching tasks found.");
             return;
         }
         System.out.println("Here are the matching tasks in your list:\n");
-        for (int i = 0; i < matches.size(); i++) {
-            System.out.println((i + 1) + ". " + matches.get(i));
+        TaskList.displayLines(matches, page.getFrom(), page.getTo()).forEachRemaining(System.out::println);
+        String footer = page.footer(command);
+        if (!footer.isEmpty()) {
+            System.out.println(footer);
         }
     }
 
@@ -97,14 +119,17 @@ public class Ui {
     }
 
     /**
-     * Function to print all tasks in the task list to the user.
+     * Function to print one page of the task list to the user, a line at a time.
      *
      * @param tasks the task list wrapper containing tasks
+     * @param page  the page to print, which must be in range
      */
-    public void showList(TaskList tasks) {
+    public void showList(TaskList tasks, Page page) {
         System.out.println("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            System.out.println((i + 1) + ". " + tasks.get(i));
+        tasks.displayLines(page.getFrom(), page.getTo()).forEachRemaining(System.out::println);
+        String footer = page.footer();
+        if (!footer.isEmpty()) {
+            System.out.println(footer);
         }
     }
 
@@ -136,4 +161,51 @@ public class Ui {
         System.out.println("Noted. I've removed this task:\n" + removed);
         System.out.println("Now you have " + size + " task(s) in the list.");
     }
+
+    /**
+     * Function to inform the user that a change was undone.
+     *
+     * @param action the change that was undone, e.g. "deleting"
+     * @param t      the task it was undone on
+     * @param size   the current number of tasks in the list
+     */
+    public void showUndone(String action, Task t, int size) {
+        System.out.println("Undone " + action + " this task:\n" + t);
+        System.out.println("Now you have " + size + " task(s) in the list.");
+    }
+
+    /**
+     * Function to inform the user that an undone change was made again.
+     *
+     * @param action the change that was redone, e.g. "deleting"
+     * @param t      the task it was redone on
+     * @param size   the current number of tasks in the list
+     */
+    public void showRedone(String action, Task t, int size) {
+        System.out.println("Redone " + action + " this task:\n" + t);
+        System.out.println("Now you have " + size + " task(s) in the list.");
+    }
+
+    /**
+     * Function to inform the user that the following commands form one batch.
+     */
+    public void showBatchStarted() {
+        System.out.println("Batch started. Changes will be saved together when you type \"commit\".");
+    }
+
+    /**
+     * Function to inform the user that a batch was saved.
+     *
+     * @param changes the number of changes the batch made
+     */
+    public void showBatchCommitted(int changes) {
+        System.out.println("Batch committed. Saved " + changes + " change(s).");
+    }
+
+    /**
+     * Function to inform the user that the changes of a batch were undone.
+     */
+    public void showBatchRolledBack() {
+        System.out.println("Batch rolled back. The task list is back to how it was before \"begin\".");
+    }
 }
@@ -0,0 +1,190 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import john.data.ColumnarTaskList;
+import john.data.JournalEntry;
+import john.data.Storage;
+import john.data.TaskList;
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to test that the columnar task list stores and returns tasks like an ordinary list.
+ */
+public class ColumnarTaskListTest {
+
+    /**
+     * Function to test that every kind of task, with its id, done status and times, survives a round trip.
+     */
+    @Test
+    @DisplayName("get: views match the stored tasks field for field")
+    void get_roundTripsEveryKind() {
+        Deadline d = new Deadline("return book", LocalDateTime.of(2025, 8, 28, 18, 0));
+        d.mark();
+        d.setId(7);
+        Event e = new Event("café meetup", LocalDateTime.of(1969, 12, 31, 23, 59), LocalDateTime.of(2070, 1, 1, 0, 0));
+        ToDo t = new ToDo("");
+        List<Task> source = List.of(d, e, t);
+
+        ColumnarTaskList tasks = new ColumnarTaskList(source);
+
+        assertEquals(3, tasks.size());
+        for (int i = 0; i < source.size(); i++) {
+            assertEquals(source.get(i).toFileFormatString(), tasks.get(i).toFileFormatString());
+            assertEquals(source.get(i).toString(), tasks.get(i).toString());
+        }
+    }
+
+    /**
+     * Function to test that marking goes through the list, and that changing a view does not.
+     */
+    @Test
+    @DisplayName("mark/unmark: status changes are stored, view changes are not")
+    void mark_updatesColumnNotView() {
+        ColumnarTaskList tasks = new ColumnarTaskList(List.of(new ToDo("read book")));
+
+        tasks.get(0).mark();
+        assertFalse(tasks.get(0).getIsDone(), "Views should be detached from the list");
+
+        assertTrue(tasks.mark(0).getIsDone());
+        assertTrue(tasks.get(0).getIsDone());
+        assertFalse(tasks.unmark(0).getIsDone());
+    }
+
+    /**
+     * Function to test that inserts, replacements and removals, including enough to compact the text
+     * arena, keep the same contents as an ArrayList given the same operations.
+     */
+    @Test
+    @DisplayName("add/set/remove: contents match an ArrayList through arena compaction")
+    void mutations_matchArrayList() {
+        ColumnarTaskList tasks = new ColumnarTaskList();
+        List<Task> expected = new ArrayList<>();
+        String padding = "x".repeat(1000);
+        for (int i = 0; i < 3000; i++) {
+            Task t = new ToDo("task " + i + " " + padding);
+            tasks.add(t);
+            expected.add(t);
+        }
+        tasks.add(0, new ToDo("first"));
+        expected.add(0, new ToDo("first"));
+        tasks.set(1, new Deadline("due", LocalDateTime.of(2025, 1, 1, 9, 30)));
+        expected.set(1, new Deadline("due", LocalDateTime.of(2025, 1, 1, 9, 30)));
+        for (int i = 0; i < 2500; i++) {
+            tasks.remove(tasks.size() / 2);
+            expected.remove(expected.size() / 2);
+        }
+
+        assertEquals(expected.size(), tasks.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), tasks.get(i).toString());
+        }
+        assertTrue(tasks.getFootprintBytes() < 3L * 1024 * 1024, "Removed text should have been compacted away");
+    }
+
+    /**
+     * Function to test that find returns the same matches as TaskList, for ASCII and non-ASCII text.
+     */
+    @Test
+    @DisplayName("find: same matches as TaskList, including non-ASCII descriptions")
+    void find_matchesTaskList() {
+        List<Task> source = List.of(new ToDo("read book"), new ToDo("Return BOOKS"), new ToDo("Bücher"),
+                new ToDo("Kettle"), new ToDo("buy milk"));
+        ColumnarTaskList columnar = new ColumnarTaskList(source);
+        TaskList reference = new TaskList(new ArrayList<>(source));
+
+        for (String keyword : List.of("book", "BOOK", "bü", "ket", "k", "", "milk!")) {
+            assertEquals(reference.find(keyword).stream().map(Task::getDesc).toList(),
+                    columnar.find(keyword).stream().map(Task::getDesc).toList(), keyword);
+        }
+    }
+
+    /**
+     * Function to test that the time-range queries and sorted views give the same tasks in the same order as
+     * TaskList, including ties, times before 1970 and times beyond the range of an int of minutes.
+     */
+    @Test
+    @DisplayName("due/events/sorted: same results as TaskList, far-future dates included")
+    void timeQueries_matchTaskList() {
+        LocalDateTime base = LocalDateTime.of(2025, 8, 1, 9, 0);
+        List<Task> source = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime at = base.plusHours(i % 50);
+            source.add(switch (i % 3) {
+            case 0 -> new Deadline("deadline " + i, at);
+            case 1 -> new Event("event " + i, at, at.plusHours(i % 7));
+            default -> new ToDo("todo " + i);
+            });
+        }
+        source.add(new Deadline("far", LocalDateTime.of(7000, 1, 1, 12, 0)));
+        source.add(new Event("long ago", LocalDateTime.of(1, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 23, 59)));
+        ColumnarTaskList columnar = new ColumnarTaskList(source);
+        TaskList reference = new TaskList(new ArrayList<>(source));
+
+        assertEquals(descs(reference.dueBefore(base.plusHours(20))), descs(columnar.dueBefore(base.plusHours(20))));
+        assertEquals(descs(reference.dueBetween(base.plusHours(5), LocalDateTime.of(7000, 1, 1, 12, 0))),
+                descs(columnar.dueBetween(base.plusHours(5), LocalDateTime.of(7000, 1, 1, 12, 0))));
+        assertEquals(descs(reference.eventsOverlapping(base.plusHours(10), base.plusHours(12))),
+                descs(columnar.eventsOverlapping(base.plusHours(10), base.plusHours(12))));
+        assertEquals(descs(reference.sortedViewDeadlineFirst()), descs(columnar.sortedViewDeadlineFirst()));
+        assertEquals(descs(reference.sortedViewEventFirst()), descs(columnar.sortedViewEventFirst()));
+        assertEquals("far", columnar.dueBefore(LocalDateTime.of(7000, 1, 1, 12, 1)).get(100).getDesc());
+    }
+
+    /**
+     * Function to test that a columnar load, including its journal replay, gives the same tasks as a plain load.
+     */
+    @Test
+    @DisplayName("Storage columnar load: same tasks as a plain load, journal replayed into the columns")
+    void storage_loadsIntoColumns(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        StringBuilder text = new StringBuilder("T | Not Done | malformed\r\nX | bad\n");
+        for (int i = 0; i < 40_000; i++) {
+            text.append("D | Not Done | return book ").append(i).append(" | By: 1/1/7000 1200 | #").append(i + 1)
+                    .append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(file, text);
+        Storage storage = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        storage.load();
+        storage.append(JournalEntry.mark(39_000));
+        storage.append(JournalEntry.delete(1));
+
+        List<Task> plain = new Storage(file).load();
+        List<Task> columns = new Storage(file).withColumnarLoad(true).load();
+        assertTrue(columns instanceof ColumnarTaskList);
+        assertEquals(plain.size(), columns.size());
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(plain.get(i).toFileFormatString(), columns.get(i).toFileFormatString());
+        }
+        assertTrue(columns.get(38_999).getIsDone(), "The journaled mark should be stored in the columns");
+        assertThrows(IllegalArgumentException.class, () -> new TaskList(columns),
+                "TaskList should refuse to copy the columns back into task objects");
+    }
+
+    /**
+     * Function to list the descriptions of tasks, in order.
+     *
+     * @param tasks the tasks
+     * @return their descriptions
+     */
+    private static List<String> descs(List<Task> tasks) {
+        return tasks.stream().map(Task::getDesc).toList();
+    }
+}
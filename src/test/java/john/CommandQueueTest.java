@@ -0,0 +1,44 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import john.ui.CommandQueue;
+
+/**
+ * Class to test that commands run off the calling thread still take effect and reply in submission order.
+ */
+public class CommandQueueTest {
+
+    /**
+     * Function to test that many queued commands run in order and that close saves them.
+     */
+    @Test
+    @DisplayName("CommandQueue: replies arrive in command order and close saves the tasks")
+    void commandQueue_keepsOrder(@TempDir Path tmp) throws IOException {
+        String file = tmp.resolve("johnChatBot.txt").toString();
+        List<CompletableFuture<String>> replies = new ArrayList<>();
+        try (CommandQueue commands = new CommandQueue(new John(file))) {
+            for (int i = 0; i < 200; i++) {
+                replies.add(commands.submit("todo task" + i));
+            }
+            replies.add(commands.submit("list 2"));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(replies.get(i).join().contains("Now you have " + (i + 1) + " tasks"),
+                    "Reply " + i + " was out of order: " + replies.get(i).join());
+        }
+        assertTrue(replies.get(200).join().contains("200. "), "list should run after every add");
+        assertTrue(new John(file).getResponse("list 2").contains("200. #200 [T][ ] task199"), "close should save");
+    }
+}
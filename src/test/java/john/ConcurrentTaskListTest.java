@@ -0,0 +1,106 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import john.data.ConcurrentTaskList;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to stress ConcurrentTaskList with many threads adding, deleting, marking and searching at once.
+ */
+public class ConcurrentTaskListTest {
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int OPS = 2_000;
+
+    /**
+     * Function to test that concurrent writers lose no updates and that readers always see consistent snapshots.
+     */
+    @Test
+    @DisplayName("ConcurrentTaskList: concurrent add/delete/find keep every snapshot consistent")
+    void concurrentTaskList_stress() throws InterruptedException {
+        ConcurrentTaskList list = new ConcurrentTaskList(List.of());
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger(WRITERS);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            threads.add(new Thread(() -> run(start, failures, () -> {
+                try {
+                    addAndDelete(list, writer, removed);
+                } finally {
+                    done.decrementAndGet();
+                }
+            })));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> run(start, failures, () -> {
+                long lastVersion = -1;
+                while (done.get() > 0) {
+                    ConcurrentTaskList.Snapshot s = list.snapshot();
+                    assertTrue(s.getVersion() >= lastVersion, "Versions never go backwards");
+                    lastVersion = s.getVersion();
+                    List<Task> hits = s.find("writer3 task1");
+                    for (Task t : hits) {
+                        assertTrue(s.asList().contains(t), "Search results must come from the same snapshot");
+                    }
+                    assertEquals(s.size(), s.sortedViewDeadlineFirst().size());
+                }
+            })));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertTrue(failures.isEmpty(), "Worker failed: " + failures.peek());
+        ConcurrentTaskList.Snapshot end = list.snapshot();
+        assertEquals(WRITERS * OPS - removed.get(), end.size());
+        assertEquals(OPS - OPS / 3, end.find("writer3 ").size());
+    }
+
+    private static void addAndDelete(ConcurrentTaskList list, int writer, AtomicInteger removed) {
+        List<Task> mine = new ArrayList<>();
+        for (int i = 0; i < OPS; i++) {
+            Task t = new ToDo("writer" + writer + " task" + i);
+            list.add(t);
+            mine.add(t);
+            if (i % 3 == 2) {
+                // Delete what this writer saw, wherever other writers have since moved it
+                Task victim = mine.remove(mine.size() / 2);
+                assertTrue(list.remove(victim), "A task only this writer deletes must still be present");
+                assertFalse(list.remove(victim), "Deleting twice must not remove another task");
+                removed.incrementAndGet();
+            }
+            if (i % 5 == 0) {
+                list.mark(0);
+            }
+        }
+    }
+
+    private static void run(CountDownLatch start, ConcurrentLinkedQueue<Throwable> failures, Runnable body) {
+        try {
+            start.await();
+            body.run();
+        } catch (Throwable e) {
+            failures.add(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import john.server.JohnServer;
+
+/**
+ * Class to test the HTTP front-end over the John facade.
+ */
+public class JohnServerTest {
+
+    /**
+     * Function to test that sessions keep separate task lists and files, and that requests are counted.
+     */
+    @Test
+    @DisplayName("JohnServer: sessions are isolated, saved on close, and counted in /stats")
+    void server_isolatesSessions(@TempDir Path tmp) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        try (JohnServer server = new JohnServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), tmp)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            assertEquals(200, post(client, base + "/session/alice", "todo read book").statusCode());
+            assertEquals(200, post(client, base + "/session/bob", "todo buy milk").statusCode());
+            HttpResponse<String> list = post(client, base + "/session/alice", "list");
+            assertTrue(list.body().contains("read book"));
+            assertFalse(list.body().contains("buy milk"), "Sessions should not share tasks");
+            assertEquals(400, post(client, base + "/session/..%2Fetc", "list").statusCode());
+
+            HttpResponse<String> stats = client.send(HttpRequest.newBuilder(URI.create(base + "/stats")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(stats.body().contains("requests: 4"), stats.body());
+            assertTrue(stats.body().contains("errors: 1"), stats.body());
+            assertTrue(stats.body().contains("sessions: 2"), stats.body());
+        }
+        assertTrue(new John(tmp.resolve("alice.txt").toString()).getResponse("list").contains("read book"));
+        assertTrue(new John(tmp.resolve("bob.txt").toString()).getResponse("list").contains("buy milk"));
+    }
+
+    /**
+     * Function to test that bye and an idle timeout both save and close a session, that a closed session is
+     * loaded again by its next request, and that sessions share the writer threads.
+     */
+    @Test
+    @DisplayName("JohnServer: bye and idle sessions are saved and closed, writers are shared")
+    void server_closesEndedAndIdleSessions(@TempDir Path tmp) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (JohnServer server = new JohnServer(address, tmp, Duration.ofMillis(200))) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            for (int i = 0; i < 8; i++) {
+                post(client, base + "/session/user" + i, "todo task " + i);
+            }
+            long writerThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().startsWith("john-storage-writer")).count();
+            assertTrue(writerThreads <= Runtime.getRuntime().availableProcessors(), "writers: " + writerThreads);
+
+            post(client, base + "/session/user0", "bye");
+            assertTrue(new John(tmp.resolve("user0.txt").toString()).getResponse("list").contains("task 0"),
+                    "bye should save the session");
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (server.getSessionCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, server.getSessionCount(), "Idle sessions should be closed");
+            assertTrue(new John(tmp.resolve("user7.txt").toString()).getResponse("list").contains("task 7"));
+            assertTrue(post(client, base + "/session/user7", "list").body().contains("task 7"),
+                    "A closed session should be loaded again");
+            assertEquals(1, server.getSessionCount());
+        }
+    }
+
+    /**
+     * Function to test that names differing only in case reach one session and one task file.
+     */
+    @Test
+    @DisplayName("JohnServer: session names are case-insensitive")
+    void server_sessionNamesIgnoreCase(@TempDir Path tmp) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        try (JohnServer server = new JohnServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), tmp)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+            post(client, base + "/session/Bob", "todo read book");
+            post(client, base + "/session/bob", "todo buy milk");
+            String list = post(client, base + "/session/BOB", "list").body();
+            assertTrue(list.contains("read book") && list.contains("buy milk"), list);
+            assertEquals(1, server.getSessionCount());
+        }
+        String saved = new John(tmp.resolve("bob.txt").toString()).getResponse("list");
+        assertTrue(saved.contains("read book") && saved.contains("buy milk"), saved);
+    }
+
+        private static HttpResponse<String> post(HttpClient client, String url, String command)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.ofString(command))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,96 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import john.metrics.LatencyHistogram;
+import john.metrics.Metrics;
+
+/**
+ * Class to test the command metrics and the "stats" command that shows them.
+ */
+public class MetricsTest {
+
+    /**
+     * Function to test that percentiles are upper bounds within the histogram's precision.
+     */
+    @Test
+    @DisplayName("LatencyHistogram: percentiles are within 1/16 above the true value")
+    void histogram_percentilesWithinPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            h.record(nanos);
+        }
+
+        assertEquals(100_000, h.getCount());
+        assertEquals(100_000, h.getMaxNanos());
+        assertEquals(50_000, h.getMeanNanos());
+        long p50 = h.getPercentileNanos(50);
+        long p99 = h.getPercentileNanos(99);
+        assertTrue(p50 >= 50_000 && p50 <= 50_000 * 17 / 16, "p50 was " + p50);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, "p99 was " + p99);
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(99));
+    }
+
+    /**
+     * Function to test that disabled metrics record nothing.
+     */
+    @Test
+    @DisplayName("Metrics: nothing is recorded while disabled")
+    void metrics_disabledRecordsNothing() {
+        Metrics m = new Metrics(false);
+        m.recordCommand(null, false);
+        m.recordLatency(Metrics.Phase.PARSE, 1000);
+        m.recordBytesWritten(10);
+
+        assertEquals(0L, m.getErrorCounts().get("INVALID").longValue());
+        assertEquals(0, m.getLatencies(Metrics.Phase.PARSE).getCount());
+        assertEquals(0, m.getBytesWritten());
+    }
+
+    /**
+     * Function to test that commands are counted by kind, phases are timed, saves are measured,
+     * and the shared metrics are visible over JMX.
+     */
+    @Test
+    @DisplayName("stats: commands, phases and bytes written are recorded and shown")
+    void stats_recordsCommands() throws Exception {
+        Path dir = Files.createTempDirectory("john-metrics");
+        John john = new John(dir.resolve("tasks.txt").toString());
+        Metrics metrics = Metrics.shared();
+        long adds = metrics.getCommandCounts().get("ADD");
+        long invalid = metrics.getErrorCounts().get("INVALID");
+        long lists = metrics.getLatencies(Metrics.Phase.RENDER).getCount();
+
+        john.getResponse("todo read book");
+        john.getResponse("list");
+        john.getResponse("mark 5");
+        john.getResponse("deadline x /by tomorrow");
+        john.shutdown();
+
+        assertEquals(adds + 1, metrics.getCommandCounts().get("ADD").longValue());
+        assertTrue(metrics.getErrorCounts().get("MARK") >= 1);
+        assertEquals(invalid + 1, metrics.getErrorCounts().get("INVALID").longValue());
+        assertTrue(metrics.getLatencies(Metrics.Phase.RENDER).getCount() >= lists + 1);
+        assertTrue(metrics.getLatencies(Metrics.Phase.SAVE).getCount() >= 1);
+        assertTrue(metrics.getBytesWritten() > 0);
+
+        String stats = new John(dir.resolve("other.txt").toString()).getResponse("stats");
+        assertTrue(stats.contains("parse_us: count"), stats);
+        assertTrue(stats.contains("ADD "), stats);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertTrue(server.isRegistered(new ObjectName(Metrics.OBJECT_NAME)));
+        assertEquals(Boolean.TRUE, server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Enabled"));
+    }
+}
@@ -6,10 +6,13 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import john.command.Parser;
 import john.exceptions.JohnException;
@@ -86,4 +89,135 @@ public class ParserTest {
                         || ex.getMessage().toLowerCase().contains("requires"),
                 "Error should include usage/help text");
     }
+
+    /**
+     * Function to test the corner cases the single-pass tokenizer must reproduce: the last /by wins,
+     * markers ignore case, and task numbers are parsed like Integer.parseInt.
+     */
+    @Test
+    @DisplayName("parse: tokenizer keeps greedy markers, marker case and index rules")
+    void parse_tokenizerCornerCases() throws Exception {
+        Deadline d = (Deadline) Parser.parse("deadline read /by the book /BY 28/8/2025 1800").task;
+        assertEquals("read /by the book", d.getDesc());
+
+        assertEquals(1, Parser.parse("  mark   +2  ").index);
+        JohnException tooBig = assertThrows(JohnException.class, () -> Parser.parse("delete 2147483648"));
+        assertEquals("Invalid index! Task number must be a whole number.", tooBig.getMessage());
+        JohnException twoArgs = assertThrows(JohnException.class, () -> Parser.parse("unmark 1 2"));
+        assertEquals("Invalid input! Please provide a single task number.", twoArgs.getMessage());
+
+        // Tabs take the regex path and must give the same result
+        assertEquals(Parser.parse("todo read book").task.getDesc(), Parser.parse("todo\tread book").task.getDesc());
+
+        Parser.Parsed byId = Parser.parse("delete #12");
+        assertEquals(Parser.Parsed.Kind.DELETE, byId.kind);
+        assertEquals(12, byId.id);
+        assertThrows(JohnException.class, () -> Parser.parse("mark #x"));
+        assertThrows(JohnException.class, () -> Parser.parse("unmark #0"));
+    }
+
+    /**
+     * Function to test that list takes an optional page number and page size, in either order.
+     */
+    @Test
+    @DisplayName("list parse: page number and --page-size are optional and validated")
+    void parse_listPaging() throws Exception {
+        Parser.Parsed plain = Parser.parse("list");
+        assertEquals(1, plain.page);
+        assertEquals(100, plain.pageSize);
+
+        Parser.Parsed both = Parser.parse("list --page-size 50 3");
+        assertEquals(3, both.page);
+        assertEquals(50, both.pageSize);
+        assertEquals(both.page, Parser.parse("list\t3 --page-size 50").page, "Tabs take the regex path");
+
+        assertThrows(JohnException.class, () -> Parser.parse("list 0"));
+        assertThrows(JohnException.class, () -> Parser.parse("list --page-size 1001"));
+        assertThrows(JohnException.class, () -> Parser.parse("list 2 3"));
+    }
+
+    /**
+     * Function to test the forms of the time-range queries, and that a reversed range is rejected.
+     */
+    @Test
+    @DisplayName("due/events parse: before, between and overlapping ranges")
+    void parse_timeRanges() throws Exception {
+        LocalDateTime aug1 = LocalDateTime.of(2025, 8, 1, 0, 0);
+        LocalDateTime aug31 = LocalDateTime.of(2025, 8, 31, 23, 59);
+
+        Parser.Parsed before = Parser.parse("due before 1/8/2025 0000");
+        assertEquals(Parser.Parsed.Kind.DUE, before.kind);
+        assertEquals(null, before.start);
+        assertEquals(aug1, before.end);
+
+        Parser.Parsed between = Parser.parse("due between 1/8/2025 0000   31/8/2025 2359");
+        assertEquals(aug1, between.start);
+        assertEquals(aug31, between.end);
+
+        Parser.Parsed overlapping = Parser.parse("events overlapping 1/8/2025 0000 31/8/2025 2359");
+        assertEquals(Parser.Parsed.Kind.OVERLAPPING, overlapping.kind);
+        assertEquals(aug1, overlapping.start);
+
+        assertThrows(JohnException.class, () -> Parser.parse("due between 31/8/2025 2359 1/8/2025 0000"));
+        assertThrows(JohnException.class, () -> Parser.parse("due before tomorrow"));
+        assertThrows(JohnException.class, () -> Parser.parse("events 1/8/2025 0000 31/8/2025 2359"));
+    }
+
+    /**
+     * Function to test that find, due and events take the same page options, after their other arguments.
+     */
+    @Test
+    @DisplayName("query parse: --page and --page-size follow find, due and events")
+    void parse_queryPaging() throws Exception {
+        Parser.Parsed plain = Parser.parse("find chapter 2");
+        assertEquals("chapter 2", plain.query);
+        assertEquals(1, plain.page);
+        assertEquals(100, plain.pageSize);
+
+        Parser.Parsed find = Parser.parse("find chapter 2 --page-size 50 --page 3");
+        assertEquals("chapter 2", find.query);
+        assertEquals(3, find.page);
+        assertEquals(50, find.pageSize);
+        Parser.Parsed tabs = Parser.parse("find chapter\t2 --page 3");
+        assertEquals("chapter\t2", tabs.query, "Tabs take the regex path");
+        assertEquals(3, tabs.page);
+
+        Parser.Parsed due = Parser.parse("due before 1/8/2025 0000 --page 2");
+        assertEquals(2, due.page);
+        assertEquals(LocalDateTime.of(2025, 8, 1, 0, 0), due.end);
+        Parser.Parsed events = Parser.parse("events overlapping 1/8/2025 0000 31/8/2025 2359 --page-size 10");
+        assertEquals(1, events.page);
+        assertEquals(10, events.pageSize);
+
+        assertThrows(JohnException.class, () -> Parser.parse("find x --page 0"));
+        assertThrows(JohnException.class, () -> Parser.parse("find x --page 1 --page 2"));
+        assertThrows(JohnException.class, () -> Parser.parse("due before 1/8/2025 0000 2"));
+        assertThrows(JohnException.class, () -> Parser.parse("events overlapping 1/8/2025 0000 2/8/2025 0000 --page"));
+    }
+
+    /**
+     * Function to test that query results are shown a page at a time, with the command for the next page,
+     * instead of being cut off after the first page.
+     */
+    @Test
+    @DisplayName("find/due paging: every result is reachable, a page at a time")
+    void queryResults_arePaged(@TempDir Path tmp) throws IOException {
+        John john = new John(tmp.resolve("tasks.txt").toString());
+        for (int i = 1; i <= 250; i++) {
+            john.getResponse("deadline book " + i + " /by " + (i % 28 + 1) + "/8/2025 1800");
+        }
+
+        String first = john.getResponse("find book");
+        assertEquals(101, first.lines().count());
+        assertTrue(first.endsWith("Page 1 of 3. Type \"find book --page 2\" for the next page."), first);
+        String last = john.getResponse("find book --page 3");
+        assertTrue(last.startsWith("201. #201 [D][ ] book 201"), last);
+        assertTrue(last.endsWith("250. #250 [D][ ] book 250 (by: Aug 27 2025)\nPage 3 of 3."), last);
+        assertTrue(john.getResponse("find book --page 4").contains("only have 3 page(s)"));
+
+        String due = john.getResponse("due before 1/9/2025 0000 --page-size 200");
+        assertTrue(due.endsWith("Type \"due before 1/9/2025 0000 --page 2 --page-size 200\" for the next page."), due);
+        assertEquals(51, john.getResponse("due before 1/9/2025 0000 --page 2 --page-size 200").lines().count());
+        john.shutdown();
+    }
 }
@@ -6,7 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +19,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import john.data.JournalEntry;
+import john.data.PersistenceScheduler;
 import john.data.Storage;
+import john.data.TaskList;
 import john.tasks.Deadline;
 import john.tasks.Event;
 import john.tasks.Task;
@@ -77,4 +84,269 @@ public class StorageTest {
         assertEquals(LocalDateTime.of(2025, 8, 28, 9, 0), loadedEv.getFrom());
         assertEquals(LocalDateTime.of(2025, 8, 28, 10, 30), loadedEv.getTo());
     }
+
+    /**
+     * Function to test that journaled mutations are replayed over the snapshot on load,
+     * and that compacting the journal leaves the same tasks behind.
+     */
+    @Test
+    @DisplayName("Storage journal: appended mutations survive a reload and a compaction")
+    void storage_journalReplay(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Storage storage = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("read book"), new ToDo("return book")));
+        storage.save(tasks);
+
+        storage.append(JournalEntry.add(new ToDo("buy milk")));
+        storage.append(JournalEntry.mark(2));
+        storage.append(JournalEntry.delete(0));
+
+        Storage reopened = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        List<Task> loaded = reopened.load();
+        assertEquals(2, loaded.size());
+        assertEquals("return book", loaded.get(0).getDesc());
+        assertEquals("buy milk", loaded.get(1).getDesc());
+        assertTrue(loaded.get(1).getIsDone(), "Journaled mark should be replayed");
+
+        // Compaction folds the journal into the snapshot; replaying it again must not duplicate tasks
+        reopened.save(loaded);
+        assertEquals(2, new Storage(file).load().size());
+    }
+
+    /**
+     * Function to test that a text file migrates to the binary format and back without losing data.
+     */
+    @Test
+    @DisplayName("Storage binary format: text -> binary -> text migration preserves tasks")
+    void storage_binaryMigration(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Deadline dl = new Deadline("return book", LocalDateTime.of(2025, 8, 28, 18, 0));
+        dl.mark();
+        List<Task> tasks = List.of(new ToDo("read book \uD83D\uDDFF"), dl, new Event("project meeting",
+                LocalDateTime.of(2025, 8, 28, 9, 0), LocalDateTime.of(2025, 8, 28, 10, 30)));
+        new TaskList(tasks); // assigns the ids that both formats store
+        new Storage(file).save(tasks);
+        String text = Files.readString(file);
+
+        Storage binary = new Storage(file).withFormat(Storage.Format.BINARY);
+        binary.save(binary.load());
+        assertFalse(Files.readString(file, StandardCharsets.ISO_8859_1).contains(" | "),
+                "Snapshot should now be binary");
+
+        Storage backToText = new Storage(file);
+        List<Task> loaded = backToText.load();
+        assertEquals(tasks.size(), loaded.size());
+        assertTrue(loaded.get(1).getIsDone(), "Done status should survive the binary format");
+        backToText.save(loaded);
+        assertEquals(text, Files.readString(file), "Round trip should reproduce the original text file");
+    }
+
+    /**
+     * Function to test that a binary snapshot whose last date-time is out of range keeps the tasks before it,
+     * whether the minute overflows when converted to seconds or only falls outside the supported years.
+     */
+    @Test
+    @DisplayName("Storage binary format: an out-of-range date-time is treated as truncation")
+    void storage_binaryBadDateKeepsPrefix(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Storage binary = new Storage(file).withFormat(Storage.Format.BINARY);
+        for (long minute : new long[] {Long.MAX_VALUE, Long.MIN_VALUE / 60 - 1, 1_000_000_000_000_000L}) {
+            binary.save(new ArrayList<>(List.of(new ToDo("read book"),
+                    new Deadline("return book", LocalDateTime.of(2025, 8, 28, 18, 0)))));
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer.wrap(bytes).putLong(bytes.length - Long.BYTES, minute); // the deadline's date-time
+            Files.write(file, bytes);
+
+            List<Task> loaded = new Storage(file).withFormat(Storage.Format.BINARY).load();
+            assertEquals(1, loaded.size(), "minute " + minute);
+            assertEquals("read book", loaded.get(0).getDesc());
+        }
+    }
+
+    /**
+     * Function to test that mutations queued on the background writer are on disk once it is flushed or closed.
+     */
+    @Test
+    @DisplayName("PersistenceScheduler: queued mutations are written by flush and close")
+    void persistenceScheduler_flushAndClose(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Storage storage = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        PersistenceScheduler persistence = new PersistenceScheduler(storage, PersistenceScheduler.Durability.ON_IDLE);
+
+        persistence.submit(JournalEntry.add(new ToDo("read book")));
+        persistence.submit(JournalEntry.add(new ToDo("return book")));
+        persistence.flush();
+        assertEquals(2, new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD).load().size());
+
+        // A snapshot supersedes entries queued before it
+        persistence.submit(JournalEntry.delete(0));
+        persistence.submitSnapshot(List.of(new ToDo("buy milk")));
+        persistence.submit(JournalEntry.mark(0));
+        persistence.close();
+
+        List<Task> loaded = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD).load();
+        assertEquals(1, loaded.size());
+        assertEquals("buy milk", loaded.get(0).getDesc());
+        assertTrue(loaded.get(0).getIsDone(), "Entries queued after the snapshot should be journaled");
+    }
+
+    /**
+     * Function to test that a change whose journal write failed is still saved when the facade shuts down.
+     */
+    @Test
+    @DisplayName("John.shutdown: a failed background write is saved by a final snapshot")
+    void shutdown_savesAfterFailedWrite(@TempDir Path tmp) throws IOException, InterruptedException {
+        Path file = tmp.resolve("tasks.txt");
+        Path journal = tmp.resolve("tasks.txt.journal");
+        John john = new John(file.toString());
+        Files.createDirectory(journal); // appending to the journal fails while it is a directory
+        john.getResponse("todo read book");
+        Thread.sleep(1000); // past the idle delay, so the failed write has happened
+        Files.delete(journal);
+        john.shutdown();
+
+        List<Task> loaded = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD).load();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDesc());
+    }
+
+    /**
+     * Function to test that an in-place save, kept to measure what atomic saves cost, writes the snapshot
+     * directly and reads back the same tasks.
+     */
+    @Test
+    @DisplayName("Storage in-place save: no temporary file, same tasks")
+    void storage_inPlaceSave(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Storage storage = new Storage(file).withInPlaceSave(true);
+        storage.save(List.of(new ToDo("read book"), new ToDo("buy milk")));
+        Object before = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        storage.save(List.of(new ToDo("read book")));
+        assertEquals(before, Files.readAttributes(file, BasicFileAttributes.class).fileKey(),
+                "The snapshot should be overwritten, not replaced by a renamed file");
+        List<Task> loaded = new Storage(file).load();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDesc());
+    }
+
+    /**
+     * Function to test that load recovers from a save that was interrupted before its rename.
+     */
+    @Test
+    @DisplayName("Storage atomic save: leftover temporary files are discarded or promoted on load")
+    void storage_recoversInterruptedSave(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Path temp = tmp.resolve("johnChatBot.txt.tmp");
+        new Storage(file).save(List.of(new ToDo("read book")));
+
+        // A half-written replacement must not win over the complete snapshot
+        Files.writeString(temp, "T | Not Done | half wri");
+        assertEquals("read book", new Storage(file).load().get(0).getDesc());
+        assertFalse(Files.exists(temp), "Unfinished temporary file should be removed");
+
+        // Without a snapshot, the temporary file is all there is
+        Files.delete(file);
+        Files.writeString(temp, "T | Not Done | buy milk\n");
+        assertEquals("buy milk", new Storage(file).load().get(0).getDesc());
+        assertTrue(Files.exists(file));
+    }
+
+    /**
+     * Function to test that a file written before tasks had ids is given ids on load,
+     * and that the ids are then read back unchanged, including by a mapped load.
+     */
+    @Test
+    @DisplayName("Storage ids: legacy files are migrated once and ids survive later loads")
+    void storage_migratesIds(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        Files.writeString(file, "T | Not Done | read book\nD | Done | return book | 1/8/2025 0900\n");
+
+        List<Task> migrated = new Storage(file).load();
+        assertEquals(1, migrated.get(0).getId());
+        assertEquals(2, migrated.get(1).getId());
+        assertTrue(Files.readString(file).contains("| #2"), "Migrated ids should be saved");
+
+        List<Task> mapped = new Storage(file).withMappedLoad(true).load();
+        assertEquals(2, mapped.get(1).getId());
+        assertEquals("return book", mapped.get(1).getDesc());
+    }
+
+    /**
+     * Function to test that a mapped load leaves out malformed lines up front, so that its positions match an
+     * eager load before any task is decoded, journal records replay onto the same tasks, and a search of the
+     * still undecoded list finds what a search of the eager load finds.
+     */
+    @Test
+    @DisplayName("Storage mapped load: malformed lines never shift positions")
+    void storage_mappedLoadKeepsPositions(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("johnChatBot.txt");
+        StringBuilder text = new StringBuilder()
+                .append("T | Not Done | read book | #1\n")
+                .append("D | Not Done | bad date | By: 99/2/2025 0900 | #2\n")
+                .append("T | Done | caf\u00e9 \u2615 book | #3\n")
+                .append("E | Not Done | meeting | From: 1/8/2025 0900 | To: 1/8/2025 1000 | #4\n")
+                .append("T | Not Done |  | #5\n")
+                .append("T\t| Not Done | tabbed book | #6\n");
+        for (int i = 0; i < 10_000; i++) {
+            text.append("T | Not Done | filler ").append(i).append(" | #").append(7 + i).append('\n');
+        }
+        Files.writeString(file, text);
+        Storage storage = new Storage(file).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        storage.load();
+        storage.append(JournalEntry.delete(2));
+        storage.append(JournalEntry.mark(5000));
+
+        List<Task> eager = new Storage(file).load();
+        assertEquals("caf\u00e9 \u2615 book", new Storage(file).withMappedLoad(true).load().get(1).getDesc());
+        List<Task> mapped = new Storage(file).withMappedLoad(true).load();
+        assertEquals(eager.size(), mapped.size());
+        for (int i = eager.size() - 1; i >= 0; i--) {
+            assertEquals(eager.get(i).toFileFormatString(), mapped.get(i).toFileFormatString());
+        }
+
+        TaskList lazy = new TaskList(new Storage(file).withMappedLoad(true).load());
+        assertEquals(3, lazy.find("book").size());
+        assertEquals(new TaskList(eager).find("iller 99").size(), lazy.find("iller 99").size());
+        assertEquals(eager.get(4999).getId(), lazy.get(4999).getId());
+    }
+
+    /**
+     * Function to test that a parallel load of a large file with malformed lines, blank lines,
+     * mixed line terminators and non-ASCII text gives the same tasks as a load on one thread,
+     * with both line decoders.
+     */
+    @Test
+    @DisplayName("Storage parallel load: same tasks in the same order as a sequential load")
+    void storage_parallelLoadMatchesSequential(@TempDir Path tmp) throws IOException {
+        String[] terminators = {"\n", "\r\n", "\r"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; sb.length() < 3 * 1024 * 1024; i++) {
+            String line = switch (i % 7) {
+            case 0 -> "D | Done | return bök " + i + " | By: 1/8/2025 0900 | #" + i;
+            case 1 -> "E | Not Done | café " + i + " | From: 1/8/2025 0900 | To: 2/8/2025 1000 | #" + i;
+            case 2 -> "X | broken line " + i;
+            case 3 -> "   ";
+            case 4 -> "D | Done | no date " + i + " | By: someday | #" + i;
+            default -> "T | Not Done | read   book " + i + " | #" + i;
+            };
+            sb.append(line).append(terminators[i % terminators.length]);
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (boolean isStreaming : new boolean[] {true, false}) {
+            Path sequential = tmp.resolve("sequential-" + isStreaming + ".txt");
+            Path parallel = tmp.resolve("parallel-" + isStreaming + ".txt");
+            Files.write(sequential, bytes);
+            Files.write(parallel, bytes);
+
+            List<Task> expected = new Storage(sequential).withStreamingDecoder(isStreaming).load();
+            List<Task> actual = new Storage(parallel).withStreamingDecoder(isStreaming).withParallelLoad(true).load();
+
+            assertTrue(expected.size() > 10_000, "The file should hold many tasks");
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).toFileFormatString(), actual.get(i).toFileFormatString());
+            }
+        }
+    }
 }
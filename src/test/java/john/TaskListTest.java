@@ -0,0 +1,233 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import john.data.TaskList;
+import john.tasks.Deadline;
+import john.tasks.Event;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to test TaskList queries stay consistent with the list as it is mutated.
+ */
+public class TaskListTest {
+
+    /**
+     * Function to test that find returns case-insensitive substring matches in list order,
+     * both for indexed keywords and for keywords too short for the index.
+     */
+    @Test
+    @DisplayName("find: substring matches are returned in list order after adds and removes")
+    void find_matchesInListOrder() {
+        TaskList tasks = new TaskList(List.of(new ToDo("read book"), new ToDo("buy milk")));
+        tasks.add(new ToDo("Return BOOKS"));
+        tasks.add(new ToDo("bookkeeping"));
+        tasks.remove(0);
+
+        List<Task> hits = tasks.find("Book");
+        assertEquals(2, hits.size());
+        assertEquals("Return BOOKS", hits.get(0).getDesc());
+        assertEquals("bookkeeping", hits.get(1).getDesc());
+
+        assertEquals(1, tasks.find("mi").size(), "Short keywords should still match");
+        assertTrue(tasks.find("read").isEmpty(), "Removed tasks should no longer match");
+    }
+
+    /**
+     * Function to test that the deadline-first view keeps equal deadlines in list order
+     * and the remaining tasks in list order after them.
+     */
+    @Test
+    @DisplayName("sortedViewDeadlineFirst: deadlines ascending and stable, then other tasks")
+    void sortedViewDeadlineFirst_isStable() {
+        LocalDateTime early = LocalDateTime.of(2025, 8, 1, 9, 0);
+        LocalDateTime late = LocalDateTime.of(2025, 9, 1, 9, 0);
+        Task a = new Deadline("a", late);
+        Task b = new ToDo("b");
+        Task c = new Deadline("c", early);
+        Task d = new Deadline("d", late);
+        TaskList tasks = new TaskList(List.of(a, b, c));
+        tasks.add(d);
+
+        assertEquals(List.of(c, a, d, b), tasks.sortedViewDeadlineFirst());
+        tasks.remove(2);
+        assertEquals(List.of(a, d, b), tasks.sortedViewDeadlineFirst());
+    }
+
+    /**
+     * Function to test that restoring a checkpoint undoes adds, removes and marks made after it.
+     */
+    @Test
+    @DisplayName("restore: list contents, done status and search results return to the checkpoint")
+    void restore_undoesChangesAfterCheckpoint() {
+        Task a = new ToDo("read book");
+        Task b = new ToDo("buy milk");
+        TaskList tasks = new TaskList(List.of(a, b));
+        TaskList.Checkpoint checkpoint = tasks.checkpoint();
+
+        tasks.mark(0);
+        tasks.remove(1);
+        tasks.add(new ToDo("read paper"));
+        tasks.restore(checkpoint);
+
+        assertEquals(List.of(a, b), tasks.asList());
+        assertFalse(a.getIsDone(), "Marks made after the checkpoint should be undone");
+        assertEquals(List.of(a), tasks.find("read"));
+        assertEquals(List.of(b), tasks.find("milk"));
+    }
+
+    /**
+     * Function to test that ids survive deletes, including enough of them to compact the list,
+     * while indexes keep following list order.
+     */
+    @Test
+    @DisplayName("indexOfId: ids stay stable and positions stay dense across many deletes")
+    void indexOfId_stableAcrossDeletes() {
+        TaskList tasks = new TaskList(List.of());
+        for (int i = 0; i < 300; i++) {
+            tasks.add(new ToDo("task" + i));
+        }
+        long kept = tasks.get(250).getId();
+        for (int i = 0; i < 200; i++) {
+            tasks.remove(i % 2 == 0 ? 0 : tasks.size() / 2);
+        }
+
+        assertEquals(100, tasks.size());
+        int index = tasks.indexOfId(kept);
+        assertTrue(index >= 0, "A task that was not deleted keeps its id");
+        assertEquals("task250", tasks.get(index).getDesc());
+        assertEquals(-1, tasks.indexOfId(1), "Deleted ids should no longer resolve");
+        assertEquals(index, tasks.asList().indexOf(tasks.get(index)));
+        Task added = new ToDo("new");
+        tasks.add(added);
+        assertEquals(301, added.getId(), "New tasks get ids after every id ever assigned");
+        assertEquals(100, tasks.indexOfId(301));
+    }
+
+    /**
+     * Function to test that a page of display lines skips deleted tasks and keeps list numbering.
+     */
+    @Test
+    @DisplayName("displayLines: a page is numbered by position and skips deleted tasks")
+    void displayLines_pageSkipsDeleted() {
+        TaskList tasks = new TaskList(List.of());
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new ToDo("task" + i));
+        }
+        tasks.remove(3);
+        tasks.remove(0);
+
+        List<String> lines = new ArrayList<>();
+        tasks.displayLines(2, 5).forEachRemaining(lines::add);
+        assertEquals(List.of("3. #5 [T][ ] task4", "4. #6 [T][ ] task5", "5. #7 [T][ ] task6"), lines);
+        assertFalse(tasks.displayLines(8, 8).hasNext());
+    }
+
+    /**
+     * Function to test that cached display strings follow mark and unmark, and that dates render as before.
+     */
+    @Test
+    @DisplayName("toString: cached display text tracks the done status")
+    void toString_tracksDoneStatus() {
+        LocalDateTime when = LocalDateTime.of(2023, 8, 6, 18, 0);
+        Task d = new Deadline("return book", when);
+        assertEquals("[D][ ] return book (by: Aug 06 2023)", d.toString());
+        d.mark();
+        assertEquals("[D][X] return book (by: Aug 06 2023)", d.toString());
+        d.unmark();
+        assertEquals("[D][ ] return book (by: Aug 06 2023)", d.toString());
+        Task e = new Event("trip", when, when.plusDays(1));
+        assertEquals("[E][ ] trip (from: Aug 06 2023 to: Aug 07 2023)", e.toString());
+    }
+
+    /**
+     * Function to test that the range queries answered from the indexes agree with a scan of the list
+     * after random adds and deletes, including events that start before and end after the range.
+     */
+    @Test
+    @DisplayName("dueBetween/eventsOverlapping: indexed answers match a scan after adds and deletes")
+    void rangeQueries_matchScan() {
+        Random r = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = base.plusHours(r.nextInt(24 * 365));
+            if (r.nextBoolean()) {
+                tasks.add(new Deadline("d" + i, start));
+            } else {
+                tasks.add(new Event("e" + i, start, start.plusHours(r.nextInt(24 * 60))));
+            }
+            if (r.nextInt(4) == 0) {
+                tasks.remove(r.nextInt(tasks.size()));
+            }
+        }
+
+        for (int q = 0; q < 50; q++) {
+            LocalDateTime from = base.plusHours(r.nextInt(24 * 365));
+            LocalDateTime to = from.plusHours(r.nextInt(24 * 30));
+            List<Task> due = new ArrayList<>();
+            List<Task> overlapping = new ArrayList<>();
+            for (Task t : tasks.asList()) {
+                if (t instanceof Deadline d && !d.getBy().isBefore(from) && !d.getBy().isAfter(to)) {
+                    due.add(t);
+                } else if (t instanceof Event e && !e.getFrom().isAfter(to) && !e.getTo().isBefore(from)) {
+                    overlapping.add(t);
+                }
+            }
+            due.sort(Comparator.comparing(t -> ((Deadline) t).getBy()));
+            overlapping.sort(Comparator.comparing(t -> ((Event) t).getFrom()));
+
+            assertEquals(due, tasks.dueBetween(from, to));
+            assertEquals(overlapping, tasks.eventsOverlapping(from, to));
+            assertTrue(tasks.dueBefore(from).stream().allMatch(t -> ((Deadline) t).getBy().isBefore(from)));
+        }
+    }
+
+    /**
+     * Function to test that the parallel find and sorted views return exactly what the sequential ones do,
+     * on a list large enough to be split into many chunks and with empty slots left by deletes.
+     */
+    @Test
+    @DisplayName("withParallelThreshold: parallel find and sorted views match the sequential order")
+    void parallelQueries_matchSequential() {
+        Random r = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        String[] words = {"read book", "buy milk", "gym", "book club", "call mum"};
+        TaskList tasks = new TaskList(new ArrayList<>());
+        for (int i = 0; i < 60_000; i++) {
+            String desc = words[r.nextInt(words.length)] + " " + i;
+            LocalDateTime start = base.plusHours(r.nextInt(24 * 30));
+            switch (r.nextInt(3)) {
+            case 0 -> tasks.add(new ToDo(desc));
+            case 1 -> tasks.add(new Deadline(desc, start));
+            default -> tasks.add(new Event(desc, start, start.plusHours(2)));
+            }
+            if (r.nextInt(10) == 0) {
+                tasks.remove(r.nextInt(tasks.size()));
+            }
+        }
+
+        tasks.withParallelThreshold(Integer.MAX_VALUE);
+        List<List<Task>> sequential = List.of(tasks.find("book"), tasks.find("gy"), tasks.find("1"),
+                tasks.sortedViewDeadlineFirst(), tasks.sortedViewEventFirst());
+        tasks.withParallelThreshold(0);
+        List<List<Task>> parallel = List.of(tasks.find("book"), tasks.find("gy"), tasks.find("1"),
+                tasks.sortedViewDeadlineFirst(), tasks.sortedViewEventFirst());
+
+        assertEquals(sequential, parallel);
+        assertTrue(sequential.get(0).size() > 10_000);
+        assertEquals(tasks.size(), parallel.get(3).size());
+    }
+}
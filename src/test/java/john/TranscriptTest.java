@@ -0,0 +1,46 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import john.ui.Transcript;
+
+/**
+ * Class to test that the chat transcript stays within its cap and loses nothing it spills.
+ */
+public class TranscriptTest {
+
+    /**
+     * Function to test that older messages move to the spill file in batches, in order and unchanged,
+     * while memory never holds more than the cap.
+     */
+    @Test
+    @DisplayName("Transcript: messages past the cap are spilled to disk in order")
+    void transcript_spillsOldestMessages(@TempDir Path tmp) throws IOException {
+        Transcript transcript = new Transcript(tmp.resolve("transcript.txt"), 8);
+        List<Transcript.Message> sent = new ArrayList<>();
+        int removed = 0;
+        for (int i = 0; i < 50; i++) {
+            // Multi-line replies and backslashes must survive the one-line spill format
+            Transcript.Message m = new Transcript.Message("line " + i + "\nnext \\n", i % 2 == 0);
+            sent.add(m);
+            removed += transcript.add(m);
+            assertTrue(transcript.size() <= 8, "Memory should never hold more than the cap");
+        }
+
+        assertEquals(removed, transcript.getSpilledCount());
+        assertEquals(50, transcript.size() + removed);
+        List<Transcript.Message> all = new ArrayList<>(transcript.readSpilled());
+        all.addAll(transcript.asList());
+        assertEquals(sent, all);
+    }
+}
@@ -0,0 +1,279 @@
+package john;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import john.data.JournalEntry;
+import john.data.Storage;
+import john.data.TaskList;
+import john.data.UndoHistory;
+import john.tasks.Deadline;
+import john.tasks.Task;
+import john.tasks.ToDo;
+
+/**
+ * Class to test the undo and redo commands and the bounded history behind them.
+ */
+public class UndoTest {
+
+    /**
+     * Function to test that every kind of change is undone and redone in order, and that a new change
+     * forgets the changes that could have been redone.
+     */
+    @Test
+    @DisplayName("undo/redo: adds, deletes and marks are reversed and made again in order")
+    void undoRedo_reversesChanges(@TempDir Path tmp) throws IOException {
+        John john = new John(tmp.resolve("tasks.txt").toString());
+        john.getResponse("todo read book");
+        john.getResponse("todo buy milk");
+        john.getResponse("todo call mum");
+        john.getResponse("mark 2");
+        john.getResponse("delete 1");
+        String before = john.getResponse("list");
+
+        assertTrue(john.getResponse("undo").contains("deleting"));
+        assertTrue(john.getResponse("list").startsWith("1. #1 [T][ ] read book"));
+        assertTrue(john.getResponse("undo").contains("marking"));
+        assertTrue(john.getResponse("list").contains("[T][ ] buy milk"));
+        assertTrue(john.getResponse("redo").contains("marking"));
+        assertTrue(john.getResponse("redo").contains("deleting"));
+        assertEquals(before, john.getResponse("list"));
+        assertTrue(john.getResponse("redo").contains("nothing"));
+
+        john.getResponse("undo");
+        john.getResponse("todo water plants");
+        assertTrue(john.getResponse("redo").contains("nothing"), "A new change should forget the redo");
+        john.shutdown();
+    }
+
+    /**
+     * Function to test that the history and the undone changes are saved, so that undo works after a restart.
+     */
+    @Test
+    @DisplayName("undo: history survives a restart, and undone deletes are journaled")
+    void undo_survivesRestart(@TempDir Path tmp) throws IOException {
+        String file = tmp.resolve("tasks.txt").toString();
+        John john = new John(file);
+        john.getResponse("todo read book");
+        john.getResponse("deadline return book /by 28/8/2025 1800");
+        john.getResponse("todo buy milk");
+        john.getResponse("delete 2");
+        String before = john.getResponse("list");
+        john.shutdown();
+
+        John restarted = new John(file);
+        assertEquals(before, restarted.getResponse("list"));
+        restarted.getResponse("undo");
+        String restored = restarted.getResponse("list");
+        assertTrue(restored.contains("2. #2 [D][ ] return book"),
+                "The task should keep its place and id: " + restored);
+        assertEquals(1, restarted.getResponse("find return").lines().count());
+        restarted.shutdown();
+
+        John again = new John(file);
+        assertEquals(restored, again.getResponse("list"));
+        assertTrue(again.getResponse("redo").contains("deleting"));
+        assertEquals(before, again.getResponse("list"));
+        again.shutdown();
+    }
+
+    /**
+     * Function to test that a history saved before an undo, as left by a crash between the journal write and
+     * the history write, is dropped rather than undoing a delete a second time or redoing an add twice.
+     */
+    @Test
+    @DisplayName("undo/redo: a history older than the list never duplicates a task")
+    void staleHistory_neverDuplicates() {
+        Task a = new ToDo("a");
+        Task b = new ToDo("b");
+        Task c = new ToDo("c");
+        TaskList tasks = new TaskList(List.of(a, b, c));
+        UndoHistory history = new UndoHistory(UndoHistory.DEFAULT_CAPACITY);
+        tasks.remove(1);
+        history.recordDelete(1, b);
+        List<String> beforeUndo = history.encode();
+        history.undo(tasks);
+
+        UndoHistory reloaded = UndoHistory.decode(beforeUndo, UndoHistory.DEFAULT_CAPACITY);
+        assertNull(reloaded.undo(tasks), "The deleted task is already back in the list");
+        assertEquals("[T][ ] a\n[T][ ] b\n[T][ ] c", tasks.toDisplayStringWithoutNumbers(tasks.asList()));
+        assertEquals(1, tasks.indexOfId(b.getId()));
+
+        Task d = new ToDo("d");
+        tasks.add(d);
+        history.recordAdd(tasks.size() - 1, d);
+        history.undo(tasks);
+        List<String> afterAddUndone = history.encode();
+        history.redo(tasks);
+        tasks.remove(0);
+        UndoHistory stale = UndoHistory.decode(afterAddUndone, UndoHistory.DEFAULT_CAPACITY);
+        assertNull(stale.redo(tasks), "The added task must not be re-added while it is in the list");
+        assertEquals("[T][ ] b\n[T][ ] c\n[T][ ] d", tasks.toDisplayStringWithoutNumbers(tasks.asList()));
+    }
+
+    /**
+     * Function to test that the ring keeps only the latest changes, and that a history that no longer
+     * matches the list is dropped rather than applied.
+     */
+    @Test
+    @DisplayName("UndoHistory: bounded ring, encode/decode round-trip, stale history dropped")
+    void history_isBoundedAndChecked() {
+        TaskList tasks = new TaskList();
+        UndoHistory history = new UndoHistory(3);
+        for (int i = 0; i < 5; i++) {
+            Task t = new ToDo("task " + i);
+            tasks.add(t);
+            history.recordAdd(tasks.size() - 1, t);
+        }
+        assertEquals(3, history.getUndoCount());
+
+        assertEquals("task 4", history.undo(tasks).getTask().getDesc());
+        UndoHistory decoded = UndoHistory.decode(history.encode(), 3);
+        assertEquals(history.encode(), decoded.encode());
+        assertEquals(2, decoded.getUndoCount());
+        assertEquals(1, decoded.getRedoCount());
+
+        tasks.remove(tasks.size() - 1);
+        assertNull(decoded.undo(tasks), "A history that does not match the list should not be applied");
+        assertEquals(0, decoded.getUndoCount() + decoded.getRedoCount());
+        assertEquals(0, UndoHistory.decode(List.of("@ | 1", "A | x"), 3).getUndoCount());
+    }
+
+    /**
+     * Function to test that a saved history followed by the deltas of later steps decodes to the same history,
+     * through ring overflow, undo, redo, a new change after an undo, discarded changes and a clear.
+     */
+    @Test
+    @DisplayName("UndoHistory: deltas appended to a saved history replay every step")
+    void deltas_replayOnSavedHistory() {
+        TaskList tasks = new TaskList();
+        UndoHistory history = new UndoHistory(3);
+        for (int i = 0; i < 2; i++) {
+            Task t = new ToDo("task " + i);
+            tasks.add(t);
+            history.recordAdd(tasks.size() - 1, t);
+        }
+        List<String> saved = new ArrayList<>(history.encode());
+        history.takeDeltas();
+        for (int i = 2; i < 5; i++) {
+            Task t = new ToDo("task " + i);
+            tasks.add(t);
+            history.recordAdd(tasks.size() - 1, t);
+        }
+        history.undo(tasks);
+        history.undo(tasks);
+        history.redo(tasks);
+        saved.addAll(history.takeDeltas());
+        assertEquals(history.encode(), UndoHistory.decode(saved, 3).encode());
+
+        history.recordMark(0, tasks.mark(0), false);
+        history.discardLatest(1);
+        saved.addAll(history.takeDeltas());
+        assertEquals(history.encode(), UndoHistory.decode(saved, 3).encode());
+        assertEquals(history.encode(), UndoHistory.decode(saved.subList(3, saved.size()), 3).encode(),
+                "Deltas alone should replay on an empty history");
+
+        history.clear();
+        saved.addAll(history.takeDeltas());
+        assertEquals(0, UndoHistory.decode(saved, 3).getUndoCount());
+        assertEquals(0, UndoHistory.decode(List.of("@ | 0", "<"), 3).getUndoCount());
+    }
+
+    /**
+     * Function to test that each command appends its history deltas instead of rewriting the history file,
+     * and that a line cut short by a crash is left out on load.
+     */
+    @Test
+    @DisplayName("undo: commands append small history deltas that survive a restart")
+    void history_isAppendedPerCommand(@TempDir Path tmp) throws IOException {
+        String file = tmp.resolve("tasks.txt").toString();
+        Path historyFile = tmp.resolve("tasks.txt.history");
+        John john = new John(file);
+        john.getResponse("todo read book");
+        john.getResponse("todo buy milk");
+        john.getResponse("mark 1");
+        john.getResponse("undo");
+        john.shutdown();
+        List<String> lines = Files.readAllLines(historyFile);
+        assertEquals(List.of('+', '+', '+', '<'), lines.stream().map(l -> l.charAt(0)).toList());
+
+        Files.writeString(historyFile, "+ | M | 0 | Not D", StandardOpenOption.APPEND);
+        John restarted = new John(file);
+        assertTrue(restarted.getResponse("redo").contains("marking"));
+        assertTrue(restarted.getResponse("list").contains("[T][X] read book"));
+        restarted.shutdown();
+
+        John again = new John(file);
+        assertTrue(again.getResponse("undo").contains("marking"), "Appends after the cut line should load");
+        again.shutdown();
+    }
+
+    /**
+     * Function to test that inserted tasks take their place in every query, both into the slot left by a delete
+     * and between tasks whose sequence numbers leave no gap, as after a restart.
+     */
+    @Test
+    @DisplayName("TaskList.insert: positions, ids and query order match a plain list")
+    void insert_keepsQueriesInListOrder() {
+        LocalDateTime base = LocalDateTime.of(2025, 8, 1, 9, 0);
+        List<Task> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add(i % 2 == 0 ? new ToDo("book " + i) : new Deadline("book " + i, base));
+        }
+        TaskList tasks = new TaskList(expected);
+
+        Task removed = tasks.remove(50);
+        tasks.insert(50, removed);
+        Task front = new Deadline("book front", base);
+        tasks.insert(0, front);
+        expected.add(0, front);
+        Task middle = new ToDo("book middle");
+        tasks.insert(100, middle);
+        expected.add(100, middle);
+
+        assertEquals(expected, tasks.asList());
+        assertEquals(expected, tasks.find("book"));
+        assertEquals(100, tasks.indexOfId(middle.getId()));
+        List<Task> deadlines = new ArrayList<>();
+        List<Task> others = new ArrayList<>();
+        for (Task t : expected) {
+            (t instanceof Deadline ? deadlines : others).add(t);
+        }
+        deadlines.addAll(others);
+        assertEquals(deadlines, tasks.sortedViewDeadlineFirst());
+        assertFalse(tasks.find("front").isEmpty());
+    }
+
+    /**
+     * Function to test that an insert record in the journal is replayed at its position on load.
+     */
+    @Test
+    @DisplayName("Storage: journaled inserts are replayed at their index")
+    void journal_replaysInsert(@TempDir Path tmp) throws IOException {
+        Storage storage = new Storage(tmp.resolve("tasks.txt")).withJournal(Storage.DEFAULT_COMPACT_THRESHOLD);
+        List<Task> tasks = new ArrayList<>(List.of(new ToDo("a"), new ToDo("c")));
+        storage.save(tasks);
+        Task b = new ToDo("b");
+        b.setId(7);
+        storage.append(JournalEntry.insert(1, b));
+
+        List<Task> loaded = new Storage(tmp.resolve("tasks.txt")).load();
+        assertEquals(3, loaded.size());
+        assertEquals("b", loaded.get(1).getDesc());
+        assertEquals(7, loaded.get(1).getId());
+    }
+}